@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.mule.runtime.api.util.CaseInsensitiveMapWrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CaseInsensitiveMapWrapper} lookups and insertions using keys shaped like HTTP headers.
+ *
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CaseInsensitiveMapWrapperBenchmark {
+
+  private static final String[] KEYS = {"Content-Type", "Content-Length", "Accept", "Accept-Encoding", "Authorization",
+      "Cache-Control", "Connection", "Host", "User-Agent", "X-Correlation-ID", "Transfer-Encoding", "Cookie"};
+
+  private CaseInsensitiveMapWrapper<String> map;
+  private String[] lookupKeys;
+  private int index = 0;
+
+  @Setup
+  public void setUp() {
+    map = new CaseInsensitiveMapWrapper<>();
+    lookupKeys = new String[KEYS.length];
+    for (int i = 0; i < KEYS.length; i++) {
+      map.put(KEYS[i], "value" + i);
+      lookupKeys[i] = i % 2 == 0 ? KEYS[i].toLowerCase() : KEYS[i].toUpperCase();
+    }
+  }
+
+  @Benchmark
+  public String get() {
+    return map.get(nextKey());
+  }
+
+  @Benchmark
+  public String put() {
+    return map.put(nextKey(), "value");
+  }
+
+  @Benchmark
+  public CaseInsensitiveMapWrapper<String> populate() {
+    CaseInsensitiveMapWrapper<String> populated = new CaseInsensitiveMapWrapper<>();
+    for (String key : KEYS) {
+      populated.put(key, key);
+    }
+
+    return populated;
+  }
+
+  private String nextKey() {
+    String key = lookupKeys[index];
+    index = (index + 1) % lookupKeys.length;
+    return key;
+  }
+}
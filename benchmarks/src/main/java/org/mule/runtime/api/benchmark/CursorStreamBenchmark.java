@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.mule.runtime.api.streaming.FileStoreCursorStreamConfig.DEFAULT_CHUNK_SIZE;
+import static org.mule.runtime.api.util.DataUnit.KB;
+import org.mule.runtime.api.streaming.CursorStream;
+import org.mule.runtime.api.streaming.CursorStreamProvider;
+import org.mule.runtime.api.streaming.FileStoreCursorStreamConfig;
+import org.mule.runtime.api.streaming.InMemoryCursorStreamConfig;
+import org.mule.runtime.api.util.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link CursorStream} sequential reads and random seeks for each kind of
+ * {@link CursorStreamProvider}.
+ * <p>
+ * The stream is fully buffered during setup, so these benchmarks measure reads over already buffered content.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CursorStreamBenchmark {
+
+  private static final int DATA_SIZE = 1024 * 1024;
+  private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+  @Param({"inMemory", "fileStore", "compressedFileStore"})
+  public String providerType;
+
+  private CursorStreamProvider provider;
+  private CursorStream cursor;
+  private byte[] readBuffer;
+  private long[] seekPositions;
+  private int seekIndex = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    byte[] data = new byte[DATA_SIZE];
+    new Random(1).nextBytes(data);
+    provider = createProvider(data);
+
+    try (CursorStream warmCursor = provider.openCursor()) {
+      while (warmCursor.skip(DATA_SIZE) > 0) {
+      }
+    }
+
+    cursor = provider.openCursor();
+    readBuffer = new byte[READ_BUFFER_SIZE];
+
+    Random random = new Random(2);
+    seekPositions = new long[1024];
+    for (int i = 0; i < seekPositions.length; i++) {
+      seekPositions[i] = random.nextInt(DATA_SIZE);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    cursor.close();
+    provider.close();
+  }
+
+  @Benchmark
+  public long sequentialRead() throws IOException {
+    cursor.seek(0);
+    long total = 0;
+    int read;
+    while ((read = cursor.read(readBuffer)) != -1) {
+      total += read;
+    }
+
+    return total;
+  }
+
+  @Benchmark
+  public int randomSeek() throws IOException {
+    cursor.seek(seekPositions[seekIndex++ & (seekPositions.length - 1)]);
+    return cursor.read();
+  }
+
+  private CursorStreamProvider createProvider(byte[] data) {
+    ByteArrayInputStream stream = new ByteArrayInputStream(data);
+    switch (providerType) {
+      case "inMemory":
+        return CursorStreamProvider.inMemory(stream, new InMemoryCursorStreamConfig(new DataSize(256, KB),
+                                                                                    new DataSize(256, KB),
+                                                                                    new DataSize(DATA_SIZE / 1024, KB)));
+      case "fileStore":
+        return CursorStreamProvider.fileStore(stream, new FileStoreCursorStreamConfig(new DataSize(128, KB)));
+      case "compressedFileStore":
+        return CursorStreamProvider.fileStore(stream, new FileStoreCursorStreamConfig(new DataSize(128, KB), DEFAULT_CHUNK_SIZE,
+                                                                                      true));
+      default:
+        throw new IllegalArgumentException("Unknown provider type: " + providerType);
+    }
+  }
+}
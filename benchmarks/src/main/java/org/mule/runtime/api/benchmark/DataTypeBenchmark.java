@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.mule.runtime.api.metadata.DataType;
+import org.mule.runtime.api.metadata.MediaType;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation of {@link DataType} instances through {@link DataType#builder()} and its shortcuts.
+ * <p>
+ * The builder factory is provided by the Mule Runtime, so it must be available on the classpath.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DataTypeBenchmark {
+
+  @Benchmark
+  public DataType fromType() {
+    return DataType.fromType(String.class);
+  }
+
+  @Benchmark
+  public DataType fromObject() {
+    return DataType.fromObject("payload");
+  }
+
+  @Benchmark
+  public DataType builderWithMediaType() {
+    return DataType.builder().type(String.class).mediaType(MediaType.APPLICATION_JSON).charset(UTF_8).build();
+  }
+
+  @Benchmark
+  public DataType builderParsingMediaType() {
+    return DataType.builder().type(String.class).mediaType("application/json; charset=UTF-8").build();
+  }
+
+  @Benchmark
+  public DataType collectionBuilder() {
+    return DataType.builder().collectionType(List.class).itemType(String.class).itemMediaType(MediaType.TEXT).build();
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.mule.runtime.api.component.location.Location;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures chains of {@link Location#builder()} invocations, which copy the builder on each step.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LocationBenchmark {
+
+  private final Location.Builder flowBuilder = Location.builder().globalName("myFlow").addProcessorsPart();
+
+  @Benchmark
+  public Location globalElement() {
+    return Location.builder().globalName("myConfig").build();
+  }
+
+  @Benchmark
+  public Location nestedProcessor() {
+    return Location.builder().globalName("myFlow").addProcessorsPart().addIndexPart(2).addPart("route").addIndexPart(0)
+        .addProcessorsPart().addIndexPart(1).build();
+  }
+
+  @Benchmark
+  public Location fromSharedBuilder() {
+    return flowBuilder.addIndexPart(3).build();
+  }
+
+  @Benchmark
+  public String nestedProcessorToString() {
+    return nestedProcessor().toString();
+  }
+}
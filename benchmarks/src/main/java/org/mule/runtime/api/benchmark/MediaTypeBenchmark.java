@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import org.mule.runtime.api.metadata.MediaType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MediaType#parse(String)} for media types of increasing complexity, along with the operations
+ * performed on the parsed instances when they're logged or used as map keys.
+ *
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MediaTypeBenchmark {
+
+  @Param({"application/json", "text/plain; charset=UTF-8",
+      "multipart/related; type=\"application/xop+xml\"; boundary=abc; start=\"<root>\""})
+  public String mediaType;
+
+  private MediaType parsed;
+  private MediaType other;
+  private Map<MediaType, Object> map;
+
+  @Setup
+  public void setUp() {
+    parsed = MediaType.parse(mediaType);
+    other = MediaType.parse(mediaType);
+
+    map = new HashMap<>();
+    map.put(MediaType.ANY, new Object());
+    map.put(MediaType.BINARY, new Object());
+    map.put(parsed, new Object());
+  }
+
+  @Benchmark
+  public MediaType parse() {
+    return MediaType.parse(mediaType);
+  }
+
+  @Benchmark
+  public String toRfcString() {
+    return parsed.toRfcString();
+  }
+
+  @Benchmark
+  public int hashCodeOf() {
+    return parsed.hashCode();
+  }
+
+  @Benchmark
+  public boolean equalsParsed() {
+    return parsed.equals(other);
+  }
+
+  @Benchmark
+  public boolean equalsDifferent() {
+    return parsed.equals(MediaType.BINARY);
+  }
+
+  @Benchmark
+  public Object mapLookup() {
+    return map.get(other);
+  }
+}
@@ -6,6 +6,8 @@
  */
 package org.mule.runtime.api.config;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -51,4 +53,19 @@ public interface DatabasePoolingProfile {
    * @return A {@link TimeUnit} which qualifies the {@link #getMaxWait()}.
    */
   TimeUnit getMaxWaitUnit();
+
+  /**
+   * @return For how long a connection can be held by a client before it's reported as a possible leak. Zero (default)
+   * means leak detection is disabled
+   */
+  default int getLeakDetectionThreshold() {
+    return 0;
+  }
+
+  /**
+   * @return A {@link TimeUnit} which qualifies the {@link #getLeakDetectionThreshold()}.
+   */
+  default TimeUnit getLeakDetectionThresholdUnit() {
+    return MILLISECONDS;
+  }
 }
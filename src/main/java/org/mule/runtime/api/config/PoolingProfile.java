@@ -39,6 +39,34 @@ public class PoolingProfile {
   public static final int WHEN_EXHAUSTED_WAIT = 1;
   public static final int WHEN_EXHAUSTED_GROW = 2;
 
+  /**
+   * Tells the object pool to never allow more than maxActive objects to be active at one time.
+   */
+  public static final int SIZING_FIXED = 0;
+
+  /**
+   * Tells the object pool to adapt the maximum amount of active objects between minActive and maxActive, based on
+   * how long objects are borrowed for and on how often creating them fails.
+   */
+  public static final int SIZING_ADAPTIVE = 1;
+
+  /**
+   * Tells the object pool to validate idle objects every time they're borrowed.
+   */
+  public static final int VALIDATE_ALWAYS = 0;
+
+  /**
+   * Tells the object pool to skip validating an idle object which was successfully validated less than
+   * validationTtlMillis ago.
+   */
+  public static final int VALIDATE_CACHED = 1;
+
+  /**
+   * Tells the object pool to only validate an idle object when the last operation performed with it failed
+   * with a connectivity error.
+   */
+  public static final int VALIDATE_ON_ERROR = 2;
+
   /**
    * Controls the maximum number of Mule components that can be borrowed from a service
    * pool at one time. When non-positive, there is no limit to the number of
@@ -57,6 +85,19 @@ public class PoolingProfile {
    */
   public static final int DEFAULT_MAX_POOL_IDLE = 5;
 
+  /**
+   * When the sizing policy is SIZING_ADAPTIVE, controls the lowest value to which the maximum number of active
+   * objects can be reduced.
+   */
+  public static final int DEFAULT_MIN_POOL_ACTIVE = 1;
+
+  /**
+   * Controls the minimum number of idle objects that the pool tries to keep. When the pool runs its evictor,
+   * it creates new objects until this amount of idle objects is reached, without exceeding maxActive. When
+   * non-positive, the pool doesn't pre-warm any objects.
+   */
+  public static final int DEFAULT_MIN_POOL_IDLE = 0;
+
   /**
    * When the threadPoolExhaustedAction is set to WHEN_EXHAUSTED_WAIT this can
    * specify the maximum milliseconds the pool should block before throwing a
@@ -104,6 +145,34 @@ public class PoolingProfile {
    */
   public static final int DEFAULT_EVICTION_INTERVAL_MILLIS = -1;
 
+  /**
+   * Determines how the maximum number of active objects is enforced. The possible values are:
+   * <ul>
+   * <li>SIZING_FIXED : maxActive is the limit</li>
+   * <li>SIZING_ADAPTIVE : the limit moves between minActive and maxActive. It's additively increased while the
+   * objects are returned in a timely manner and multiplicatively decreased when they're held for much longer than
+   * usual or when creating them fails</li>
+   * </ul>
+   */
+  public static final int DEFAULT_POOL_SIZING_POLICY = SIZING_FIXED;
+
+  /**
+   * Determines when idle objects are validated before being borrowed. The possible values are:
+   * <ul>
+   * <li>VALIDATE_ALWAYS : every time</li>
+   * <li>VALIDATE_CACHED : only if the last successful validation is older than validationTtlMillis</li>
+   * <li>VALIDATE_ON_ERROR : only if the last operation performed with the object failed with a connectivity error</li>
+   * </ul>
+   * Regardless of the policy, objects released after a connectivity error are always validated before being
+   * borrowed again.
+   */
+  public static final int DEFAULT_POOL_VALIDATION_POLICY = VALIDATE_ALWAYS;
+
+  /**
+   * For how long a successful validation is trusted when the validation policy is VALIDATE_CACHED
+   */
+  public static final int DEFAULT_VALIDATION_TTL_MILLIS = 1000 * 30;
+
   // map pool exhaustion strings to their respective values
   @SuppressWarnings("unchecked")
   public static final Map<String, Integer> POOL_EXHAUSTED_ACTIONS = new HashMap<String, Integer>() {
@@ -135,16 +204,53 @@ public class PoolingProfile {
     }
   };
 
+  // map pool sizing policy strings to their respective values
+  @SuppressWarnings("unchecked")
+  public static final Map<String, Integer> POOL_SIZING_POLICIES = new HashMap<String, Integer>() {
+
+    private static final long serialVersionUID = 1L;
+
+    // static initializer
+    {
+      this.put("SIZING_FIXED", SIZING_FIXED);
+      this.put("SIZING_ADAPTIVE", SIZING_ADAPTIVE);
+    }
+  };
+
+  // map pool validation policy strings to their respective values
+  @SuppressWarnings("unchecked")
+  public static final Map<String, Integer> POOL_VALIDATION_POLICIES = new HashMap<String, Integer>() {
+
+    private static final long serialVersionUID = 1L;
+
+    // static initializer
+    {
+      this.put("VALIDATE_ALWAYS", VALIDATE_ALWAYS);
+      this.put("VALIDATE_CACHED", VALIDATE_CACHED);
+      this.put("VALIDATE_ON_ERROR", VALIDATE_ON_ERROR);
+    }
+  };
+
   private int maxActive = DEFAULT_MAX_POOL_ACTIVE;
 
   private int maxIdle = DEFAULT_MAX_POOL_IDLE;
 
+  private int minIdle = DEFAULT_MIN_POOL_IDLE;
+
+  private int minActive = DEFAULT_MIN_POOL_ACTIVE;
+
   private long maxWait = DEFAULT_MAX_POOL_WAIT;
 
   private int exhaustedAction = DEFAULT_POOL_EXHAUSTED_ACTION;
 
   private int initialisationPolicy = DEFAULT_POOL_INITIALISATION_POLICY;
 
+  private int sizingPolicy = DEFAULT_POOL_SIZING_POLICY;
+
+  private int validationPolicy = DEFAULT_POOL_VALIDATION_POLICY;
+
+  private int validationTtlMillis = DEFAULT_VALIDATION_TTL_MILLIS;
+
   private int minEvictionMillis = DEFAULT_MIN_EVICTION_MILLIS;
 
   private int evictionCheckIntervalMillis = DEFAULT_EVICTION_INTERVAL_MILLIS;
@@ -158,9 +264,16 @@ public class PoolingProfile {
   public PoolingProfile(PoolingProfile pp) {
     this.maxActive = pp.getMaxActive();
     this.maxIdle = pp.getMaxIdle();
+    this.minIdle = pp.getMinIdle();
+    this.minActive = pp.getMinActive();
     this.maxWait = pp.getMaxWait();
     this.exhaustedAction = pp.getExhaustedAction();
     this.initialisationPolicy = pp.getInitialisationPolicy();
+    this.sizingPolicy = pp.getSizingPolicy();
+    this.validationPolicy = pp.getValidationPolicy();
+    this.validationTtlMillis = pp.getValidationTtlMillis();
+    this.minEvictionMillis = pp.getMinEvictionMillis();
+    this.evictionCheckIntervalMillis = pp.getEvictionCheckIntervalMillis();
     this.disabled = pp.isDisabled();
   }
 
@@ -183,6 +296,13 @@ public class PoolingProfile {
     return maxIdle;
   }
 
+  /**
+   * @return min number of objects that the pool tries to keep idle
+   */
+  public int getMinIdle() {
+    return minIdle;
+  }
+
   /**
    * @return max number of Mule components that can be active in a service
    */
@@ -218,6 +338,50 @@ public class PoolingProfile {
     this.maxIdle = maxIdle;
   }
 
+  public void setMinIdle(int minIdle) {
+    this.minIdle = minIdle;
+  }
+
+  /**
+   * @return the lowest value to which the maximum number of active objects can be reduced when the sizing
+   * policy is SIZING_ADAPTIVE
+   */
+  public int getMinActive() {
+    return minActive;
+  }
+
+  public void setMinActive(int minActive) {
+    this.minActive = minActive;
+  }
+
+  public int getSizingPolicy() {
+    return sizingPolicy;
+  }
+
+  public void setSizingPolicy(int sizingPolicy) {
+    this.sizingPolicy = sizingPolicy;
+  }
+
+  public int getValidationPolicy() {
+    return validationPolicy;
+  }
+
+  public void setValidationPolicy(int validationPolicy) {
+    this.validationPolicy = validationPolicy;
+  }
+
+  /**
+   * @return for how long, in milliseconds, a successful validation is trusted when the validation policy is
+   * VALIDATE_CACHED
+   */
+  public int getValidationTtlMillis() {
+    return validationTtlMillis;
+  }
+
+  public void setValidationTtlMillis(int validationTtlMillis) {
+    this.validationTtlMillis = validationTtlMillis;
+  }
+
   public void setMaxActive(int maxActive) {
     this.maxActive = maxActive;
   }
@@ -266,6 +430,11 @@ public class PoolingProfile {
       return pp.getMaxActive() == maxActive &&
           pp.getEvictionCheckIntervalMillis() == evictionCheckIntervalMillis &&
           pp.getMaxIdle() == maxIdle &&
+          pp.getMinIdle() == minIdle &&
+          pp.getMinActive() == minActive &&
+          pp.getSizingPolicy() == sizingPolicy &&
+          pp.getValidationPolicy() == validationPolicy &&
+          pp.getValidationTtlMillis() == validationTtlMillis &&
           pp.getMaxWait() == maxWait &&
           pp.getExhaustedAction() == exhaustedAction &&
           pp.getMinEvictionMillis() == minEvictionMillis &&
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import org.mule.runtime.api.message.ErrorType;
+import org.mule.runtime.internal.connection.DefaultCircuitBreakingConnectionProviderBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ConnectionProvider} which decorates another one with a circuit breaker, so that once the backend is
+ * found to be unavailable, {@link #connect()} fails fast instead of waiting for yet another connection timeout.
+ * <p>
+ * The breaker starts {@link State#CLOSED closed}, letting every connection attempt through to the decorated provider.
+ * It trips {@link State#OPEN open} when too many consecutive attempts fail or when the failure rate over the last
+ * attempts is too high. While open, attempts fail right away with a {@link ConnectionException} which carries the
+ * configured {@link ErrorType}. Once the open duration elapses, the breaker becomes {@link State#HALF_OPEN half open}
+ * and lets one single attempt through: if it succeeds the breaker closes again, otherwise it goes back to open.
+ * <p>
+ * The breaker only tracks connection attempts. {@link #disconnect(Object)} and {@link #validate(Object)} are just
+ * delegated. If the decorated provider is a {@link PoolingListener}, such as any {@link PoolingConnectionProvider},
+ * the breaker forwards the listener notifications to it. The breaker keeps the management strategy of the decorated
+ * provider: it is itself a {@link PoolingConnectionProvider} or a {@link CachedConnectionProvider} if the decorated
+ * one is.
+ * <p>
+ * Instances are thread safe and don't rely on locks. They're obtained through {@link #builder(ConnectionProvider)}.
+ *
+ * @param <C> the generic type of the connections
+ * @since 1.0
+ */
+public interface CircuitBreakingConnectionProvider<C> extends ConnectionProvider<C> {
+
+  /**
+   * Creates a new {@link Builder} for a breaker decorating the given {@code connectionProvider}.
+   *
+   * @param connectionProvider the provider to decorate
+   * @param <C>                the generic type of the connections
+   * @return a new {@link Builder}
+   */
+  static <C> Builder<C> builder(ConnectionProvider<C> connectionProvider) {
+    return new DefaultCircuitBreakingConnectionProviderBuilder<>(connectionProvider);
+  }
+
+  /**
+   * @return the current {@link State} of the breaker
+   */
+  State getState();
+
+  /**
+   * The states of a circuit breaker
+   *
+   * @since 1.0
+   */
+  enum State {
+
+    /**
+     * Connection attempts are let through
+     */
+    CLOSED,
+
+    /**
+     * Connection attempts fail fast
+     */
+    OPEN,
+
+    /**
+     * One single connection attempt is let through to probe whether the backend is available again. The rest
+     * fail fast.
+     */
+    HALF_OPEN
+  }
+
+  /**
+   * Builds instances of {@link CircuitBreakingConnectionProvider}. Builders are not thread safe.
+   *
+   * @param <C> the generic type of the connections
+   * @since 1.0
+   */
+  interface Builder<C> {
+
+    /**
+     * Sets the amount of consecutive failed connection attempts which trip the breaker. Defaults to {@code 5}.
+     * Non positive values disable this criteria.
+     *
+     * @param consecutiveFailures the amount of consecutive failures
+     * @return this builder
+     */
+    Builder<C> consecutiveFailuresThreshold(int consecutiveFailures);
+
+    /**
+     * Trips the breaker when the rate of failed attempts among the last {@code windowSize} ones reaches
+     * {@code failureRate}. The rate is not evaluated until {@code windowSize} attempts were made. Disabled by default.
+     *
+     * @param failureRate a number between {@code 0} and {@code 1}. Non positive values disable this criteria
+     * @param windowSize  the amount of attempts over which the rate is computed
+     * @return this builder
+     */
+    Builder<C> failureRateThreshold(double failureRate, int windowSize);
+
+    /**
+     * Sets how long the breaker stays open before letting a probe through. Defaults to 30 seconds.
+     *
+     * @param duration the duration
+     * @param unit     the duration's {@link TimeUnit}
+     * @return this builder
+     */
+    Builder<C> openDuration(long duration, TimeUnit unit);
+
+    /**
+     * Sets the {@link ErrorType} of the {@link ConnectionException} thrown while the breaker is open. Mandatory.
+     *
+     * @param errorType the error type
+     * @return this builder
+     */
+    Builder<C> errorType(ErrorType errorType);
+
+    /**
+     * @return a new {@link CircuitBreakingConnectionProvider}
+     */
+    CircuitBreakingConnectionProvider<C> build();
+  }
+}
@@ -6,6 +6,8 @@
  */
 package org.mule.runtime.api.connection;
 
+import org.mule.runtime.api.message.ErrorType;
+
 /**
  * Represents a connection that is being managed by the runtime.
  * <p>
@@ -47,4 +49,29 @@ public interface ConnectionHandler<T> {
    * invoke this method once it's done with the instance
    */
   void release();
+
+  /**
+   * Same as {@link #release()}, but also signals that the wrapped connection is no longer usable, for example
+   * because an operation failed due to a connectivity problem.
+   * <p>
+   * Implementations which reuse connections are expected to dispose the connection instead of reusing it.
+   * This default implementation simply invokes {@link #release()}.
+   */
+  default void invalidate() {
+    release();
+  }
+
+  /**
+   * Same as {@link #release()}, but also signals that the last operation performed with the wrapped connection
+   * failed with the given {@code errorType}.
+   * <p>
+   * Unlike {@link #invalidate()}, the connection is not assumed to be unusable. Implementations which reuse
+   * connections are expected to validate it before reusing it if the error is a connectivity one, even if they
+   * would otherwise skip validation. This default implementation simply invokes {@link #release()}.
+   *
+   * @param errorType the {@link ErrorType} of the failure
+   */
+  default void release(ErrorType errorType) {
+    release();
+  }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.internal.connection.DefaultConnectionPoolBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A pool of connections created through a {@link ConnectionProvider} and sized according to a
+ * {@link PoolingProfile}.
+ * <p>
+ * Connections are obtained through {@link #borrow()}, which returns a {@link ConnectionHandler}. The
+ * connection goes back to the pool once {@link ConnectionHandler#release()} is invoked, or is disconnected
+ * if {@link ConnectionHandler#invalidate()} is used instead. The {@link PoolingListener} is notified each time
+ * a connection is borrowed or returned.
+ * <p>
+ * Instances are thread safe and are obtained through {@link #builder(ConnectionProvider)}.
+ *
+ * @param <C> the generic type of the pooled connections
+ * @since 1.0
+ */
+public interface ConnectionPool<C> {
+
+  /**
+   * Creates a new {@link Builder} for a pool of the connections created by the given {@code connectionProvider}.
+   * <p>
+   * If the {@code connectionProvider} is a {@link PoolingListener}, such as any {@link PoolingConnectionProvider},
+   * it will be used as the pool's listener unless another one is configured.
+   *
+   * @param connectionProvider the provider which creates, validates and disconnects the pooled connections
+   * @param <C>                the generic type of the pooled connections
+   * @return a new {@link Builder}
+   */
+  static <C> Builder<C> builder(ConnectionProvider<C> connectionProvider) {
+    return new DefaultConnectionPoolBuilder<>(connectionProvider);
+  }
+
+  /**
+   * Creates the connections required by the {@link PoolingProfile#getInitialisationPolicy() initialisation policy}
+   * and starts evicting idle connections if configured to do so.
+   *
+   * @throws ConnectionException if the initial connections could not be created
+   */
+  void start() throws ConnectionException;
+
+  /**
+   * Borrows a connection from the pool. An idle connection is reused if available. Otherwise, a new one
+   * is created or, if the pool is exhausted, the {@link PoolingProfile#getExhaustedAction() exhausted action}
+   * is applied.
+   *
+   * @return a {@link ConnectionHandler} wrapping the borrowed connection
+   * @throws ConnectionException if a connection could not be obtained
+   */
+  ConnectionHandler<C> borrow() throws ConnectionException;
+
+  /**
+   * Borrows a connection from the pool without blocking the invoking thread.
+   * <p>
+   * Behaves like {@link #borrow()}, except that new connections are created through
+   * {@link ConnectionProvider#connectAsync(java.util.concurrent.Executor)} and, when the pool is exhausted and
+   * configured to {@link PoolingProfile#WHEN_EXHAUSTED_WAIT wait}, the borrower is queued and the returned future
+   * is completed as soon as a connection is released, instead of parking a thread. Neither connecting nor resuming
+   * a queued borrower takes place on the borrowing or the releasing thread, and the
+   * {@link PoolingProfile#getMaxWait() maximum wait} is always enforced.
+   * <p>
+   * If a connection could not be obtained, the returned future is completed exceptionally with a
+   * {@link ConnectionException}.
+   *
+   * @return a {@link CompletableFuture} which is completed with a {@link ConnectionHandler} wrapping the borrowed connection
+   */
+  CompletableFuture<ConnectionHandler<C>> borrowAsync();
+
+  /**
+   * @return the amount of connections which are currently borrowed
+   */
+  int getNumActive();
+
+  /**
+   * @return the amount of connections which are currently idle in the pool
+   */
+  int getNumIdle();
+
+  /**
+   * Takes a snapshot of this pool's {@link ConnectionPoolStatistics}. Recording them is always enabled and
+   * cheap enough to take place on every borrow.
+   *
+   * @return a new {@link ConnectionPoolStatistics} snapshot
+   */
+  ConnectionPoolStatistics getStatistics();
+
+  /**
+   * Closes the pool. Idle connections are disconnected right away and borrowed ones are disconnected when
+   * they're released. Any further attempt to borrow a connection will fail.
+   */
+  void close();
+
+  /**
+   * Builds instances of {@link ConnectionPool}. Builders are not thread safe.
+   *
+   * @param <C> the generic type of the pooled connections
+   * @since 1.0
+   */
+  interface Builder<C> {
+
+    /**
+     * Sets the {@link PoolingProfile} which drives the pool. If not set, a {@link PoolingProfile} with the
+     * default values is used.
+     *
+     * @param poolingProfile the pooling profile
+     * @return this builder
+     */
+    Builder<C> poolingProfile(PoolingProfile poolingProfile);
+
+    /**
+     * Sets the {@link PoolingListener} to be notified when connections are borrowed or returned.
+     *
+     * @param poolingListener the listener
+     * @return this builder
+     */
+    Builder<C> poolingListener(PoolingListener<C> poolingListener);
+
+    /**
+     * Sets the executor on which the pool's background tasks, such as evicting idle connections or timing out
+     * asynchronous borrowers, run. It is also the executor given to
+     * {@link ConnectionProvider#connectAsync(java.util.concurrent.Executor)}. If not set, background tasks are not
+     * performed, and asynchronous connections are created and asynchronous borrowers are timed out on executors shared
+     * by all the pools.
+     *
+     * @param scheduler a {@link ScheduledExecutorService}, typically a {@link org.mule.runtime.api.scheduler.Scheduler}
+     * @return this builder
+     */
+    Builder<C> scheduler(ScheduledExecutorService scheduler);
+
+    /**
+     * @return a new {@link ConnectionPool}
+     */
+    ConnectionPool<C> build();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the behaviour of a {@link ConnectionPool}, obtained through
+ * {@link ConnectionPool#getStatistics()}.
+ * <p>
+ * Counters are cumulative since the pool was created. Rates, such as the amount of connections created per second,
+ * are obtained by comparing two snapshots taken at different points in time.
+ * <p>
+ * The same events are also pushed to the pool's {@link PoolingListener} as they occur.
+ *
+ * @since 1.0
+ */
+public interface ConnectionPoolStatistics {
+
+  /**
+   * @return the amount of connections which were borrowed when the snapshot was taken
+   */
+  int getActiveCount();
+
+  /**
+   * @return the amount of connections which were idle in the pool when the snapshot was taken
+   */
+  int getIdleCount();
+
+  /**
+   * @return the amount of borrowers which were waiting for a connection when the snapshot was taken
+   */
+  int getWaitingCount();
+
+  /**
+   * @return the maximum amount of connections the pool allowed when the snapshot was taken. It's either
+   *         {@link org.mule.runtime.api.config.PoolingProfile#getMaxActive()} or, if the pool is
+   *         {@link org.mule.runtime.api.config.PoolingProfile#SIZING_ADAPTIVE adaptive}, the current adapted limit.
+   *         Non positive values mean no limit
+   */
+  int getActiveLimit();
+
+  /**
+   * @return the distribution of the time it took to borrow a connection, including the time spent waiting on an
+   *         exhausted pool, validating idle connections and creating new ones
+   */
+  LatencyHistogram getBorrowTimes();
+
+  /**
+   * @return the amount of borrowers which gave up after waiting for
+   *         {@link org.mule.runtime.api.config.PoolingProfile#getMaxWait()}
+   */
+  long getTimeoutsCount();
+
+  /**
+   * @return the amount of connections which failed validation, either because the validation returned an invalid
+   *         {@link ConnectionValidationResult} or because it threw an exception
+   */
+  long getValidationFailuresCount();
+
+  /**
+   * @return the amount of validation failures per {@link ConnectionValidationResult#getErrorType() error type}. Failures
+   *         without an error type are only accounted for in {@link #getValidationFailuresCount()}
+   */
+  Map<ErrorType, Long> getValidationFailuresByErrorType();
+
+  /**
+   * @return the amount of connections which were created by the pool
+   */
+  long getCreatedCount();
+
+  /**
+   * @return the amount of connections which were disconnected by the pool
+   */
+  long getDestroyedCount();
+}
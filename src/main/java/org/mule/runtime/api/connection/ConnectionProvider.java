@@ -6,6 +6,10 @@
  */
 package org.mule.runtime.api.connection;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 /**
  * Handles connections of the generic {@code Connection} type, which are created from a
  * configuration object of the generic type {@code Config}.
@@ -36,6 +40,30 @@ public interface ConnectionProvider<C> {
    */
   C connect() throws ConnectionException;
 
+  /**
+   * Creates a new connection without blocking the invoking thread.
+   * <p>
+   * The default implementation adapts {@link #connect()} by invoking it on the given {@code executor}. Providers
+   * backed by non blocking clients should override this method so that no thread is held while the connection
+   * is established.
+   * <p>
+   * If the connection could not be established, the returned future is completed exceptionally with a
+   * {@link ConnectionException}.
+   *
+   * @param executor the executor on which blocking work, if any, should be performed
+   * @return a {@link CompletableFuture} which is completed with a ready to use {@code Connection}
+   * @since 1.0
+   */
+  default CompletableFuture<C> connectAsync(Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return connect();
+      } catch (ConnectionException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
   /**
    * Disposes the given {@code connection}, freeing all its allocated resources
    *
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.internal.connection.DefaultKeyedConnectionPoolBuilder;
+
+/**
+ * A pool of connections created through a {@link KeyedConnectionProvider}, which keeps the connections of each key
+ * apart while bounding the connections of all the keys together.
+ * <p>
+ * Each key gets its own sub pool, sized according to a {@link PoolingProfile} shared by all of them:
+ * {@link PoolingProfile#getMaxActive()} and {@link PoolingProfile#getMaxIdle()} are per key caps, and
+ * {@link PoolingProfile#getExhaustedAction()} and {@link PoolingProfile#getMaxWait()} apply when either the key's cap
+ * or the {@link Builder#maxTotal(int) global cap} is reached. Before considering the pool exhausted because of the
+ * global cap, the least recently used idle connection of any other key is disconnected to make room. This way, cold
+ * keys give up their connections while hot ones stay warm.
+ * <p>
+ * Sub pools are created when a key is first borrowed for and discarded once they no longer hold any connection, so
+ * the amount of keys doesn't need to be known upfront.
+ * <p>
+ * Instances are thread safe and are obtained through {@link #builder(KeyedConnectionProvider)}.
+ *
+ * @param <K> the generic type of the keys
+ * @param <C> the generic type of the pooled connections
+ * @since 1.0
+ */
+public interface KeyedConnectionPool<K, C> {
+
+  /**
+   * Creates a new {@link Builder} for a pool of the connections created by the given {@code connectionProvider}.
+   *
+   * @param connectionProvider the provider which creates, validates and disconnects the pooled connections
+   * @param <K>                the generic type of the keys
+   * @param <C>                the generic type of the pooled connections
+   * @return a new {@link Builder}
+   */
+  static <K, C> Builder<K, C> builder(KeyedConnectionProvider<K, C> connectionProvider) {
+    return new DefaultKeyedConnectionPoolBuilder<>(connectionProvider);
+  }
+
+  /**
+   * Borrows a connection for the given {@code key}. An idle connection of that key is reused if available. Otherwise,
+   * a new one is created or, if the pool is exhausted, the {@link PoolingProfile#getExhaustedAction() exhausted action}
+   * is applied.
+   *
+   * @param key the key to borrow a connection for
+   * @return a {@link ConnectionHandler} wrapping the borrowed connection
+   * @throws ConnectionException if a connection could not be obtained
+   */
+  ConnectionHandler<C> borrow(K key) throws ConnectionException;
+
+  /**
+   * @return the amount of connections which are currently borrowed, for all the keys
+   */
+  int getNumActive();
+
+  /**
+   * @return the amount of connections which are currently idle in the pool, for all the keys
+   */
+  int getNumIdle();
+
+  /**
+   * @param key a key
+   * @return the amount of connections of the given {@code key} which are currently borrowed
+   */
+  int getNumActive(K key);
+
+  /**
+   * @param key a key
+   * @return the amount of connections of the given {@code key} which are currently idle in the pool
+   */
+  int getNumIdle(K key);
+
+  /**
+   * Disconnects the idle connections of the given {@code key}, for example because its credentials changed.
+   * Borrowed connections are not affected.
+   *
+   * @param key a key
+   */
+  void clear(K key);
+
+  /**
+   * Closes the pool. Idle connections are disconnected right away and borrowed ones are disconnected when
+   * they're released. Any further attempt to borrow a connection will fail.
+   */
+  void close();
+
+  /**
+   * Builds instances of {@link KeyedConnectionPool}. Builders are not thread safe.
+   *
+   * @param <K> the generic type of the keys
+   * @param <C> the generic type of the pooled connections
+   * @since 1.0
+   */
+  interface Builder<K, C> {
+
+    /**
+     * Sets the {@link PoolingProfile} which drives the sub pool of each key. If not set, a {@link PoolingProfile}
+     * with the default values is used.
+     *
+     * @param poolingProfile the pooling profile
+     * @return this builder
+     */
+    Builder<K, C> poolingProfile(PoolingProfile poolingProfile);
+
+    /**
+     * Sets the maximum amount of connections, either borrowed or idle, across all the keys. Non positive values
+     * mean no limit, which is the default. {@link PoolingProfile#WHEN_EXHAUSTED_GROW} only lifts the per key cap, so
+     * once this one is reached borrowers wait for a connection to be freed, same as with
+     * {@link PoolingProfile#WHEN_EXHAUSTED_WAIT}.
+     *
+     * @param maxTotal the global cap
+     * @return this builder
+     */
+    Builder<K, C> maxTotal(int maxTotal);
+
+    /**
+     * @return a new {@link KeyedConnectionPool}
+     */
+    KeyedConnectionPool<K, C> build();
+  }
+}
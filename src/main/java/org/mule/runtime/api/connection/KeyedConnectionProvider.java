@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+/**
+ * A variant of {@link ConnectionProvider} for connectors which connect to many endpoints sharing the same kind of
+ * connection, such as one per tenant, each with its own credentials. Every connection is created for a key which
+ * identifies its endpoint, and the key is given back when validating or disconnecting it.
+ * <p>
+ * The connections of all the keys are pooled together through a {@link KeyedConnectionPool}, so that the total
+ * amount of connections stays bounded no matter how many keys there are.
+ *
+ * @param <K> the generic type of the keys
+ * @param <C> the generic type of the connections
+ * @since 1.0
+ */
+public interface KeyedConnectionProvider<K, C> {
+
+  /**
+   * Creates a new connection for the given {@code key}
+   *
+   * @param key the key of the endpoint to connect to
+   * @return a new connection
+   * @throws ConnectionException if the connection could not be created
+   */
+  C connect(K key) throws ConnectionException;
+
+  /**
+   * Disconnects a connection previously created for the given {@code key}
+   *
+   * @param key        the key the connection was created for
+   * @param connection the connection to disconnect
+   */
+  void disconnect(K key, C connection);
+
+  /**
+   * Validates a connection previously created for the given {@code key}
+   *
+   * @param key        the key the connection was created for
+   * @param connection the connection to validate
+   * @return a {@link ConnectionValidationResult}
+   */
+  ConnectionValidationResult validate(K key, C connection);
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+/**
+ * An immutable snapshot of the distribution of a set of recorded latencies.
+ * <p>
+ * Values are bucketed with a bounded relative error, in the same spirit as HDR histograms: values are exact up to
+ * 32 nanoseconds and, from then on, every value is reported with an error below 1/32 (about 3%) of its magnitude.
+ * All values are expressed in nanoseconds.
+ *
+ * @since 1.0
+ */
+public interface LatencyHistogram {
+
+  /**
+   * @return the amount of recorded values
+   */
+  long getCount();
+
+  /**
+   * @return the highest recorded value, or {@code 0} if no values were recorded
+   */
+  long getMax();
+
+  /**
+   * @return the arithmetic mean of the recorded values, or {@code 0} if no values were recorded
+   */
+  double getMean();
+
+  /**
+   * Returns the value below which the given {@code percentile} of the recorded values fall.
+   *
+   * @param percentile a number between {@code 0} and {@code 100}
+   * @return the value at the given {@code percentile}, or {@code 0} if no values were recorded
+   */
+  long getValueAtPercentile(double percentile);
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import org.mule.runtime.internal.connection.DefaultMultiplexedConnectionManager;
+
+/**
+ * Shares the connections of a {@link MultiplexedConnectionProvider} among concurrent operations, following the
+ * contract described in that interface.
+ * <p>
+ * Each operation obtains a {@link ConnectionHandler} through {@link #acquire()}, which takes one stream of the
+ * least loaded connection. Releasing the handler frees that stream, but the connection remains open for other
+ * operations. Invalidating the handler marks the connection as broken: no new operations are assigned to it and it's
+ * disconnected as soon as the operations it's still carrying release it.
+ * <p>
+ * Instances are thread safe and are obtained through {@link #create(MultiplexedConnectionProvider)}.
+ *
+ * @param <C> the generic type of the shared connections
+ * @since 1.0
+ */
+public interface MultiplexedConnectionManager<C> {
+
+  /**
+   * Creates a new manager for the connections of the given {@code connectionProvider}
+   *
+   * @param connectionProvider the provider which creates and disconnects the shared connections
+   * @param <C>                the generic type of the shared connections
+   * @return a new {@link MultiplexedConnectionManager}
+   */
+  static <C> MultiplexedConnectionManager<C> create(MultiplexedConnectionProvider<C> connectionProvider) {
+    return new DefaultMultiplexedConnectionManager<>(connectionProvider);
+  }
+
+  /**
+   * Takes one stream of the least loaded connection, creating a new connection if all the existing ones are at their
+   * {@link MultiplexedConnectionProvider#getMaxConcurrentStreams() limit}.
+   *
+   * @return a {@link ConnectionHandler} for the selected connection
+   * @throws ConnectionException if a new connection could not be created, or if all the connections are at their limit
+   *                             and no more can be created
+   */
+  ConnectionHandler<C> acquire() throws ConnectionException;
+
+  /**
+   * @return the amount of connections currently open
+   */
+  int getConnectionsCount();
+
+  /**
+   * @return the amount of operations currently carried by all the connections
+   */
+  int getActiveStreamsCount();
+
+  /**
+   * Closes this manager. Connections which are not carrying any operations are disconnected right away, the rest
+   * as soon as their operations release them. Any further attempt to acquire a connection will fail.
+   */
+  void close();
+}
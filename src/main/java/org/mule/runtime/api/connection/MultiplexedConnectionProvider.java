@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+/**
+ * A {@link CachedConnectionProvider} specialization for connections which can carry many concurrent operations,
+ * such as HTTP/2, AMQP or gRPC channels.
+ * <p>
+ * Instead of caching one single connection or pooling one connection per operation, the runtime keeps a small set of
+ * at most {@link #getMaxConnections()} connections and shares them among all the concurrent operations. Each
+ * connection carries at most {@link #getMaxConcurrentStreams()} operations at the same time and each new operation is
+ * assigned to the least loaded connection. A new connection is only created when all the existing ones are at their
+ * limit.
+ * <p>
+ * Because the same connection is used by many threads at the same time, the returned connections must be thread safe.
+ * See {@link MultiplexedConnectionManager} for the component which implements this contract.
+ *
+ * @param <C> the generic type of the connections to be handled
+ * @since 1.0
+ */
+public interface MultiplexedConnectionProvider<C> extends CachedConnectionProvider<C> {
+
+  /**
+   * The default value of {@link #getMaxConcurrentStreams()}
+   */
+  int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+
+  /**
+   * The default value of {@link #getMaxConnections()}
+   */
+  int DEFAULT_MAX_CONNECTIONS = 4;
+
+  /**
+   * @return the maximum amount of operations which can be carried by one single connection at the same time. Non
+   *         positive values mean no limit
+   */
+  default int getMaxConcurrentStreams() {
+    return DEFAULT_MAX_CONCURRENT_STREAMS;
+  }
+
+  /**
+   * @return the maximum amount of connections to be shared among the concurrent operations
+   */
+  default int getMaxConnections() {
+    return DEFAULT_MAX_CONNECTIONS;
+  }
+}
@@ -27,6 +27,20 @@ public interface PoolingListener<C> {
    */
   default void onBorrow(C connection) {}
 
+  /**
+   * Same as {@link #onBorrow(Object)}, but also receives the time it took the pool to obtain the {@code connection},
+   * including any time spent waiting on an exhausted pool. Pools which measure that time invoke this method instead of
+   * {@link #onBorrow(Object)}.
+   * <p>
+   * The default implementation delegates into {@link #onBorrow(Object)}.
+   *
+   * @param connection the pooled connection
+   * @param borrowNanos the time it took to obtain the {@code connection}, in nanoseconds
+   */
+  default void onBorrow(C connection, long borrowNanos) {
+    onBorrow(connection);
+  }
+
   /**
    * Executes right before the pool accepts the {@code connection} back.
    * <p>
@@ -41,4 +55,32 @@ public interface PoolingListener<C> {
    * @param connection the pooled connection
    */
   default void onReturn(C connection) {}
+
+  /**
+   * Executes after the pool created a new {@code connection}.
+   *
+   * @param connection the new connection
+   */
+  default void onConnectionCreated(C connection) {}
+
+  /**
+   * Executes after the pool disconnected a {@code connection}, either because it was invalidated, it failed
+   * validation, it was evicted or the pool was closed.
+   *
+   * @param connection the disconnected connection
+   */
+  default void onConnectionDestroyed(C connection) {}
+
+  /**
+   * Executes when a pooled {@code connection} fails validation, right before it's disconnected.
+   *
+   * @param connection the invalid connection
+   * @param result     the failed {@link ConnectionValidationResult}
+   */
+  default void onValidationFailure(C connection, ConnectionValidationResult result) {}
+
+  /**
+   * Executes when a borrower gives up after waiting for the maximum allowed time on an exhausted pool.
+   */
+  default void onBorrowTimeout() {}
 }
@@ -10,6 +10,7 @@ import static org.mule.runtime.api.metadata.AbstractDataTypeBuilderFactory.getDe
 import org.mule.runtime.api.el.ExpressionFunction;
 import org.mule.runtime.api.message.Message;
 import org.mule.runtime.api.streaming.CursorStreamProvider;
+import org.mule.runtime.internal.metadata.DataTypeCache;
 
 import java.io.InputStream;
 import java.io.Serializable;
@@ -50,12 +51,14 @@ public interface DataType extends Serializable {
   /**
    * Shortcut to create a {@link DataType} using just a Java type. Default values will be used for {@code mimeType}
    * and {@code encoding}.
+   * <p>
+   * The returned instances are cached per Java type, so this doesn't create a new {@link DataType} each time.
    * 
    * @param type the Java type to create {@link DataType} for.
    * @return a new {@link DataTypeBuilder} for the given {@code type}.
    */
   static DataType fromType(Class<?> type) {
-    return builder().type(type).build();
+    return DataTypeCache.fromType(type, t -> builder().type(t).build());
   }
 
   /**
@@ -67,12 +70,15 @@ public interface DataType extends Serializable {
    * introspect certain types that do contain type this meta-data such as
    * {@link javax.activation.DataHandler} and {@link javax.activation.DataSource} and populate
    * {@code mimeType} and {@code encoding} values based on this.
+   * <p>
+   * Except for those types, the returned instances are cached per class of the {@code value}, so this doesn't create a
+   * new {@link DataType} each time.
    *
    * @param value the object to determine the {@link DataType} of.
    * @return a new {@link DataType} for the given {@code value}.
    */
   static DataType fromObject(Object value) {
-    return getDefaultFactory().create().fromObject(value).build();
+    return DataTypeCache.fromObject(value, v -> getDefaultFactory().create().fromObject(v).build());
   }
 
   /**
@@ -7,7 +7,6 @@
 package org.mule.runtime.api.metadata;
 
 import static java.util.Collections.emptyMap;
-import static java.util.Collections.list;
 import static java.util.Optional.ofNullable;
 import static org.mule.metadata.internal.utils.StringUtils.isNotEmpty;
 
@@ -16,19 +15,20 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-
-import javax.activation.MimeType;
-import javax.activation.MimeTypeParseException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Immutable representation of Media Types as defined in
  * <a href="https://www.ietf.org/rfc/rfc2046.txt">RFC-2046 Part Two</a>.
  * <p>
  * Also provides constants for common media types used in Mule.
+ * <p>
+ * Since media types are typically parsed from the same few header values over and over, {@link #parse(String)} keeps
+ * a bounded cache from the parsed strings to canonical instances. Parsing a string seen before is then a single map
+ * lookup, and equal media types parsed from different strings share the same instance.
  *
  * @since 1.0
  */
@@ -49,6 +49,36 @@ public final class MediaType implements Serializable {
   private static final String SUBTYPE_MIXED = "mixed";
   private static final String SUBTYPE_RELATED = "related";
 
+  /**
+   * The maximum amount of entries of each of the parsing caches. They're cleared when full, so that the common values
+   * are cached again right away instead of being starved by a burst of unique ones.
+   */
+  private static final int MAX_CACHE_SIZE = 512;
+
+  private static final Map<String, MediaType> PARSED = new ConcurrentHashMap<>();
+  private static final Map<MediaType, MediaType> CANONICAL = new ConcurrentHashMap<>();
+  // the constants of this class, kept apart from the bounded caches so that clearing those never unshares them
+  private static final Map<MediaType, MediaType> CONSTANTS = new HashMap<>();
+  private static final Map<String, Charset> CHARSETS = new ConcurrentHashMap<>();
+
+  /**
+   * The characters allowed in a token, as defined in <a href="https://tools.ietf.org/html/rfc7230#section-3.2.6">RFC-7230</a>
+   */
+  private static final boolean[] TOKEN_CHARS = new boolean[128];
+
+  static {
+    for (char c = '0'; c <= '9'; c++) {
+      TOKEN_CHARS[c] = true;
+    }
+    for (char c = 'a'; c <= 'z'; c++) {
+      TOKEN_CHARS[c] = true;
+      TOKEN_CHARS[Character.toUpperCase(c)] = true;
+    }
+    for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+      TOKEN_CHARS[c] = true;
+    }
+  }
+
   public static final MediaType ANY = create("*", "*");
 
   public static final MediaType JSON = create(TYPE_TEXT, SUBTYPE_JSON);
@@ -66,36 +96,193 @@ public final class MediaType implements Serializable {
   public static final MediaType MULTIPART_RELATED = create(TYPE_MULTIPART, SUBTYPE_RELATED);
   public static final MediaType MULTIPART_X_MIXED_REPLACE = create(TYPE_MULTIPART, "x-" + SUBTYPE_MIXED + "-replace");
 
+  static {
+    for (MediaType mediaType : new MediaType[] {ANY, JSON, APPLICATION_JSON, ATOM, RSS, APPLICATION_XML, XML, TEXT, HTML,
+        BINARY, UNKNOWN, MULTIPART_MIXED, MULTIPART_RELATED, MULTIPART_X_MIXED_REPLACE}) {
+      CONSTANTS.put(mediaType, mediaType);
+    }
+  }
+
   private final String primaryType;
   private final String subType;
   private final Map<String, String> params;
   private transient Charset charset;
 
+  // both derived from the fields above, computed once since media types are constantly used as keys and logged
+  private transient int hash;
+  private transient String rfcString;
+
   /**
-   * Parses a media type from its string representation.
+   * Parses a media type from its string representation, as defined in
+   * <a href="https://tools.ietf.org/html/rfc7231#section-3.1.1.1">RFC-7231</a>. The type, subtype and parameter names
+   * are case insensitive and returned in lower case.
+   * <p>
+   * Media types without parameters other than the {@code charset} are cached, so parsing them again doesn't allocate.
    *
    * @param mediaType String representation to be parsed
    * @throws IllegalArgumentException if the {@code mimeType} cannot be parsed.
    * @return {@link MediaType} instance for the parsed {@code mediaType} string.
    */
   public static MediaType parse(String mediaType) {
-    try {
-      MimeType mimeType = new MimeType(mediaType);
+    MediaType cached = PARSED.get(mediaType);
+    if (cached != null) {
+      return cached;
+    }
+
+    MediaType parsed = doParse(mediaType);
+    if (!parsed.params.isEmpty()) {
+      return parsed;
+    }
+
+    MediaType canonical = CONSTANTS.get(parsed);
+    if (canonical == null) {
+      canonical = putBounded(CANONICAL, parsed, parsed);
+    }
+    putBounded(PARSED, mediaType, canonical);
+    return canonical;
+  }
 
-      String charsetParam = mimeType.getParameter(CHARSET_PARAM);
-      Charset charset = isNotEmpty(charsetParam) ? Charset.forName(charsetParam) : null;
+  private static <K, V> V putBounded(Map<K, V> cache, K key, V value) {
+    if (cache.size() >= MAX_CACHE_SIZE) {
+      cache.clear();
+    }
+    V previous = cache.putIfAbsent(key, value);
+    return previous != null ? previous : value;
+  }
 
-      Map<String, String> params = new HashMap<>();
-      for (String paramName : (List<String>) list(mimeType.getParameters().getNames())) {
-        if (!CHARSET_PARAM.equals(paramName)) {
-          params.put(paramName, mimeType.getParameter(paramName));
+  private static MediaType doParse(String mediaType) {
+    final int length = mediaType.length();
+
+    int start = skipWhitespace(mediaType, 0);
+    int end = skipToken(mediaType, start);
+    if (end == start || end == length || mediaType.charAt(end) != '/') {
+      throw parseException(mediaType);
+    }
+    String primaryType = lowerCase(mediaType, start, end);
+
+    start = end + 1;
+    end = skipToken(mediaType, start);
+    if (end == start) {
+      throw parseException(mediaType);
+    }
+    String subType = lowerCase(mediaType, start, end);
+
+    Map<String, String> params = null;
+    Charset charset = null;
+    int i = skipWhitespace(mediaType, end);
+    while (i < length) {
+      if (mediaType.charAt(i) != ';') {
+        throw parseException(mediaType);
+      }
+
+      // a trailing semicolon is tolerated
+      start = skipWhitespace(mediaType, i + 1);
+      if (start == length) {
+        break;
+      }
+
+      end = skipToken(mediaType, start);
+      if (end == start || end == length || mediaType.charAt(end) != '=') {
+        throw parseException(mediaType);
+      }
+      String name = lowerCase(mediaType, start, end);
+
+      String value;
+      start = end + 1;
+      if (start < length && mediaType.charAt(start) == '"') {
+        StringBuilder quoted = new StringBuilder();
+        i = readQuotedString(mediaType, start + 1, quoted);
+        value = quoted.toString();
+      } else {
+        i = skipToken(mediaType, start);
+        if (i == start) {
+          throw parseException(mediaType);
         }
+        value = mediaType.substring(start, i);
       }
 
-      return new MediaType(mimeType.getPrimaryType(), mimeType.getSubType(), params, charset);
-    } catch (MimeTypeParseException e) {
-      throw new IllegalArgumentException("MediaType cannot be parsed: " + mediaType, e);
+      if (CHARSET_PARAM.equals(name)) {
+        charset = isNotEmpty(value) ? charsetForName(value) : null;
+      } else {
+        if (params == null) {
+          params = new HashMap<>(4);
+        }
+        params.put(name, value);
+      }
+      i = skipWhitespace(mediaType, i);
     }
+
+    return new MediaType(primaryType, subType, params != null ? params : emptyMap(), charset);
+  }
+
+  private static int skipWhitespace(String value, int from) {
+    int i = from;
+    while (i < value.length() && (value.charAt(i) == ' ' || value.charAt(i) == '\t')) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipToken(String value, int from) {
+    int i = from;
+    while (i < value.length() && value.charAt(i) < TOKEN_CHARS.length && TOKEN_CHARS[value.charAt(i)]) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Reads the contents of a quoted string, unescaping its quoted pairs
+   *
+   * @return the index right after the closing quote
+   */
+  private static int readQuotedString(String value, int from, StringBuilder builder) {
+    for (int i = from; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        return i + 1;
+      } else if (c == '\\') {
+        if (++i == value.length()) {
+          break;
+        }
+        builder.append(value.charAt(i));
+      } else if (c < ' ' && c != '\t' || c == 0x7F) {
+        break;
+      } else {
+        builder.append(c);
+      }
+    }
+    throw parseException(value);
+  }
+
+  private static String lowerCase(String value, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = value.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        char[] chars = new char[to - from];
+        value.getChars(from, to, chars, 0);
+        for (int j = i - from; j < chars.length; j++) {
+          if (chars[j] >= 'A' && chars[j] <= 'Z') {
+            chars[j] += 'a' - 'A';
+          }
+        }
+        return new String(chars);
+      }
+    }
+    return value.substring(from, to);
+  }
+
+  private static Charset charsetForName(String name) {
+    Charset charset = CHARSETS.get(name);
+    if (charset == null) {
+      // throws if the charset is not supported, so only valid names are cached
+      charset = putBounded(CHARSETS, name, Charset.forName(name));
+    }
+    return charset;
+  }
+
+  private static IllegalArgumentException parseException(String mediaType) {
+    return new IllegalArgumentException("MediaType cannot be parsed: " + mediaType);
   }
 
   /**
@@ -127,6 +314,22 @@ public final class MediaType implements Serializable {
     this.subType = subType;
     this.params = params;
     this.charset = charset;
+    computeDerivedFields();
+  }
+
+  private void computeDerivedFields() {
+    // TODO MULE-9987 Check if it is actually needed to leave charset and params out.
+    hash = 31 * (31 + Objects.hashCode(primaryType)) + Objects.hashCode(subType);
+
+    final StringBuilder buffer = new StringBuilder(primaryType.length() + subType.length() + 1)
+        .append(primaryType).append('/').append(subType);
+    if (charset != null) {
+      buffer.append("; charset=").append(charset.name());
+    }
+    for (Map.Entry<String, String> param : params.entrySet()) {
+      buffer.append("; ").append(param.getKey()).append("=\"").append(param.getValue()).append('"');
+    }
+    rfcString = buffer.toString();
   }
 
   /**
@@ -137,6 +340,9 @@ public final class MediaType implements Serializable {
    * @return new immutable {@link MediaType} instance.
    */
   public MediaType withCharset(Charset charset) {
+    if (Objects.equals(this.charset, charset)) {
+      return this;
+    }
     return new MediaType(this.getPrimaryType(), this.getSubType(), params, charset);
   }
 
@@ -200,14 +406,7 @@ public final class MediaType implements Serializable {
    *         {params}]"}.
    */
   public String toRfcString() {
-    final StringBuilder buffer = new StringBuilder();
-    params.forEach((k, v) -> {
-      buffer.append("; " + k + "=\"" + v + "\"");
-    });
-
-    return primaryType + "/" + subType
-        + (getCharset().isPresent() ? "; charset=" + getCharset().get().name() : "")
-        + (!params.isEmpty() ? buffer.toString() : "");
+    return rfcString;
   }
 
   /**
@@ -220,27 +419,25 @@ public final class MediaType implements Serializable {
 
   @Override
   public int hashCode() {
-    // TODO MULE-9987 Check if it is actually needed to leave charset and params out.
-    return Objects.hash(primaryType, subType);
+    return hash;
   }
 
   @Override
   public boolean equals(Object obj) {
-    if (obj == null) {
-      return false;
-    }
+    // parsed media types are interned, so this is the usual case when they are equal
     if (obj == this) {
       return true;
     }
-    if (obj.getClass() != getClass()) {
+    if (obj == null || obj.getClass() != getClass()) {
       return false;
     }
     MediaType other = (MediaType) obj;
 
-    return Objects.equals(primaryType, other.primaryType)
+    return hash == other.hash
+        && Objects.equals(primaryType, other.primaryType)
         && Objects.equals(subType, other.subType)
-        && Objects.equals(params, other.params)
-        && Objects.equals(charset, other.charset);
+        && Objects.equals(charset, other.charset)
+        && Objects.equals(params, other.params);
   }
 
   private void readObject(ObjectInputStream in) throws Exception {
@@ -249,6 +446,7 @@ public final class MediaType implements Serializable {
     if (charsetStr != null) {
       charset = Charset.forName(charsetStr);
     }
+    computeDerivedFields();
   }
 
   private void writeObject(ObjectOutputStream out) throws Exception {
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.metadata;
+
+import org.mule.runtime.internal.metadata.DefaultMediaTypeNegotiator;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Performs content negotiation as defined in
+ * <a href="https://tools.ietf.org/html/rfc7231#section-5.3.2">RFC-7231</a>, selecting which of the {@link MediaType}s
+ * that can be produced is the most acceptable for a given {@code Accept} header.
+ * <p>
+ * Each media range of the header is compiled once, when the negotiator is created, and the ranges are sorted from the
+ * most specific to the least specific one. Besides the {@code *}{@code /*} and {@code type/*} wildcards, ranges in the
+ * form {@code type/*+suffix} match the media types using that structured syntax suffix, as defined in
+ * <a href="https://tools.ietf.org/html/rfc6839">RFC-6839</a>. For instance, {@code application/*+json} matches
+ * {@code application/vnd.foo+json}. Parameters of the media ranges other than the {@code q} weight are ignored, as
+ * are the parameters of the produced media types.
+ * <p>
+ * Negotiators are immutable and thread safe. Since clients tend to send the same few {@code Accept} headers, the
+ * negotiators are cached, so creating one for a header seen before doesn't parse it again.
+ *
+ * @since 1.0
+ */
+public interface MediaTypeNegotiator {
+
+  /**
+   * Returns a {@link MediaTypeNegotiator} for the given {@code Accept} header. A {@code null} or blank header accepts
+   * any media type, as if the header was not sent.
+   *
+   * @param acceptHeader the value of the {@code Accept} header
+   * @return a {@link MediaTypeNegotiator}
+   * @throws IllegalArgumentException if the header cannot be parsed
+   */
+  static MediaTypeNegotiator forAcceptHeader(String acceptHeader) {
+    return DefaultMediaTypeNegotiator.forAcceptHeader(acceptHeader);
+  }
+
+  /**
+   * Returns the quality of the given {@code mediaType}, which is the {@code q} weight of the most specific media
+   * range matching it.
+   *
+   * @param mediaType the {@link MediaType} to evaluate
+   * @return a number between {@code 0} and {@code 1}. {@code 0} means that the {@code mediaType} is not acceptable
+   */
+  double getQuality(MediaType mediaType);
+
+  /**
+   * @param mediaType the {@link MediaType} to evaluate
+   * @return whether the {@code mediaType} is acceptable, that is, its quality is greater than {@code 0}
+   */
+  boolean accepts(MediaType mediaType);
+
+  /**
+   * Selects the most acceptable of the {@code producible} media types. When several of them have the same quality,
+   * the first one, in iteration order, is selected. Thus, {@code producible} should be ordered by preference.
+   *
+   * @param producible the {@link MediaType}s that can be produced
+   * @return the selected {@link MediaType}, or an empty {@link Optional} if none of them is acceptable
+   */
+  Optional<MediaType> select(Collection<MediaType> producible);
+}
@@ -8,10 +8,15 @@ package org.mule.runtime.api.metadata;
 
 import static org.mule.runtime.api.metadata.DataType.fromObject;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 /**
  * Maintains a value that has an associated {@link DataType}.
+ * <p>
+ * When no {@link DataType} is given, it's inferred from the value through {@link DataType#fromObject(Object)}, but
+ * only the first time it's requested, since most values are never asked for it.
  * 
  * @param <T> the content type.
  * @since 1.0
@@ -21,7 +26,9 @@ public final class TypedValue<T> implements Serializable {
   private static final long serialVersionUID = -2533879516750283994L;
 
   private final T value;
-  private final DataType dataType;
+  // lazily inferred when not given. Concurrent readers may infer it more than once, which is harmless since the result
+  // is always the same
+  private volatile DataType dataType;
 
   /**
    * Constructs a new {@link TypedValue} with the given parameters.
@@ -31,11 +38,7 @@ public final class TypedValue<T> implements Serializable {
    */
   public TypedValue(T value, DataType dataType) {
     this.value = value;
-    if (dataType == null) {
-      this.dataType = fromObject(value);
-    } else {
-      this.dataType = dataType;
-    }
+    this.dataType = dataType;
   }
 
   /**
@@ -44,7 +47,12 @@ public final class TypedValue<T> implements Serializable {
    * @return the {@link DataType} for this object's content.
    */
   public DataType getDataType() {
-    return dataType;
+    DataType resolved = dataType;
+    if (resolved == null) {
+      resolved = fromObject(value);
+      dataType = resolved;
+    }
+    return resolved;
   }
 
   /**
@@ -54,4 +62,9 @@ public final class TypedValue<T> implements Serializable {
     return value;
   }
 
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    // the serialized form always carries the data type, just like when it was inferred eagerly
+    getDataType();
+    out.defaultWriteObject();
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import org.mule.runtime.internal.streaming.ChunkPool;
+
+/**
+ * Statistics about the process-wide pool of memory chunks which the {@link CursorStreamProvider} buffers
+ * borrow from.
+ * <p>
+ * Chunks are borrowed as the buffers grow and given back to the pool once the owning provider is closed
+ * and all its cursors have been released.
+ *
+ * @since 1.0
+ */
+public interface BufferPoolStatistics {
+
+  /**
+   * @return the statistics of the default buffer pool
+   */
+  static BufferPoolStatistics getDefault() {
+    return ChunkPool.getStatistics();
+  }
+
+  /**
+   * @return the amount of chunks which are currently borrowed
+   */
+  long getChunksInUse();
+
+  /**
+   * @return the maximum amount of chunks which have been borrowed at the same time
+   */
+  long getChunksInUseHighWaterMark();
+
+  /**
+   * @return how many times a chunk had to be allocated because the pool had no free chunk available
+   */
+  long getAllocationMisses();
+}
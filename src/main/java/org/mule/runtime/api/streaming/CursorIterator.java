@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} which provides random access. It is the object counterpart of {@link CursorStream}.
+ * <p>
+ * It works by adding the concept of a zero-based position. Each position represents one item in the
+ * stream. Each time an item is pulled from this iterator the position advances one step. However, the
+ * {@link #seek(long)} method can be used to reset the position.
+ * <p>
+ * This iterators are auto-closeable in the sense that once {@link #hasNext()} returns {@code false}, the
+ * {@link #isClosed()} method will start to return {@code true}. However, an invokation to {@link #seek(long)}
+ * will mark {@code this} cursor as open again.
+ * <p>
+ * Once {@link #close()} is invoked, the cursor releases its resources and no action will move it from that state.
+ * <p>
+ * Implementations should not be expected to be thread safe. Should not be used concurrently.
+ *
+ * @param <T> the generic type of the iterated items
+ * @see CursorIteratorProvider
+ * @since 1.0
+ */
+public interface CursorIterator<T> extends Iterator<T>, Closeable {
+
+  /**
+   * @return The cursor's current position
+   */
+  long getPosition();
+
+  /**
+   * Updates the cursor's position.
+   *
+   * @param position the new position
+   */
+  void seek(long position);
+
+  /**
+   * @return Whether this cursor is closed or not.
+   */
+  boolean isClosed();
+
+  /**
+   * Releases {@code this} cursor. Once invoked, the cursor can no longer be used.
+   */
+  @Override
+  void close();
+}
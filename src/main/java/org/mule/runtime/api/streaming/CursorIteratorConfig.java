@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static java.util.Optional.ofNullable;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+
+import java.util.Optional;
+
+/**
+ * Configuration for a {@link CursorIteratorProvider}.
+ * <p>
+ * Items are buffered in segments of {@link #getSegmentSize()} items. Up to {@link #getMaxInMemoryInstances()}
+ * items are kept in memory. Once that limit is exceeded, the following segments are spilled to disk using
+ * the configured {@link #getSerializer() serializer}. If no serializer was configured, a
+ * {@link StreamingBufferSizeExceededException} is thrown instead.
+ *
+ * @since 1.0
+ */
+public final class CursorIteratorConfig {
+
+  /**
+   * The default amount of items on each segment
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 128;
+
+  /**
+   * The default maximum amount of items kept in memory
+   */
+  public static final int DEFAULT_MAX_IN_MEMORY_INSTANCES = 1024;
+
+  private final int segmentSize;
+  private final int maxInMemoryInstances;
+  private final CursorIteratorSerializer serializer;
+
+  /**
+   * @return a new instance configured with {@link #DEFAULT_SEGMENT_SIZE} and {@link #DEFAULT_MAX_IN_MEMORY_INSTANCES}
+   * which doesn't spill to disk
+   */
+  public static CursorIteratorConfig getDefault() {
+    return new CursorIteratorConfig(DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_IN_MEMORY_INSTANCES);
+  }
+
+  /**
+   * Creates a new instance which doesn't spill to disk
+   *
+   * @param segmentSize          the amount of items on each segment
+   * @param maxInMemoryInstances the maximum amount of items kept in memory
+   */
+  public CursorIteratorConfig(int segmentSize, int maxInMemoryInstances) {
+    this(segmentSize, maxInMemoryInstances, null);
+  }
+
+  /**
+   * Creates a new instance which spills to disk
+   *
+   * @param segmentSize          the amount of items on each segment
+   * @param maxInMemoryInstances the maximum amount of items kept in memory
+   * @param serializer           the serializer used to spill segments to disk. Can be {@code null} to disable spilling
+   */
+  public CursorIteratorConfig(int segmentSize, int maxInMemoryInstances, CursorIteratorSerializer serializer) {
+    checkArgument(segmentSize > 0, "segmentSize must be greater than zero");
+    checkArgument(maxInMemoryInstances >= segmentSize, "maxInMemoryInstances cannot be lower than segmentSize");
+
+    this.segmentSize = segmentSize;
+    this.maxInMemoryInstances = maxInMemoryInstances;
+    this.serializer = serializer;
+  }
+
+  /**
+   * @return the amount of items on each segment
+   */
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * @return the maximum amount of items kept in memory
+   */
+  public int getMaxInMemoryInstances() {
+    return maxInMemoryInstances;
+  }
+
+  /**
+   * @return the serializer used to spill segments to disk, if any
+   */
+  public Optional<CursorIteratorSerializer> getSerializer() {
+    return ofNullable(serializer);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import org.mule.runtime.internal.streaming.BufferedCursorIteratorProvider;
+import org.mule.runtime.internal.streaming.ObjectStreamBuffer;
+
+import java.util.Iterator;
+
+/**
+ * Provides instances of {@link CursorIterator} which allows concurrent access to a wrapped
+ * {@link Iterator}. It is the object counterpart of {@link CursorStreamProvider}.
+ * <p>
+ * The provider maintains all the allocated resources necessary to power all the open
+ * cursors.
+ * <p>
+ * When this provider is {@link #close() closed}, it will not open any new cursors
+ * and invokations to {@link #openCursor()} will fail. However, the allocated resources
+ * will not be released until all open cursors are closed.
+ *
+ * @param <T> the generic type of the iterated items
+ * @see CursorIterator
+ * @since 1.0
+ */
+public interface CursorIteratorProvider<T> {
+
+  /**
+   * Creates a new {@link CursorIteratorProvider} which buffers the items of the given {@code iterator} in
+   * segments, as described in {@link CursorIteratorConfig}.
+   * <p>
+   * If the {@code iterator} is also {@link AutoCloseable}, it will be closed once the provider's resources are
+   * released.
+   *
+   * @param iterator the iterator to be buffered
+   * @param config   the buffer's configuration
+   * @param <T>      the generic type of the iterated items
+   * @return a new {@link CursorIteratorProvider}
+   */
+  static <T> CursorIteratorProvider<T> create(Iterator<T> iterator, CursorIteratorConfig config) {
+    return new BufferedCursorIteratorProvider<>(new ObjectStreamBuffer<>(iterator, config));
+  }
+
+  /**
+   * Creates a new {@link CursorIterator} positioned on the very beginning of the wrapped iterator.
+   * <p>
+   * It is the invokers responsibility to make sure that the returned cursor gets closed, since
+   * otherwise whatever resources held by the underlying buffer will never be released.
+   *
+   * @return a new {@link CursorIterator}
+   * @throws IllegalStateException if invoked after the {@link #close()} method has been invoked
+   */
+  CursorIterator<T> openCursor();
+
+  /**
+   * Closes the provider in the sense that it will not yield any more cursors. However, all active
+   * cursors will remain functional. When the last of them is closed, then any resources associated to {@code this}
+   * provider will be released.
+   */
+  void close();
+
+  /**
+   * @return Whether the {@link #close()} method has been invoked on {@code this} instance or not
+   */
+  boolean isClosed();
+}
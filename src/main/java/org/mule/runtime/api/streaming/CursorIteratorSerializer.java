@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import org.mule.runtime.internal.streaming.JavaCursorIteratorSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Serializes the segments of items which a {@link CursorIteratorProvider} spills to disk once its
+ * in-memory limit is exceeded.
+ * <p>
+ * Items are always serialized and deserialized in segments, so implementations are free to take advantage
+ * of that to write more compact representations.
+ *
+ * @since 1.0
+ */
+public interface CursorIteratorSerializer {
+
+  /**
+   * @return a serializer which uses standard Java serialization. All items are expected to be {@link Serializable}
+   */
+  static CursorIteratorSerializer javaSerialization() {
+    return JavaCursorIteratorSerializer.INSTANCE;
+  }
+
+  /**
+   * Writes the given {@code items} into the {@code out} stream.
+   *
+   * @param items the items to serialize
+   * @param out   the stream to write to
+   * @throws IOException if the items could not be serialized
+   */
+  void serialize(List<?> items, OutputStream out) throws IOException;
+
+  /**
+   * Reads the items previously written through {@link #serialize(List, OutputStream)}.
+   *
+   * @param in the stream to read from
+   * @return the deserialized items, in the same order they were serialized
+   * @throws IOException if the items could not be deserialized
+   */
+  List<?> deserialize(InputStream in) throws IOException;
+}
@@ -6,8 +6,15 @@
  */
 package org.mule.runtime.api.streaming;
 
+import static java.lang.Math.min;
+import static java.nio.ByteBuffer.allocate;
+import org.mule.runtime.internal.streaming.CursorStreamChannel;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * An {@link InputStream} which provides random access.
@@ -25,12 +32,21 @@ import java.io.InputStream;
  * resources it has allocated. Once that happens, {@link #isClosed()} will return {@code true}
  * again but no action will move it from that state.
  * <p>
- * Implementations should not be expected to be thread safe. Should not be used concurrently.
+ * Besides the {@link InputStream} methods, the content can also be consumed through NIO by using
+ * {@link #read(ByteBuffer)}, {@link #transferTo(WritableByteChannel)} or {@link #getChannel()}. The default
+ * implementation of those methods stages the data on the heap, but implementations which are backed by
+ * direct memory or files are expected to override them so that the data can reach the target without being
+ * copied into byte arrays.
+ * <p>
+ * Implementations should not be expected to be thread safe. Should not be used concurrently. However, different
+ * cursors opened by the same {@link CursorStreamProvider} can be used concurrently, as described in that interface.
  *
  * @since 1.0
  */
 public abstract class CursorStream extends InputStream {
 
+  private static final int DEFAULT_TRANSFER_BUFFER_SIZE = 8 * 1024;
+
   /**
    * @return The cursor's current position
    */
@@ -47,4 +63,69 @@ public abstract class CursorStream extends InputStream {
    * @return Whether this stream is closed or not.
    */
   public abstract boolean isClosed();
+
+  /**
+   * Reads a sequence of bytes into the given {@code destination}, starting at the current position.
+   * <p>
+   * Just like {@link #read(byte[], int, int)}, the position is advanced as many bytes as read.
+   *
+   * @param destination the buffer into which bytes are to be transferred
+   * @return the number of bytes read, possibly zero, or {@code -1} if the end of the stream was reached
+   * @throws IOException if an I/O error occurs
+   */
+  public int read(ByteBuffer destination) throws IOException {
+    if (!destination.hasRemaining()) {
+      return 0;
+    }
+
+    if (destination.hasArray()) {
+      int read = read(destination.array(), destination.arrayOffset() + destination.position(), destination.remaining());
+      if (read > 0) {
+        destination.position(destination.position() + read);
+      }
+      return read;
+    }
+
+    byte[] bytes = new byte[min(destination.remaining(), DEFAULT_TRANSFER_BUFFER_SIZE)];
+    int read = read(bytes);
+    if (read > 0) {
+      destination.put(bytes, 0, read);
+    }
+    return read;
+  }
+
+  /**
+   * Writes all the remaining content of {@code this} stream, starting at the current position, into
+   * the given {@code target}. Once this method returns, the cursor is positioned at the end of the stream.
+   * <p>
+   * The {@code target} channel is expected to be in blocking mode.
+   *
+   * @param target the channel to write into
+   * @return the number of transferred bytes
+   * @throws IOException if an I/O error occurs
+   */
+  public long transferTo(WritableByteChannel target) throws IOException {
+    ByteBuffer buffer = allocate(DEFAULT_TRANSFER_BUFFER_SIZE);
+    long transferred = 0;
+    while (read(buffer) != -1) {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        transferred += target.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    return transferred;
+  }
+
+  /**
+   * Returns a {@link ReadableByteChannel} which reads from {@code this} stream through {@link #read(ByteBuffer)}.
+   * <p>
+   * The channel shares the position of {@code this} stream. Closing it closes the stream as well.
+   *
+   * @return a {@link ReadableByteChannel}
+   */
+  public ReadableByteChannel getChannel() {
+    return new CursorStreamChannel(this);
+  }
 }
@@ -6,7 +6,15 @@
  */
 package org.mule.runtime.api.streaming;
 
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+import org.mule.runtime.internal.streaming.BufferedCursorStreamProvider;
+import org.mule.runtime.internal.streaming.CompressedFileStoreStreamBuffer;
+import org.mule.runtime.internal.streaming.FileStoreStreamBuffer;
+import org.mule.runtime.internal.streaming.InMemoryStreamBuffer;
+import org.mule.runtime.internal.streaming.StreamBuffer;
+
 import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Provides instances of {@link CursorStream} which allows concurrent access to a wrapped
@@ -19,12 +27,74 @@ import java.io.InputStream;
  * and invokations to {@link #openCursor()} will fail. However, the allocated resources
  * will not be released until all open cursors are closed. The runtime will be in charge of
  * doing that, no intervention is required from the client.
+ * <p>
+ * Concurrency guarantees:
+ * <ul>
+ * <li>{@link #openCursor()}, {@link #close()} and {@link #isClosed()} are thread safe.</li>
+ * <li>Each cursor must only be used by one thread at a time, but the many cursors opened by the same
+ * provider can be consumed concurrently by different threads.</li>
+ * <li>The providers created through the factory methods in this interface never lock while a cursor reads
+ * content which was already fetched from the wrapped stream. Only the reads which need to fetch new content
+ * are serialized, since the wrapped stream is consumed by one thread at a time.</li>
+ * </ul>
  *
  * @see CursorStream
  * @since 1.0
  */
 public interface CursorStreamProvider {
 
+  /**
+   * Creates a new {@link CursorStreamProvider} which buffers the given {@code stream} in direct memory
+   * and spills into a memory-mapped temporary file once the configured
+   * {@link FileStoreCursorStreamConfig#getMaxInMemorySize()} is exceeded. If
+   * {@link FileStoreCursorStreamConfig#isCompressSpilledChunks()} is enabled, the spilled content is
+   * compressed instead of memory-mapped.
+   * <p>
+   * All the cursors opened by the returned provider share the same backing store.
+   *
+   * @param stream the stream to be buffered
+   * @param config the buffer's configuration
+   * @return a new {@link CursorStreamProvider}
+   */
+  static CursorStreamProvider fileStore(InputStream stream, FileStoreCursorStreamConfig config) {
+    return fileStore(stream, config, null);
+  }
+
+  /**
+   * Same as {@link #fileStore(InputStream, FileStoreCursorStreamConfig)}, but cursors which are read sequentially
+   * prefetch the next {@link FileStoreCursorStreamConfig#getReadAheadChunks()} chunks on the given
+   * {@code prefetchExecutor}, which would typically be a {@link org.mule.runtime.api.scheduler.Scheduler}. Seeking
+   * a cursor into a different position cancels its outstanding prefetches.
+   *
+   * @param stream           the stream to be buffered
+   * @param config           the buffer's configuration
+   * @param prefetchExecutor the executor on which prefetches are performed. If {@code null}, no read ahead takes place
+   * @return a new {@link CursorStreamProvider}
+   */
+  static CursorStreamProvider fileStore(InputStream stream, FileStoreCursorStreamConfig config,
+                                        ExecutorService prefetchExecutor) {
+    StreamBuffer buffer = config.isCompressSpilledChunks()
+        ? new CompressedFileStoreStreamBuffer(stream, config)
+        : new FileStoreStreamBuffer(stream, config);
+
+    return new BufferedCursorStreamProvider(buffer, prefetchExecutor, config.getChunkSize().toBytes(),
+                                            config.getReadAheadChunks());
+  }
+
+  /**
+   * Creates a new {@link CursorStreamProvider} which buffers the given {@code stream} in memory, using
+   * a buffer which grows in fixed size increments up to {@link InMemoryCursorStreamConfig#getMaxBufferSize()}.
+   * <p>
+   * Cursors opened by the returned provider will throw {@link StreamingBufferSizeExceededException} if the
+   * stream is bigger than that.
+   *
+   * @param stream the stream to be buffered
+   * @param config the buffer's configuration
+   * @return a new {@link CursorStreamProvider}
+   */
+  static CursorStreamProvider inMemory(InputStream stream, InMemoryCursorStreamConfig config) {
+    return new BufferedCursorStreamProvider(new InMemoryStreamBuffer(stream, config));
+  }
 
   /**
    * Creates a new {@link CursorStream} positioned on the very beginning of the wrapped stream.
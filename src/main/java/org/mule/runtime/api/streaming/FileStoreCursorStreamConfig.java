@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static org.mule.runtime.api.util.DataUnit.KB;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.util.DataSize;
+
+/**
+ * Configuration for a {@link CursorStreamProvider} which keeps an in-memory window of the streamed
+ * content in direct memory and spills the rest of it into a memory-mapped temporary file once
+ * the {@link #getMaxInMemorySize()} threshold is exceeded.
+ * <p>
+ * Both the in-memory window and the file are organized in chunks of {@link #getChunkSize()} bytes.
+ * <p>
+ * When {@link #isCompressSpilledChunks()} is enabled, spilled chunks are not memory-mapped. Instead, each one
+ * is compressed as an independent block, trading CPU for disk I/O. Seeking into spilled content only requires
+ * decompressing the block which holds the target position.
+ * <p>
+ * When the provider is given an executor, each cursor which is read sequentially prefetches the next
+ * {@link #getReadAheadChunks()} chunks in the background.
+ *
+ * @since 1.0
+ */
+public final class FileStoreCursorStreamConfig {
+
+  /**
+   * The default amount of memory a buffer can use before spilling into disk
+   */
+  public static final DataSize DEFAULT_MAX_IN_MEMORY_SIZE = new DataSize(512, KB);
+
+  /**
+   * The default size of each of the chunks in which the buffer is organized
+   */
+  public static final DataSize DEFAULT_CHUNK_SIZE = new DataSize(32, KB);
+
+  /**
+   * The default amount of chunks a sequentially read cursor prefetches
+   */
+  public static final int DEFAULT_READ_AHEAD_CHUNKS = 4;
+
+  private final DataSize maxInMemorySize;
+  private final DataSize chunkSize;
+  private final boolean compressSpilledChunks;
+  private final int readAheadChunks;
+
+  /**
+   * @return a new instance configured with {@link #DEFAULT_MAX_IN_MEMORY_SIZE} and {@link #DEFAULT_CHUNK_SIZE}
+   */
+  public static FileStoreCursorStreamConfig getDefault() {
+    return new FileStoreCursorStreamConfig(DEFAULT_MAX_IN_MEMORY_SIZE);
+  }
+
+  /**
+   * Creates a new instance which uses the {@link #DEFAULT_CHUNK_SIZE}
+   *
+   * @param maxInMemorySize the amount of memory the buffer can use before spilling into disk
+   */
+  public FileStoreCursorStreamConfig(DataSize maxInMemorySize) {
+    this(maxInMemorySize, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param maxInMemorySize the amount of memory the buffer can use before spilling into disk
+   * @param chunkSize       the size of each of the chunks in which the buffer is organized
+   */
+  public FileStoreCursorStreamConfig(DataSize maxInMemorySize, DataSize chunkSize) {
+    this(maxInMemorySize, chunkSize, false);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param maxInMemorySize       the amount of memory the buffer can use before spilling into disk
+   * @param chunkSize             the size of each of the chunks in which the buffer is organized
+   * @param compressSpilledChunks whether chunks spilled into disk should be compressed
+   */
+  public FileStoreCursorStreamConfig(DataSize maxInMemorySize, DataSize chunkSize, boolean compressSpilledChunks) {
+    this(maxInMemorySize, chunkSize, compressSpilledChunks, DEFAULT_READ_AHEAD_CHUNKS);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param maxInMemorySize       the amount of memory the buffer can use before spilling into disk
+   * @param chunkSize             the size of each of the chunks in which the buffer is organized
+   * @param compressSpilledChunks whether chunks spilled into disk should be compressed
+   * @param readAheadChunks       the amount of chunks a sequentially read cursor prefetches. {@code 0} disables read ahead
+   */
+  public FileStoreCursorStreamConfig(DataSize maxInMemorySize, DataSize chunkSize, boolean compressSpilledChunks,
+                                     int readAheadChunks) {
+    checkArgument(maxInMemorySize != null, "maxInMemorySize cannot be null");
+    checkArgument(chunkSize != null, "chunkSize cannot be null");
+    checkArgument(maxInMemorySize.toBytes() >= 0, "maxInMemorySize cannot be negative");
+    checkArgument(chunkSize.toBytes() > 0, "chunkSize must be greater than zero");
+    checkArgument(readAheadChunks >= 0, "readAheadChunks cannot be negative");
+
+    this.maxInMemorySize = maxInMemorySize;
+    this.chunkSize = chunkSize;
+    this.compressSpilledChunks = compressSpilledChunks;
+    this.readAheadChunks = readAheadChunks;
+  }
+
+  /**
+   * @return the amount of memory the buffer can use before spilling into disk
+   */
+  public DataSize getMaxInMemorySize() {
+    return maxInMemorySize;
+  }
+
+  /**
+   * @return the size of each of the chunks in which the buffer is organized
+   */
+  public DataSize getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * @return whether chunks spilled into disk are compressed
+   */
+  public boolean isCompressSpilledChunks() {
+    return compressSpilledChunks;
+  }
+
+  /**
+   * @return the amount of chunks a sequentially read cursor prefetches
+   */
+  public int getReadAheadChunks() {
+    return readAheadChunks;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static org.mule.runtime.api.util.DataUnit.KB;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+import org.mule.runtime.api.util.DataSize;
+
+/**
+ * Configuration for a {@link CursorStreamProvider} which keeps the streamed content in memory
+ * using a bounded, auto-expanding buffer.
+ * <p>
+ * The buffer starts with a capacity of {@link #getInitialBufferSize()} and grows, when needed, in
+ * steps of {@link #getBufferSizeIncrement()}. Growing never copies the content which was already buffered.
+ * If the stream is bigger than {@link #getMaxBufferSize()}, a {@link StreamingBufferSizeExceededException}
+ * is thrown.
+ *
+ * @since 1.0
+ */
+public final class InMemoryCursorStreamConfig {
+
+  /**
+   * The default amount of memory initially allocated for a buffer
+   */
+  public static final DataSize DEFAULT_INITIAL_BUFFER_SIZE = new DataSize(256, KB);
+
+  /**
+   * The default amount of memory a buffer grows each time it gets full
+   */
+  public static final DataSize DEFAULT_BUFFER_SIZE_INCREMENT = new DataSize(256, KB);
+
+  /**
+   * The default maximum amount of memory a buffer can use
+   */
+  public static final DataSize DEFAULT_MAX_BUFFER_SIZE = new DataSize(1024, KB);
+
+  private final DataSize initialBufferSize;
+  private final DataSize bufferSizeIncrement;
+  private final DataSize maxBufferSize;
+
+  /**
+   * @return a new instance configured with {@link #DEFAULT_INITIAL_BUFFER_SIZE}, {@link #DEFAULT_BUFFER_SIZE_INCREMENT}
+   * and {@link #DEFAULT_MAX_BUFFER_SIZE}
+   */
+  public static InMemoryCursorStreamConfig getDefault() {
+    return new InMemoryCursorStreamConfig(DEFAULT_INITIAL_BUFFER_SIZE, DEFAULT_BUFFER_SIZE_INCREMENT, DEFAULT_MAX_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param initialBufferSize   the amount of memory initially allocated for the buffer
+   * @param bufferSizeIncrement the amount of memory the buffer grows each time it gets full
+   * @param maxBufferSize       the maximum amount of memory the buffer can use
+   */
+  public InMemoryCursorStreamConfig(DataSize initialBufferSize, DataSize bufferSizeIncrement, DataSize maxBufferSize) {
+    checkArgument(initialBufferSize != null, "initialBufferSize cannot be null");
+    checkArgument(bufferSizeIncrement != null, "bufferSizeIncrement cannot be null");
+    checkArgument(maxBufferSize != null, "maxBufferSize cannot be null");
+    checkArgument(initialBufferSize.toBytes() >= 0, "initialBufferSize cannot be negative");
+    checkArgument(bufferSizeIncrement.toBytes() > 0, "bufferSizeIncrement must be greater than zero");
+    checkArgument(maxBufferSize.toBytes() >= initialBufferSize.toBytes(),
+                  "maxBufferSize cannot be lower than initialBufferSize");
+
+    this.initialBufferSize = initialBufferSize;
+    this.bufferSizeIncrement = bufferSizeIncrement;
+    this.maxBufferSize = maxBufferSize;
+  }
+
+  /**
+   * @return the amount of memory initially allocated for the buffer
+   */
+  public DataSize getInitialBufferSize() {
+    return initialBufferSize;
+  }
+
+  /**
+   * @return the amount of memory the buffer grows each time it gets full
+   */
+  public DataSize getBufferSizeIncrement() {
+    return bufferSizeIncrement;
+  }
+
+  /**
+   * @return the maximum amount of memory the buffer can use
+   */
+  public DataSize getMaxBufferSize() {
+    return maxBufferSize;
+  }
+}
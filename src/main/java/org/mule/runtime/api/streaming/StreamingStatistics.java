@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import org.mule.runtime.internal.streaming.DefaultStreamingStatistics;
+
+/**
+ * Statistics about the {@link CursorStreamProvider providers} and {@link CursorStream cursors} created
+ * through the factory methods in {@link CursorStreamProvider}.
+ * <p>
+ * A provider is considered open until its {@link CursorStreamProvider#close()} method is invoked. A cursor
+ * is considered open until its {@link CursorStream#close()} method is invoked.
+ * <p>
+ * A sample of the providers is also tracked to detect the ones which are garbage collected before their resources
+ * were released, which happens if they are never closed or if any of their cursors is never closed. Those are
+ * reported as leaked. The sampling interval is set through the {@code mule.streaming.leakDetection.samplingInterval}
+ * system property: one out of that many providers is tracked. A value of {@code 1} tracks all of them, while
+ * {@code 0} disables the leak detection.
+ *
+ * @since 1.0
+ */
+public interface StreamingStatistics {
+
+  /**
+   * @return the statistics of the default provider factories
+   */
+  static StreamingStatistics getDefault() {
+    return DefaultStreamingStatistics.getInstance();
+  }
+
+  /**
+   * @return the amount of providers which have been created but not closed yet
+   */
+  long getOpenProvidersCount();
+
+  /**
+   * @return the amount of providers which have been closed
+   */
+  long getClosedProvidersCount();
+
+  /**
+   * @return the amount of cursors which have been opened but not closed yet
+   */
+  long getOpenCursorsCount();
+
+  /**
+   * @return the amount of cursors which have been closed
+   */
+  long getClosedCursorsCount();
+
+  /**
+   * @return the amount of bytes currently held by buffers which have not been released yet
+   */
+  long getBufferedBytes();
+
+  /**
+   * @return the maximum amount of cursors which have been open at the same time on one single provider
+   */
+  int getMaxCursorsPerProvider();
+
+  /**
+   * @return the amount of tracked providers which were garbage collected without their resources being released
+   */
+  long getLeakedProvidersCount();
+}
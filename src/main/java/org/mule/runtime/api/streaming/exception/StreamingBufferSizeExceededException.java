@@ -24,4 +24,12 @@ public class StreamingBufferSizeExceededException extends MuleRuntimeException {
   public StreamingBufferSizeExceededException(int maxBufferSize) {
     super(createStaticMessage("Buffer has exceeded its maximum size of " + maxBufferSize));
   }
+
+  /**
+   * Creates a new instance for buffers which may hold more than {@link Integer#MAX_VALUE} bytes
+   * @param maxBufferSize the maximum size in bytes of the exceeded buffer
+   */
+  public StreamingBufferSizeExceededException(long maxBufferSize) {
+    super(createStaticMessage("Buffer has exceeded its maximum size of " + maxBufferSize));
+  }
 }
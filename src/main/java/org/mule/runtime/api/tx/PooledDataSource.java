@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.tx;
+
+import org.mule.runtime.api.connection.ConnectionPoolStatistics;
+
+import javax.sql.DataSource;
+
+/**
+ * A {@link DataSource} which pools the connections of another one. Instances are obtained through a
+ * {@link PoolingDataSourceDecorator}.
+ * <p>
+ * Closing a {@link java.sql.Connection} obtained from this data source returns it to the pool instead of closing
+ * it. Statements prepared through a pooled connection are cached along with it, so preparing the same SQL again
+ * reuses the statement already prepared by the driver.
+ *
+ * @since 1.0
+ */
+public interface PooledDataSource extends DataSource {
+
+  /**
+   * @return the statistics of the underlying connection pool
+   */
+  ConnectionPoolStatistics getStatistics();
+
+  /**
+   * @return how many connections were reported as possible leaks, because they were held for longer than the
+   * {@link org.mule.runtime.api.config.DatabasePoolingProfile#getLeakDetectionThreshold() leak detection threshold}
+   */
+  long getSuspectedLeaksCount();
+
+  /**
+   * Closes the pool. Idle connections are closed right away, the rest as soon as they're returned. Any further
+   * attempt to obtain a connection will fail.
+   */
+  void close();
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.tx;
+
+import org.mule.runtime.api.config.DatabasePoolingProfile;
+import org.mule.runtime.internal.tx.DefaultPoolingDataSourceDecorator;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.sql.DataSource;
+import javax.sql.XADataSource;
+
+/**
+ * Reference {@link DataSourceDecorator} which pools the connections of a plain {@link DataSource} according to a
+ * {@link DatabasePoolingProfile}:
+ * <ul>
+ * <li>{@link DatabasePoolingProfile#getMaxPoolSize()} is the maximum amount of connections. Clients which find the
+ * pool exhausted wait for up to {@link DatabasePoolingProfile#getMaxWait()}</li>
+ * <li>{@link DatabasePoolingProfile#getMinPoolSize()} connections are created when the pool starts and, if a
+ * scheduler is provided, kept idle afterwards</li>
+ * <li>{@link DatabasePoolingProfile#getPreparedStatementCacheSize()} statements are cached per connection</li>
+ * <li>Connections held for longer than {@link DatabasePoolingProfile#getLeakDetectionThreshold()} are logged as
+ * possible leaks, along with the stack trace of the code which obtained them</li>
+ * </ul>
+ * Connections are validated through {@link java.sql.Connection#isValid(int)} before being handed out, which lets the
+ * driver check the connection without running any query. If a scheduler is provided, idle connections are validated
+ * in the background instead, and connections used recently are handed out without validation.
+ * <p>
+ * This decorator doesn't apply to {@link XADataSource XA data sources} nor to data sources which are already pooled.
+ *
+ * @since 1.0
+ */
+public interface PoolingDataSourceDecorator extends DataSourceDecorator {
+
+  /**
+   * Creates a new decorator which doesn't perform any background work. Possible leaks are checked for when
+   * connections are requested.
+   *
+   * @return a new {@link PoolingDataSourceDecorator}
+   */
+  static PoolingDataSourceDecorator create() {
+    return new DefaultPoolingDataSourceDecorator(null);
+  }
+
+  /**
+   * Creates a new decorator which uses the given {@code scheduler} to maintain the pools and to check for possible
+   * leaks.
+   *
+   * @param scheduler the scheduler for the pools' background work
+   * @return a new {@link PoolingDataSourceDecorator}
+   */
+  static PoolingDataSourceDecorator create(ScheduledExecutorService scheduler) {
+    return new DefaultPoolingDataSourceDecorator(scheduler);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return a started {@link PooledDataSource}
+   */
+  @Override
+  PooledDataSource decorate(DataSource dataSource, String dataSourceName, DatabasePoolingProfile dbPoolingProfile);
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An additive increase, multiplicative decrease (AIMD) limit on the amount of connections which can be active at
+ * the same time.
+ * <p>
+ * Each time a connection is returned, the time it was borrowed for is compared against a slowly moving average of
+ * the previous ones:
+ * <ul>
+ * <li>If it's much longer than usual, the backend is assumed to be struggling and the limit is multiplied by
+ * {@link #BACKOFF_RATIO}. Same as TCP congestion control does once per round trip, this happens at most once per
+ * congestion event: connections which were already borrowed when the limit was last backed off were slowed down by
+ * the same event, so they don't back it off any further.</li>
+ * <li>Otherwise, if the pool was actually using a good part of the limit, the limit is increased by one over its
+ * current value, which adds up to one extra connection each time a full limit worth of connections is returned.</li>
+ * </ul>
+ * Failing to create a connection also backs the limit off. The limit starts at {@code maxLimit}, or at
+ * {@code minLimit} if unbounded, and never leaves the {@code [minLimit, maxLimit]} range.
+ * <p>
+ * All the state is updated through compare-and-set loops, so instances are thread safe without locking.
+ *
+ * @since 1.0
+ */
+final class AdaptiveConcurrencyLimit {
+
+  static final double BACKOFF_RATIO = 0.9;
+  static final double LATENCY_TOLERANCE = 2.0;
+  private static final double AVERAGE_SMOOTHING = 0.05;
+  private static final double MIN_UTILIZATION = 0.5;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AtomicLong limit;
+  private final AtomicLong averageNanos = new AtomicLong(doubleToRawLongBits(0));
+  private final AtomicLong lastBackOffNanos = new AtomicLong(nanoTime());
+
+  /**
+   * Creates a new instance
+   *
+   * @param minLimit the lowest possible limit. Must be positive
+   * @param maxLimit the highest possible limit. Non positive values mean no upper bound
+   */
+  AdaptiveConcurrencyLimit(int minLimit, int maxLimit) {
+    checkArgument(minLimit > 0, "minLimit must be greater than zero");
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit > 0 ? max(maxLimit, minLimit) : Integer.MAX_VALUE;
+    // starts at the configured maximum, so that the pool behaves as configured until there's evidence against it
+    limit = new AtomicLong(doubleToRawLongBits(maxLimit > 0 ? this.maxLimit : minLimit));
+  }
+
+  /**
+   * @return the current limit
+   */
+  int getLimit() {
+    return (int) longBitsToDouble(limit.get());
+  }
+
+  /**
+   * Feeds the time a connection was borrowed for.
+   *
+   * @param borrowedNanos the time between the connection being borrowed and returned
+   * @param active        the amount of connections active when this one was returned, including it
+   */
+  void onSample(long borrowedNanos, int active) {
+    double average = updateAverage(borrowedNanos);
+    if (average > 0 && borrowedNanos > average * LATENCY_TOLERANCE) {
+      long now = nanoTime();
+      long last = lastBackOffNanos.get();
+      // only connections borrowed after the last back off are evidence of a new congestion event
+      if (now - borrowedNanos - last >= 0 && lastBackOffNanos.compareAndSet(last, now)) {
+        backOff();
+      }
+      return;
+    }
+
+    long current;
+    double next;
+    do {
+      current = limit.get();
+      double value = longBitsToDouble(current);
+      if (active < value * MIN_UTILIZATION) {
+        // the limit is not what constrains the pool, raising it would not be based on any evidence
+        return;
+      }
+      next = min(maxLimit, value + 1 / value);
+    } while (!limit.compareAndSet(current, doubleToRawLongBits(next)));
+  }
+
+  /**
+   * Signals that the backend rejected or failed to accept a new connection.
+   */
+  void onDropped() {
+    backOff();
+  }
+
+  private void backOff() {
+    long current;
+    do {
+      current = limit.get();
+    } while (!limit.compareAndSet(current, doubleToRawLongBits(max(minLimit, longBitsToDouble(current) * BACKOFF_RATIO))));
+  }
+
+  private double updateAverage(long sample) {
+    long current;
+    double average;
+    double next;
+    do {
+      current = averageNanos.get();
+      average = longBitsToDouble(current);
+      next = average == 0 ? sample : average + (sample - average) * AVERAGE_SMOOTHING;
+    } while (!averageNanos.compareAndSet(current, doubleToRawLongBits(next)));
+
+    return average;
+  }
+}
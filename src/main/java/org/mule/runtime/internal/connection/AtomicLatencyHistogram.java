@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.ceil;
+import static java.lang.Math.min;
+import org.mule.runtime.api.connection.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies with log-linear buckets.
+ * <p>
+ * Each power of two range is split in {@link #SUB_BUCKETS} linear sub buckets, so values are kept with a relative
+ * error below {@code 1 / SUB_BUCKETS}. All the buckets are allocated upfront, which makes {@link #record(long)}
+ * allocation free and lock free. Reading is done through {@link #snapshot()}, which is not atomic with respect to
+ * concurrent recordings but never loses a value.
+ *
+ * @since 1.0
+ */
+final class AtomicLatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong(0);
+
+  /**
+   * Records the given {@code value}. Negative values are recorded as {@code 0}.
+   *
+   * @param value the value to record, in nanoseconds
+   */
+  void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+
+    counts.incrementAndGet(indexOf(value));
+    count.increment();
+    sum.add(value);
+
+    long currentMax;
+    while (value > (currentMax = max.get())) {
+      if (max.compareAndSet(currentMax, value)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * @return an immutable copy of the current state of this histogram
+   */
+  LatencyHistogram snapshot() {
+    long[] copy = new long[BUCKETS_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKETS_COUNT; i++) {
+      copy[i] = counts.get(i);
+      total += copy[i];
+    }
+
+    return new Snapshot(copy, total, sum.sum(), max.get());
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    int exponent = Long.SIZE - 1 - numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  static long highestValueAt(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  private static final class Snapshot implements LatencyHistogram {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private Snapshot(long[] counts, long count, long sum, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) ceil(min(percentile, 100) / 100 * count));
+      long accumulated = 0;
+      for (int i = 0; i < counts.length; i++) {
+        accumulated += counts[i];
+        if (accumulated >= rank) {
+          return min(highestValueAt(i), max);
+        }
+      }
+
+      return max;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return "LatencyHistogram{count=" + count + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50)
+          + ", p99=" + getValueAtPercentile(99) + ", max=" + max + "}";
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors shared by all the {@link DefaultConnectionPool pools} which were built without a scheduler, so that
+ * asynchronous connects and the continuation of queued borrowers never run on the borrowing or releasing thread, and
+ * the {@link org.mule.runtime.api.config.PoolingProfile#getMaxWait() maximum wait} is always enforced.
+ * <p>
+ * Both are created on first use and run on daemon threads, so they never prevent the JVM from exiting.
+ *
+ * @since 1.0
+ */
+final class ConnectionPoolExecutors {
+
+  private static final int CONNECT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+  private ConnectionPoolExecutors() {}
+
+  /**
+   * @return the executor on which connections are created and queued borrowers are resumed
+   */
+  static Executor connectExecutor() {
+    return ConnectExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * @return the scheduler which times out queued borrowers
+   */
+  static ScheduledExecutorService timer() {
+    return TimerHolder.TIMER;
+  }
+
+  private static ThreadFactory daemonThreadFactory(String prefix) {
+    AtomicInteger count = new AtomicInteger(0);
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static final class ConnectExecutorHolder {
+
+    private static final Executor EXECUTOR = createConnectExecutor();
+
+    private static Executor createConnectExecutor() {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(CONNECT_THREADS, CONNECT_THREADS, 60, SECONDS,
+                                                           new LinkedBlockingQueue<>(),
+                                                           daemonThreadFactory("mule-connection-pool-connect"));
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
+  private static final class TimerHolder {
+
+    private static final ScheduledExecutorService TIMER = createTimer();
+
+    private static ScheduledExecutorService createTimer() {
+      ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, daemonThreadFactory("mule-connection-pool-timer"));
+      // borrowers are usually served way before their timeout, which is then cancelled
+      timer.setRemoveOnCancelPolicy(true);
+      return timer;
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.util.Collections.unmodifiableMap;
+import org.mule.runtime.api.connection.ConnectionPoolStatistics;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.connection.LatencyHistogram;
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the events of one single {@link DefaultConnectionPool} and builds {@link ConnectionPoolStatistics}
+ * snapshots out of them.
+ * <p>
+ * All the counters are updated without locking and recording doesn't allocate, except for the first validation
+ * failure of each {@link ErrorType}.
+ *
+ * @since 1.0
+ */
+final class ConnectionPoolMetrics {
+
+  private final AtomicLatencyHistogram borrowTimes = new AtomicLatencyHistogram();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder validationFailures = new LongAdder();
+  private final Map<ErrorType, LongAdder> validationFailuresByErrorType = new ConcurrentHashMap<>();
+  private final LongAdder created = new LongAdder();
+  private final LongAdder destroyed = new LongAdder();
+
+  void onBorrow(long borrowNanos) {
+    borrowTimes.record(borrowNanos);
+  }
+
+  void onTimeout() {
+    timeouts.increment();
+  }
+
+  void onValidationFailure(ConnectionValidationResult result) {
+    validationFailures.increment();
+    if (result != null && result.getErrorType().isPresent()) {
+      validationFailuresByErrorType.computeIfAbsent(result.getErrorType().get(), errorType -> new LongAdder()).increment();
+    }
+  }
+
+  void onCreated() {
+    created.increment();
+  }
+
+  void onDestroyed() {
+    destroyed.increment();
+  }
+
+  ConnectionPoolStatistics snapshot(int active, int idle, int waiting, int activeLimit) {
+    Map<ErrorType, Long> failuresByErrorType = new HashMap<>();
+    validationFailuresByErrorType.forEach((errorType, count) -> failuresByErrorType.put(errorType, count.sum()));
+
+    return new Snapshot(active, idle, waiting, activeLimit, borrowTimes.snapshot(), timeouts.sum(), validationFailures.sum(),
+                        unmodifiableMap(failuresByErrorType), created.sum(), destroyed.sum());
+  }
+
+  private static final class Snapshot implements ConnectionPoolStatistics {
+
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final int activeLimit;
+    private final LatencyHistogram borrowTimes;
+    private final long timeouts;
+    private final long validationFailures;
+    private final Map<ErrorType, Long> validationFailuresByErrorType;
+    private final long created;
+    private final long destroyed;
+
+    private Snapshot(int active, int idle, int waiting, int activeLimit, LatencyHistogram borrowTimes, long timeouts,
+                     long validationFailures, Map<ErrorType, Long> validationFailuresByErrorType, long created,
+                     long destroyed) {
+      this.active = active;
+      this.idle = idle;
+      this.waiting = waiting;
+      this.activeLimit = activeLimit;
+      this.borrowTimes = borrowTimes;
+      this.timeouts = timeouts;
+      this.validationFailures = validationFailures;
+      this.validationFailuresByErrorType = validationFailuresByErrorType;
+      this.created = created;
+      this.destroyed = destroyed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getActiveCount() {
+      return active;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIdleCount() {
+      return idle;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWaitingCount() {
+      return waiting;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getActiveLimit() {
+      return activeLimit;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencyHistogram getBorrowTimes() {
+      return borrowTimes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTimeoutsCount() {
+      return timeouts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValidationFailuresCount() {
+      return validationFailures;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<ErrorType, Long> getValidationFailuresByErrorType() {
+      return validationFailuresByErrorType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCreatedCount() {
+      return created;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDestroyedCount() {
+      return destroyed;
+    }
+
+    @Override
+    public String toString() {
+      return "ConnectionPoolStatistics{active=" + active + ", idle=" + idle + ", waiting=" + waiting + ", activeLimit="
+          + activeLimit + ", borrowTimes=" + borrowTimes + ", timeouts=" + timeouts + ", validationFailures="
+          + validationFailures + ", created=" + created + ", destroyed=" + destroyed + "}";
+    }
+  }
+}
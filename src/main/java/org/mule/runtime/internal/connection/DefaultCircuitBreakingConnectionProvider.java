@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.mule.runtime.api.connection.CircuitBreakingConnectionProvider.State.CLOSED;
+import static org.mule.runtime.api.connection.CircuitBreakingConnectionProvider.State.HALF_OPEN;
+import static org.mule.runtime.api.connection.CircuitBreakingConnectionProvider.State.OPEN;
+import org.mule.runtime.api.connection.CachedConnectionProvider;
+import org.mule.runtime.api.connection.CircuitBreakingConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.connection.PoolingConnectionProvider;
+import org.mule.runtime.api.connection.PoolingListener;
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link CircuitBreakingConnectionProvider}.
+ * <p>
+ * The state of the breaker is an immutable {@link Circuit} held in an {@link AtomicReference}, so transitions are
+ * plain compare-and-set operations. In particular, only the thread which manages to move the breaker from
+ * {@link State#OPEN} to {@link State#HALF_OPEN} gets to probe the backend.
+ * <p>
+ * The outcomes of the last attempts are kept in a ring of {@code windowSize} slots. The failure rate is only computed
+ * after a failure, by scanning the ring, so that successful attempts only pay for one atomic write.
+ * <p>
+ * Pooling and cached providers are decorated by the {@link Pooling} and {@link Cached} variants, which keep their
+ * marker interface so that the decorated provider is still managed the same way. Use {@link #create} to get the
+ * right one.
+ *
+ * @param <C> the generic type of the connections
+ * @since 1.0
+ */
+class DefaultCircuitBreakingConnectionProvider<C> implements CircuitBreakingConnectionProvider<C>, PoolingListener<C> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCircuitBreakingConnectionProvider.class);
+
+  private static final int EMPTY = 0;
+  private static final int SUCCESS = 1;
+  private static final int FAILURE = 2;
+
+  private final ConnectionProvider<C> delegate;
+  private final PoolingListener<C> delegateListener;
+  private final int consecutiveFailuresThreshold;
+  private final double failureRateThreshold;
+  private final int windowSize;
+  private final long openDurationNanos;
+  private final ErrorType errorType;
+
+  private final AtomicReference<Circuit> circuit = new AtomicReference<>(new Circuit(CLOSED, 0));
+  private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+  private final AtomicIntegerArray window;
+  private final AtomicLong windowCursor = new AtomicLong(0);
+
+  /**
+   * Creates a breaker which keeps the {@link PoolingConnectionProvider} or {@link CachedConnectionProvider} marker of
+   * the given {@code delegate}, if any.
+   */
+  static <C> DefaultCircuitBreakingConnectionProvider<C> create(ConnectionProvider<C> delegate,
+                                                                int consecutiveFailuresThreshold,
+                                                                double failureRateThreshold, int windowSize,
+                                                                long openDurationNanos, ErrorType errorType) {
+    if (delegate instanceof PoolingConnectionProvider) {
+      return new Pooling<>(delegate, consecutiveFailuresThreshold, failureRateThreshold, windowSize, openDurationNanos,
+                           errorType);
+    } else if (delegate instanceof CachedConnectionProvider) {
+      return new Cached<>(delegate, consecutiveFailuresThreshold, failureRateThreshold, windowSize, openDurationNanos,
+                          errorType);
+    }
+
+    return new DefaultCircuitBreakingConnectionProvider<>(delegate, consecutiveFailuresThreshold, failureRateThreshold,
+                                                          windowSize, openDurationNanos, errorType);
+  }
+
+  private DefaultCircuitBreakingConnectionProvider(ConnectionProvider<C> delegate, int consecutiveFailuresThreshold,
+                                                   double failureRateThreshold, int windowSize, long openDurationNanos,
+                                                   ErrorType errorType) {
+    this.delegate = delegate;
+    this.delegateListener = delegate instanceof PoolingListener ? (PoolingListener<C>) delegate : null;
+    this.consecutiveFailuresThreshold = consecutiveFailuresThreshold;
+    this.failureRateThreshold = failureRateThreshold;
+    this.windowSize = failureRateThreshold > 0 ? windowSize : 0;
+    this.openDurationNanos = openDurationNanos;
+    this.errorType = errorType;
+    window = new AtomicIntegerArray(this.windowSize);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public C connect() throws ConnectionException {
+    boolean probe = acquirePermission();
+    boolean connected = false;
+    try {
+      C connection = delegate.connect();
+      connected = true;
+      return connection;
+    } finally {
+      // in a finally block, so that not even an Error leaves the breaker half open
+      if (connected) {
+        onSuccess(probe);
+      } else {
+        onFailure(probe);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<C> connectAsync(Executor executor) {
+    boolean probe;
+    CompletableFuture<C> connecting;
+    try {
+      probe = acquirePermission();
+    } catch (ConnectionException e) {
+      connecting = new CompletableFuture<>();
+      connecting.completeExceptionally(e);
+      return connecting;
+    }
+
+    boolean started = false;
+    try {
+      connecting = delegate.connectAsync(executor);
+      started = true;
+    } finally {
+      if (!started) {
+        onFailure(probe);
+      }
+    }
+
+    return connecting.whenComplete((connection, e) -> {
+      if (e == null) {
+        onSuccess(probe);
+      } else {
+        onFailure(probe);
+      }
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void disconnect(C connection) {
+    delegate.disconnect(connection);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionValidationResult validate(C connection) {
+    return delegate.validate(connection);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public State getState() {
+    return circuit.get().state;
+  }
+
+  /**
+   * Checks whether a connection attempt can be performed
+   *
+   * @return whether the attempt is the probe of a {@link State#HALF_OPEN half open} breaker
+   * @throws ConnectionException if the breaker doesn't allow the attempt
+   */
+  private boolean acquirePermission() throws ConnectionException {
+    while (true) {
+      Circuit current = circuit.get();
+      if (current.state == CLOSED) {
+        return false;
+      }
+
+      long remaining = openDurationNanos - (nanoTime() - current.openedAt);
+      if (current.state == HALF_OPEN || remaining > 0) {
+        throw new ConnectionException("Circuit breaker is open, the backend was found to be unavailable. Next attempt in "
+            + NANOSECONDS.toMillis(max(remaining, 0)) + " ms", null, errorType);
+      }
+
+      if (circuit.compareAndSet(current, new Circuit(HALF_OPEN, current.openedAt))) {
+        return true;
+      }
+    }
+  }
+
+  private void onSuccess(boolean probe) {
+    consecutiveFailures.set(0);
+    if (probe) {
+      clearWindow();
+      circuit.set(new Circuit(CLOSED, 0));
+      LOGGER.info("Circuit breaker closed, the backend is available again");
+    } else {
+      record(SUCCESS);
+    }
+  }
+
+  private void onFailure(boolean probe) {
+    if (probe) {
+      circuit.set(new Circuit(OPEN, nanoTime()));
+      return;
+    }
+
+    int failures = consecutiveFailures.incrementAndGet();
+    boolean failureRateExceeded = record(FAILURE);
+    if ((consecutiveFailuresThreshold > 0 && failures >= consecutiveFailuresThreshold) || failureRateExceeded) {
+      Circuit current = circuit.get();
+      if (current.state == CLOSED && circuit.compareAndSet(current, new Circuit(OPEN, nanoTime()))) {
+        consecutiveFailures.set(0);
+        clearWindow();
+        LOGGER.warn("Circuit breaker opened, connection attempts will fail fast for {} ms",
+                    NANOSECONDS.toMillis(openDurationNanos));
+      }
+    }
+  }
+
+  /**
+   * Records the outcome of an attempt
+   *
+   * @return whether the failure rate threshold is exceeded
+   */
+  private boolean record(int outcome) {
+    if (windowSize == 0) {
+      return false;
+    }
+
+    window.set((int) (windowCursor.getAndIncrement() % windowSize), outcome);
+    if (outcome != FAILURE) {
+      return false;
+    }
+
+    int attempts = 0;
+    int failures = 0;
+    for (int i = 0; i < windowSize; i++) {
+      int slot = window.get(i);
+      if (slot != EMPTY) {
+        attempts++;
+        if (slot == FAILURE) {
+          failures++;
+        }
+      }
+    }
+
+    return attempts == windowSize && failures >= failureRateThreshold * windowSize;
+  }
+
+  private void clearWindow() {
+    for (int i = 0; i < windowSize; i++) {
+      window.set(i, EMPTY);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onBorrow(C connection) {
+    if (delegateListener != null) {
+      delegateListener.onBorrow(connection);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onBorrow(C connection, long borrowNanos) {
+    if (delegateListener != null) {
+      delegateListener.onBorrow(connection, borrowNanos);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onReturn(C connection) {
+    if (delegateListener != null) {
+      delegateListener.onReturn(connection);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onConnectionCreated(C connection) {
+    if (delegateListener != null) {
+      delegateListener.onConnectionCreated(connection);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onConnectionDestroyed(C connection) {
+    if (delegateListener != null) {
+      delegateListener.onConnectionDestroyed(connection);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onValidationFailure(C connection, ConnectionValidationResult result) {
+    if (delegateListener != null) {
+      delegateListener.onValidationFailure(connection, result);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onBorrowTimeout() {
+    if (delegateListener != null) {
+      delegateListener.onBorrowTimeout();
+    }
+  }
+
+  /**
+   * Breaker for a {@link PoolingConnectionProvider}. The listener notifications are already forwarded by the base class.
+   */
+  static final class Pooling<C> extends DefaultCircuitBreakingConnectionProvider<C> implements PoolingConnectionProvider<C> {
+
+    private Pooling(ConnectionProvider<C> delegate, int consecutiveFailuresThreshold, double failureRateThreshold,
+                    int windowSize, long openDurationNanos, ErrorType errorType) {
+      super(delegate, consecutiveFailuresThreshold, failureRateThreshold, windowSize, openDurationNanos, errorType);
+    }
+  }
+
+  /**
+   * Breaker for a {@link CachedConnectionProvider}.
+   */
+  static final class Cached<C> extends DefaultCircuitBreakingConnectionProvider<C> implements CachedConnectionProvider<C> {
+
+    private Cached(ConnectionProvider<C> delegate, int consecutiveFailuresThreshold, double failureRateThreshold,
+                   int windowSize, long openDurationNanos, ErrorType errorType) {
+      super(delegate, consecutiveFailuresThreshold, failureRateThreshold, windowSize, openDurationNanos, errorType);
+    }
+  }
+
+  private static final class Circuit {
+
+    private final State state;
+    private final long openedAt;
+
+    private Circuit(State state, long openedAt) {
+      this.state = state;
+      this.openedAt = openedAt;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.connection.CircuitBreakingConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default implementation of {@link CircuitBreakingConnectionProvider.Builder}, which builds instances of
+ * {@link DefaultCircuitBreakingConnectionProvider}.
+ *
+ * @param <C> the generic type of the connections
+ * @since 1.0
+ */
+public final class DefaultCircuitBreakingConnectionProviderBuilder<C> implements CircuitBreakingConnectionProvider.Builder<C> {
+
+  private static final int DEFAULT_CONSECUTIVE_FAILURES = 5;
+  private static final long DEFAULT_OPEN_DURATION_NANOS = SECONDS.toNanos(30);
+
+  private final ConnectionProvider<C> connectionProvider;
+  private int consecutiveFailures = DEFAULT_CONSECUTIVE_FAILURES;
+  private double failureRate = 0;
+  private int windowSize = 0;
+  private long openDurationNanos = DEFAULT_OPEN_DURATION_NANOS;
+  private ErrorType errorType;
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionProvider the provider to decorate
+   */
+  public DefaultCircuitBreakingConnectionProviderBuilder(ConnectionProvider<C> connectionProvider) {
+    checkArgument(connectionProvider != null, "connectionProvider cannot be null");
+    this.connectionProvider = connectionProvider;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CircuitBreakingConnectionProvider.Builder<C> consecutiveFailuresThreshold(int consecutiveFailures) {
+    this.consecutiveFailures = consecutiveFailures;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CircuitBreakingConnectionProvider.Builder<C> failureRateThreshold(double failureRate, int windowSize) {
+    checkArgument(failureRate <= 1, "failureRate cannot be greater than 1");
+    checkArgument(failureRate <= 0 || windowSize > 0, "windowSize must be greater than zero");
+    this.failureRate = failureRate;
+    this.windowSize = windowSize;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CircuitBreakingConnectionProvider.Builder<C> openDuration(long duration, TimeUnit unit) {
+    checkArgument(duration >= 0, "duration cannot be negative");
+    checkArgument(unit != null, "unit cannot be null");
+    openDurationNanos = unit.toNanos(duration);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CircuitBreakingConnectionProvider.Builder<C> errorType(ErrorType errorType) {
+    this.errorType = errorType;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CircuitBreakingConnectionProvider<C> build() {
+    checkArgument(errorType != null, "errorType cannot be null");
+    return DefaultCircuitBreakingConnectionProvider.create(connectionProvider, consecutiveFailures, failureRate, windowSize,
+                                                           openDurationNanos, errorType);
+  }
+}
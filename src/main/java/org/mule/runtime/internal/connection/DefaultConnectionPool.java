@@ -0,0 +1,845 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_ALL;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_ONE;
+import static org.mule.runtime.api.config.PoolingProfile.SIZING_ADAPTIVE;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_FAIL;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_GROW;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.failure;
+import static org.mule.runtime.internal.connection.ValidationPolicy.isConnectivityError;
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.ConnectionPool;
+import org.mule.runtime.api.connection.ConnectionPoolStatistics;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.connection.PoolingListener;
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link ConnectionPool}.
+ * <p>
+ * The pool doesn't rely on a global lock. Every connection is tracked through a {@link PooledConnection} which
+ * holds its state in an atomic field, so claiming an idle connection is just a matter of winning a compare-and-set
+ * on it. Idle connections are kept in a deque, most recently returned first, so borrowers just pop its head and the
+ * connection a thread has just returned is the first one it gets back on its next borrow. Only idle connections are
+ * tracked and they're counted apart, so neither borrowing nor {@link #getNumIdle()} depend on the size of the pool.
+ * <p>
+ * If none is idle, a new one is created as long as {@link PoolingProfile#getMaxActive()} is not exceeded. Otherwise,
+ * the {@link PoolingProfile#getExhaustedAction()} is applied. When waiting, the borrower is queued and the next
+ * returned connection is handed over to it directly.
+ * <p>
+ * Both {@link #borrow()} and {@link #borrowAsync()} share the same queue of waiters, which are plain
+ * {@link CompletableFuture futures}. Blocking borrowers park on them while asynchronous ones just chain the rest of
+ * the acquisition to them, so no thread is held while waiting. That continuation, same as asynchronous connects,
+ * runs on the scheduler or, if none was configured, on the {@link ConnectionPoolExecutors shared executors}, which
+ * also enforce the {@link PoolingProfile#getMaxWait() maximum wait}.
+ * <p>
+ * Idle connections are validated through {@link ConnectionProvider#validate(Object)} before being handed over,
+ * unless the {@link PoolingProfile#getValidationPolicy() validation policy} trusts a recent successful validation or
+ * only asks for validation after connectivity errors, which are reported through
+ * {@link ConnectionHandler#release(ErrorType)}. If a scheduler is configured and
+ * {@link PoolingProfile#getEvictionCheckIntervalMillis()} is positive, that latency is moved off the borrowers: a
+ * background task periodically evicts the connections which have been idle for too long, validates the remaining idle
+ * ones and pre-warms the pool back up to {@link PoolingProfile#getMinIdle()}. Borrowers then only validate connections
+ * which were neither validated nor returned during the last interval.
+ * <p>
+ * If {@link PoolingProfile#getSizingPolicy()} is {@link PoolingProfile#SIZING_ADAPTIVE}, the maximum amount of
+ * connections is not fixed, but adapted between {@link PoolingProfile#getMinActive()} and
+ * {@link PoolingProfile#getMaxActive()} by an {@link AdaptiveConcurrencyLimit}, fed with the time each connection
+ * is borrowed for and with connection failures. When the limit is lowered, the excess connections are disconnected
+ * as they're returned.
+ * <p>
+ * Every borrow, timeout, validation failure, creation and destruction is recorded into this pool's
+ * {@link ConnectionPoolStatistics} and pushed to the {@link PoolingListener}.
+ *
+ * @param <C> the generic type of the pooled connections
+ * @since 1.0
+ */
+public final class DefaultConnectionPool<C> implements ConnectionPool<C> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultConnectionPool.class);
+
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int REMOVED = 2;
+  private static final int VALIDATING = 3;
+
+  private final ConnectionProvider<C> connectionProvider;
+  private final PoolingProfile poolingProfile;
+  private final PoolingListener<C> poolingListener;
+  private final ScheduledExecutorService scheduler;
+  private final Executor connectExecutor;
+  private final ScheduledExecutorService timer;
+  private final AdaptiveConcurrencyLimit adaptiveLimit;
+  private final ValidationPolicy validationPolicy;
+
+  private final Deque<PooledConnection<C>> idle = new ConcurrentLinkedDeque<>();
+  private final Queue<CompletableFuture<PooledConnection<C>>> waiters = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger idleCount = new AtomicInteger(0);
+  private final AtomicInteger totalCount = new AtomicInteger(0);
+  private final AtomicInteger activeCount = new AtomicInteger(0);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+  private volatile long backgroundValidationNanos = 0;
+  private ScheduledFuture<?> maintenanceTask;
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionProvider the provider which creates, validates and disconnects the pooled connections
+   * @param poolingProfile     the profile which drives the pool
+   * @param poolingListener    the listener to notify when connections are borrowed or returned
+   * @param scheduler          the executor for background tasks. Can be {@code null}, in which case connections are
+   *                           created and borrowers are timed out on the {@link ConnectionPoolExecutors shared ones}
+   */
+  DefaultConnectionPool(ConnectionProvider<C> connectionProvider, PoolingProfile poolingProfile,
+                        PoolingListener<C> poolingListener, ScheduledExecutorService scheduler) {
+    this.connectionProvider = connectionProvider;
+    this.poolingProfile = poolingProfile;
+    this.poolingListener = poolingListener;
+    this.scheduler = scheduler;
+    this.connectExecutor = scheduler != null ? scheduler : ConnectionPoolExecutors.connectExecutor();
+    this.timer = scheduler != null ? scheduler : ConnectionPoolExecutors.timer();
+    this.adaptiveLimit = poolingProfile.getSizingPolicy() == SIZING_ADAPTIVE
+        ? new AdaptiveConcurrencyLimit(max(1, poolingProfile.getMinActive()), poolingProfile.getMaxActive())
+        : null;
+    this.validationPolicy = new ValidationPolicy(poolingProfile);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void start() throws ConnectionException {
+    checkNotClosed();
+
+    int activeLimit = getActiveLimit();
+    int initialConnections = 0;
+    if (poolingProfile.getInitialisationPolicy() == INITIALISE_ONE) {
+      initialConnections = 1;
+    } else if (poolingProfile.getInitialisationPolicy() == INITIALISE_ALL) {
+      initialConnections = activeLimit > 0 ? activeLimit : 1;
+    }
+    initialConnections = max(initialConnections, poolingProfile.getMinIdle());
+
+    // all the connections are requested before waiting on any of them, so that they're established in parallel
+    List<CompletableFuture<PooledConnection<C>>> creating = new ArrayList<>(initialConnections);
+    for (int i = 0; i < initialConnections && reserveSlot(); i++) {
+      creating.add(createAsync());
+    }
+
+    ConnectionException failure = null;
+    for (CompletableFuture<PooledConnection<C>> connection : creating) {
+      try {
+        returnConnection(connection.join());
+      } catch (CompletionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof ConnectionException ? (ConnectionException) e.getCause()
+              : new ConnectionException("Could not create connection", e.getCause());
+        }
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+
+    long interval = poolingProfile.getEvictionCheckIntervalMillis();
+    if (scheduler != null && interval > 0) {
+      backgroundValidationNanos = MILLISECONDS.toNanos(interval);
+      maintenanceTask = scheduler.scheduleWithFixedDelay(this::maintain, interval, interval, MILLISECONDS);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionHandler<C> borrow() throws ConnectionException {
+    checkNotClosed();
+    long start = nanoTime();
+    PooledConnection<C> pooled = acquire();
+    long borrowNanos = nanoTime() - start;
+    metrics.onBorrow(borrowNanos);
+
+    try {
+      poolingListener.onBorrow(pooled.connection, borrowNanos);
+    } catch (Exception e) {
+      destroy(pooled);
+      throw new ConnectionException("Could not borrow connection, the pooling listener failed", e);
+    }
+
+    pooled.borrowedAt = nanoTime();
+    return new PooledConnectionHandler(pooled);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<ConnectionHandler<C>> borrowAsync() {
+    if (closed.get()) {
+      return failedFuture(new ConnectionException("Connection pool has been closed"));
+    }
+
+    long start = nanoTime();
+    long maxWait = poolingProfile.getMaxWait();
+    long deadline = maxWait > 0 ? start + MILLISECONDS.toNanos(maxWait) : 0;
+
+    return acquireAsync(deadline).thenApply(pooled -> {
+      long borrowNanos = nanoTime() - start;
+      metrics.onBorrow(borrowNanos);
+
+      try {
+        poolingListener.onBorrow(pooled.connection, borrowNanos);
+      } catch (Exception e) {
+        destroy(pooled);
+        throw new CompletionException(new ConnectionException("Could not borrow connection, the pooling listener failed",
+                                                              e));
+      }
+
+      pooled.borrowedAt = nanoTime();
+      return new PooledConnectionHandler(pooled);
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumActive() {
+    return activeCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumIdle() {
+    return idleCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionPoolStatistics getStatistics() {
+    int waiting = 0;
+    for (CompletableFuture<PooledConnection<C>> waiter : waiters) {
+      if (!waiter.isDone()) {
+        waiting++;
+      }
+    }
+
+    return metrics.snapshot(getNumActive(), getNumIdle(), waiting, getActiveLimit());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    if (maintenanceTask != null) {
+      maintenanceTask.cancel(false);
+    }
+
+    CompletableFuture<PooledConnection<C>> waiter;
+    while ((waiter = waiters.poll()) != null) {
+      waiter.completeExceptionally(new ConnectionException("Connection pool has been closed"));
+    }
+
+    PooledConnection<C> pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      if (claim(pooled, REMOVED)) {
+        disconnect(pooled);
+      }
+    }
+  }
+
+  private PooledConnection<C> acquire() throws ConnectionException {
+    long maxWait = poolingProfile.getMaxWait();
+    long deadline = maxWait > 0 ? nanoTime() + MILLISECONDS.toNanos(maxWait) : 0;
+
+    while (true) {
+      PooledConnection<C> pooled = claimIdle();
+      if (pooled == null) {
+        if (reserveSlot()) {
+          return create();
+        }
+
+        int exhaustedAction = poolingProfile.getExhaustedAction();
+        if (exhaustedAction == WHEN_EXHAUSTED_GROW) {
+          totalCount.incrementAndGet();
+          return create();
+        } else if (exhaustedAction == WHEN_EXHAUSTED_FAIL) {
+          throw new ConnectionException("Connection pool is exhausted, maxActive is " + getActiveLimit());
+        }
+
+        pooled = await(deadline);
+        if (pooled == null) {
+          continue;
+        }
+      }
+
+      if (isValidForBorrow(pooled)) {
+        return pooled;
+      }
+      destroy(pooled);
+    }
+  }
+
+  private CompletableFuture<PooledConnection<C>> acquireAsync(long deadline) {
+    PooledConnection<C> pooled;
+    while ((pooled = claimIdle()) != null) {
+      if (isValidForBorrow(pooled)) {
+        return CompletableFuture.completedFuture(pooled);
+      }
+      destroy(pooled);
+    }
+
+    if (reserveSlot()) {
+      return createAsync();
+    }
+
+    int exhaustedAction = poolingProfile.getExhaustedAction();
+    if (exhaustedAction == WHEN_EXHAUSTED_GROW) {
+      totalCount.incrementAndGet();
+      return createAsync();
+    } else if (exhaustedAction == WHEN_EXHAUSTED_FAIL) {
+      return failedFuture(new ConnectionException("Connection pool is exhausted, maxActive is " + getActiveLimit()));
+    }
+
+    // resumed on the connect executor, so that validating the handed over connection doesn't run on the releasing thread
+    return enqueueWaiter(deadline).thenComposeAsync(handedOver -> {
+      if (handedOver == null) {
+        return acquireAsync(deadline);
+      } else if (isValidForBorrow(handedOver)) {
+        return CompletableFuture.completedFuture(handedOver);
+      }
+
+      destroy(handedOver);
+      return acquireAsync(deadline);
+    }, connectExecutor);
+  }
+
+  private CompletableFuture<PooledConnection<C>> enqueueWaiter(long deadline) {
+    CompletableFuture<PooledConnection<C>> waiter = new CompletableFuture<>();
+    waiters.add(waiter);
+
+    if (closed.get()) {
+      waiter.completeExceptionally(new ConnectionException("Connection pool has been closed"));
+    }
+
+    // a connection could have been returned or destroyed before this waiter was queued
+    PooledConnection<C> pooled = claimIdle();
+    if (pooled != null) {
+      if (!waiter.complete(pooled)) {
+        returnConnection(pooled);
+      }
+    } else if (hasFreeSlot()) {
+      waiter.complete(null);
+    }
+
+    if (deadline > 0 && !waiter.isDone()) {
+      ScheduledFuture<?> timeout = timer.schedule(() -> {
+        if (waiter.completeExceptionally(new ConnectionException("Timeout waiting for a connection, maxWait is "
+            + poolingProfile.getMaxWait() + " ms"))) {
+          waiters.remove(waiter);
+          onTimeout();
+        }
+      }, deadline - nanoTime(), NANOSECONDS);
+      waiter.whenComplete((handedOver, e) -> timeout.cancel(false));
+    }
+
+    return waiter;
+  }
+
+  private CompletableFuture<PooledConnection<C>> createAsync() {
+    CompletableFuture<C> connecting;
+    try {
+      connecting = connectionProvider.connectAsync(connectExecutor);
+    } catch (Exception e) {
+      connecting = failedFuture(e);
+    }
+
+    return connecting.handle((connection, e) -> {
+      if (e != null) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        connectFailed();
+        throw new CompletionException(cause instanceof ConnectionException ? cause
+            : new ConnectionException("Could not create connection", cause));
+      }
+
+      return register(connection);
+    });
+  }
+
+  private PooledConnection<C> claimIdle() {
+    PooledConnection<C> pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      if (claim(pooled, IN_USE)) {
+        return pooled;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Moves an {@link #IDLE} connection to the given state. Callers which didn't poll the connection from
+   * {@link #idle} are responsible for removing it from there.
+   *
+   * @return whether the connection was still idle
+   */
+  private boolean claim(PooledConnection<C> pooled, int state) {
+    if (pooled.state.compareAndSet(IDLE, state)) {
+      idleCount.decrementAndGet();
+      if (state == IN_USE) {
+        activeCount.incrementAndGet();
+      }
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Waits until a connection is handed over by a returning borrower or a slot is freed.
+   *
+   * @return the handed over connection or {@code null} if a slot was freed and the borrower should try again
+   */
+  private PooledConnection<C> await(long deadline) throws ConnectionException {
+    CompletableFuture<PooledConnection<C>> waiter = enqueueWaiter(0);
+
+    try {
+      return deadline > 0 ? waiter.get(deadline - nanoTime(), NANOSECONDS) : waiter.get();
+    } catch (TimeoutException e) {
+      if (waiter.cancel(false)) {
+        onTimeout();
+        throw new ConnectionException("Timeout waiting for a connection, maxWait is " + poolingProfile.getMaxWait() + " ms");
+      }
+      return waiter.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      if (!waiter.cancel(false) && !waiter.isCompletedExceptionally()) {
+        PooledConnection<C> pooled = waiter.join();
+        if (pooled != null) {
+          returnConnection(pooled);
+        }
+      }
+      throw new ConnectionException("Interrupted while waiting for a connection", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ConnectionException) {
+        throw (ConnectionException) e.getCause();
+      }
+      throw new ConnectionException(e.getCause());
+    } finally {
+      waiters.remove(waiter);
+    }
+  }
+
+  /**
+   * @return the maximum amount of connections, either fixed or adapted. Non positive values mean no limit
+   */
+  private int getActiveLimit() {
+    return adaptiveLimit != null ? adaptiveLimit.getLimit() : poolingProfile.getMaxActive();
+  }
+
+  private boolean reserveSlot() {
+    int maxActive = getActiveLimit();
+    if (maxActive <= 0) {
+      totalCount.incrementAndGet();
+      return true;
+    }
+
+    int total;
+    do {
+      total = totalCount.get();
+      if (total >= maxActive) {
+        return false;
+      }
+    } while (!totalCount.compareAndSet(total, total + 1));
+
+    return true;
+  }
+
+  private boolean hasFreeSlot() {
+    int maxActive = getActiveLimit();
+    return maxActive <= 0 || totalCount.get() < maxActive;
+  }
+
+  private PooledConnection<C> create() throws ConnectionException {
+    C connection;
+    try {
+      connection = connectionProvider.connect();
+    } catch (Exception e) {
+      connectFailed();
+      if (e instanceof ConnectionException) {
+        throw (ConnectionException) e;
+      }
+      throw new ConnectionException("Could not create connection", e);
+    }
+
+    return register(connection);
+  }
+
+  private PooledConnection<C> register(C connection) {
+    PooledConnection<C> pooled = new PooledConnection<>(connection);
+    activeCount.incrementAndGet();
+
+    metrics.onCreated();
+    try {
+      poolingListener.onConnectionCreated(connection);
+    } catch (Exception e) {
+      LOGGER.debug("Pooling listener failed on connection created", e);
+    }
+
+    return pooled;
+  }
+
+  private void connectFailed() {
+    if (adaptiveLimit != null) {
+      adaptiveLimit.onDropped();
+    }
+    totalCount.decrementAndGet();
+    signalFreeSlot();
+  }
+
+  private boolean isValidForBorrow(PooledConnection<C> pooled) {
+    long now = nanoTime();
+    if (!validationPolicy.requiresValidation(pooled.lastValidated, pooled.suspect, now)) {
+      return true;
+    }
+
+    long validationWindow = backgroundValidationNanos;
+    if (!pooled.suspect && validationWindow > 0
+        && now - max(pooled.lastReturned, pooled.lastValidated) < validationWindow) {
+      return true;
+    }
+
+    return isValid(pooled);
+  }
+
+  private boolean isValid(PooledConnection<C> pooled) {
+    ConnectionValidationResult result;
+    try {
+      result = connectionProvider.validate(pooled.connection);
+      if (result != null && result.isValid()) {
+        pooled.lastValidated = nanoTime();
+        pooled.suspect = false;
+        return true;
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Exception found validating pooled connection", e);
+      result = failure("Exception found validating pooled connection", e);
+    }
+
+    metrics.onValidationFailure(result);
+    try {
+      poolingListener.onValidationFailure(pooled.connection, result);
+    } catch (Exception e) {
+      LOGGER.debug("Pooling listener failed on validation failure", e);
+    }
+
+    return false;
+  }
+
+  private void onTimeout() {
+    metrics.onTimeout();
+    try {
+      poolingListener.onBorrowTimeout();
+    } catch (Exception e) {
+      LOGGER.debug("Pooling listener failed on borrow timeout", e);
+    }
+  }
+
+  /**
+   * Returns a connection which is {@link #IN_USE} to the pool, handing it over to a waiting borrower if any.
+   */
+  private void returnConnection(PooledConnection<C> pooled) {
+    while (true) {
+      // the connection is not kept if the pool is closed or has to shrink because its adaptive limit was lowered
+      if (closed.get() || (adaptiveLimit != null && totalCount.get() > adaptiveLimit.getLimit())) {
+        destroy(pooled);
+        return;
+      }
+
+      CompletableFuture<PooledConnection<C>> waiter;
+      while ((waiter = waiters.poll()) != null) {
+        if (waiter.complete(pooled)) {
+          return;
+        }
+      }
+
+      int maxIdle = poolingProfile.getMaxIdle();
+      if (maxIdle >= 0 && idleCount.get() >= maxIdle) {
+        destroy(pooled);
+        return;
+      }
+
+      pooled.lastReturned = nanoTime();
+      activeCount.decrementAndGet();
+      makeIdle(pooled, IN_USE);
+
+      // a borrower could have been queued before the connection became idle
+      if (waiters.isEmpty() || !claim(pooled, IN_USE)) {
+        return;
+      }
+      idle.removeFirstOccurrence(pooled);
+    }
+  }
+
+  /**
+   * Moves a connection which is either {@link #IN_USE} or {@link #VALIDATING} back into the deque of idle ones,
+   * disconnecting it instead if the pool was closed in the meantime.
+   */
+  private void makeIdle(PooledConnection<C> pooled, int state) {
+    idleCount.incrementAndGet();
+    if (!pooled.state.compareAndSet(state, IDLE)) {
+      idleCount.decrementAndGet();
+      return;
+    }
+    idle.offerFirst(pooled);
+
+    // close() could have drained the deque before the connection was put back into it
+    if (closed.get() && claim(pooled, REMOVED)) {
+      idle.removeFirstOccurrence(pooled);
+      disconnect(pooled);
+    }
+  }
+
+  /**
+   * Disconnects a connection which is {@link #IN_USE} and frees its slot.
+   */
+  private void destroy(PooledConnection<C> pooled) {
+    if (pooled.state.getAndSet(REMOVED) == IN_USE) {
+      activeCount.decrementAndGet();
+    }
+    disconnect(pooled);
+  }
+
+  private void disconnect(PooledConnection<C> pooled) {
+    totalCount.decrementAndGet();
+
+    try {
+      connectionProvider.disconnect(pooled.connection);
+    } catch (Exception e) {
+      LOGGER.warn("Exception found disconnecting pooled connection", e);
+    }
+
+    metrics.onDestroyed();
+    try {
+      poolingListener.onConnectionDestroyed(pooled.connection);
+    } catch (Exception e) {
+      LOGGER.debug("Pooling listener failed on connection destroyed", e);
+    }
+
+    signalFreeSlot();
+  }
+
+  private void signalFreeSlot() {
+    CompletableFuture<PooledConnection<C>> waiter;
+    while ((waiter = waiters.poll()) != null) {
+      if (waiter.complete(null)) {
+        return;
+      }
+    }
+  }
+
+  private void maintain() {
+    try {
+      if (poolingProfile.getMinEvictionMillis() > 0) {
+        evictIdleConnections();
+      }
+      validateIdleConnections();
+      prewarm();
+    } catch (Exception e) {
+      // an exception would prevent any further execution of this task
+      LOGGER.warn("Exception found performing connection pool maintenance", e);
+    }
+  }
+
+  private void evictIdleConnections() {
+    long minIdleNanos = MILLISECONDS.toNanos(poolingProfile.getMinEvictionMillis());
+    long now = nanoTime();
+    for (Iterator<PooledConnection<C>> it = idle.iterator(); it.hasNext() && !closed.get();) {
+      PooledConnection<C> pooled = it.next();
+      if (now - pooled.lastReturned >= minIdleNanos && claim(pooled, REMOVED)) {
+        it.remove();
+        disconnect(pooled);
+      }
+    }
+  }
+
+  private void validateIdleConnections() {
+    // a snapshot, since the connections which pass validation are put back into the deque
+    for (PooledConnection<C> pooled : new ArrayList<>(idle)) {
+      if (closed.get()) {
+        return;
+      }
+
+      // connections being validated are out of the deque, so borrowers skip them same as if they were in use
+      if (!claim(pooled, VALIDATING)) {
+        continue;
+      }
+      idle.removeFirstOccurrence(pooled);
+
+      if (!isValid(pooled)) {
+        if (pooled.state.compareAndSet(VALIDATING, REMOVED)) {
+          disconnect(pooled);
+        }
+        continue;
+      }
+
+      makeIdle(pooled, VALIDATING);
+
+      // a borrower could have been queued while the connection was being validated
+      if (!waiters.isEmpty() && claim(pooled, IN_USE)) {
+        idle.removeFirstOccurrence(pooled);
+        returnConnection(pooled);
+      }
+    }
+  }
+
+  private void prewarm() {
+    int missing = poolingProfile.getMinIdle() - getNumIdle();
+    for (int i = 0; i < missing && !closed.get() && reserveSlot(); i++) {
+      createAsync().whenComplete((pooled, e) -> {
+        if (e != null) {
+          LOGGER.warn("Could not pre-warm connection pool", e.getCause() != null ? e.getCause() : e);
+        } else {
+          returnConnection(pooled);
+        }
+      });
+    }
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(e);
+    return future;
+  }
+
+  private void checkNotClosed() throws ConnectionException {
+    if (closed.get()) {
+      throw new ConnectionException("Connection pool has been closed");
+    }
+  }
+
+  private static final class PooledConnection<C> {
+
+    private final C connection;
+    private final AtomicInteger state = new AtomicInteger(IN_USE);
+    private volatile long lastReturned = nanoTime();
+    private volatile long lastValidated = lastReturned;
+    private volatile long borrowedAt = lastReturned;
+    private volatile boolean suspect = false;
+
+    private PooledConnection(C connection) {
+      this.connection = connection;
+    }
+  }
+
+  private final class PooledConnectionHandler implements ConnectionHandler<C> {
+
+    private final PooledConnection<C> pooled;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    private PooledConnectionHandler(PooledConnection<C> pooled) {
+      this.pooled = pooled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public C getConnection() throws ConnectionException {
+      if (released.get()) {
+        throw new ConnectionException("Connection has already been released");
+      }
+      return pooled.connection;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release() {
+      if (!released.compareAndSet(false, true)) {
+        return;
+      }
+
+      if (adaptiveLimit != null) {
+        adaptiveLimit.onSample(nanoTime() - pooled.borrowedAt, activeCount.get());
+      }
+
+      try {
+        poolingListener.onReturn(pooled.connection);
+      } catch (Exception e) {
+        LOGGER.debug("Pooling listener failed on return, the connection will be invalidated", e);
+        destroy(pooled);
+        return;
+      }
+
+      returnConnection(pooled);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(ErrorType errorType) {
+      if (!released.get() && isConnectivityError(errorType)) {
+        pooled.suspect = true;
+      }
+      release();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate() {
+      if (released.compareAndSet(false, true)) {
+        destroy(pooled);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.connection.ConnectionPool;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.PoolingListener;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Default implementation of {@link ConnectionPool.Builder}, which builds instances of {@link DefaultConnectionPool}.
+ *
+ * @param <C> the generic type of the pooled connections
+ * @since 1.0
+ */
+public final class DefaultConnectionPoolBuilder<C> implements ConnectionPool.Builder<C> {
+
+  private final ConnectionProvider<C> connectionProvider;
+  private PoolingProfile poolingProfile = new PoolingProfile();
+  private PoolingListener<C> poolingListener;
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionProvider the provider which creates, validates and disconnects the pooled connections
+   */
+  public DefaultConnectionPoolBuilder(ConnectionProvider<C> connectionProvider) {
+    checkArgument(connectionProvider != null, "connectionProvider cannot be null");
+    this.connectionProvider = connectionProvider;
+    if (connectionProvider instanceof PoolingListener) {
+      poolingListener = (PoolingListener<C>) connectionProvider;
+    } else {
+      poolingListener = new PoolingListener<C>() {};
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionPool.Builder<C> poolingProfile(PoolingProfile poolingProfile) {
+    checkArgument(poolingProfile != null, "poolingProfile cannot be null");
+    this.poolingProfile = poolingProfile;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionPool.Builder<C> poolingListener(PoolingListener<C> poolingListener) {
+    checkArgument(poolingListener != null, "poolingListener cannot be null");
+    this.poolingListener = poolingListener;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionPool.Builder<C> scheduler(ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionPool<C> build() {
+    return new DefaultConnectionPool<>(connectionProvider, new PoolingProfile(poolingProfile), poolingListener, scheduler);
+  }
+}
@@ -0,0 +1,529 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_FAIL;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_GROW;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import static org.mule.runtime.internal.connection.ValidationPolicy.isConnectivityError;
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.connection.KeyedConnectionPool;
+import org.mule.runtime.api.connection.KeyedConnectionProvider;
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link KeyedConnectionPool}.
+ * <p>
+ * Each key has a {@link KeyPool} holding its idle connections in a deque, most recently returned first. Borrowers
+ * take from the head, so a key's hottest connections are the ones reused, while the tail of each deque holds the
+ * key's least recently used connection. Making room under the global cap is then a matter of comparing the tails of
+ * all the deques, which only happens once the cap is reached.
+ * <p>
+ * As in {@link DefaultConnectionPool}, each connection holds its state in an atomic field, so claiming or evicting an
+ * idle connection is a compare-and-set and the fast paths don't take any lock. Counters are reserved the same way
+ * before creating a connection. A {@link KeyPool} which no longer holds any connection is retired by moving its
+ * counter to a negative value, which makes late borrowers fetch a fresh one.
+ * <p>
+ * Idle connections are validated before being borrowed according to the
+ * {@link PoolingProfile#getValidationPolicy() validation policy}, same as in {@link DefaultConnectionPool}.
+ * <p>
+ * Borrowers which have to wait for a connection park on a single condition, which is only signalled if there's
+ * someone waiting.
+ *
+ * @param <K> the generic type of the keys
+ * @param <C> the generic type of the pooled connections
+ * @since 1.0
+ */
+public final class DefaultKeyedConnectionPool<K, C> implements KeyedConnectionPool<K, C> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultKeyedConnectionPool.class);
+
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int REMOVED = 2;
+  private static final int RETIRED = -1;
+
+  private final KeyedConnectionProvider<K, C> connectionProvider;
+  private final PoolingProfile poolingProfile;
+  private final int maxTotal;
+  private final ValidationPolicy validationPolicy;
+
+  private final ConcurrentMap<K, KeyPool> pools = new ConcurrentHashMap<>();
+  private final AtomicInteger totalCount = new AtomicInteger(0);
+  private final AtomicInteger idleCount = new AtomicInteger(0);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+  private final AtomicInteger waiting = new AtomicInteger(0);
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionProvider the provider which creates, validates and disconnects the pooled connections
+   * @param poolingProfile     the profile which drives the sub pool of each key
+   * @param maxTotal           the maximum amount of connections across all the keys. Non positive means no limit
+   */
+  DefaultKeyedConnectionPool(KeyedConnectionProvider<K, C> connectionProvider, PoolingProfile poolingProfile,
+                             int maxTotal) {
+    this.connectionProvider = connectionProvider;
+    this.poolingProfile = poolingProfile;
+    this.maxTotal = maxTotal;
+    this.validationPolicy = new ValidationPolicy(poolingProfile);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionHandler<C> borrow(K key) throws ConnectionException {
+    checkArgument(key != null, "key cannot be null");
+    long maxWait = poolingProfile.getMaxWait();
+    long deadline = maxWait > 0 ? nanoTime() + MILLISECONDS.toNanos(maxWait) : 0;
+
+    while (true) {
+      checkNotClosed();
+      KeyPool pool = pools.computeIfAbsent(key, KeyPool::new);
+
+      PooledEntry<C> entry;
+      while ((entry = pool.claimIdle()) != null) {
+        if (isValid(pool, entry)) {
+          return new KeyedConnectionHandler(pool, entry);
+        }
+        destroy(pool, entry);
+      }
+
+      // growing only lifts the per key cap, the global one still applies
+      int exhaustedAction = poolingProfile.getExhaustedAction();
+      if (pool.reserve(exhaustedAction == WHEN_EXHAUSTED_GROW ? 0 : poolingProfile.getMaxActive())) {
+        if (reserveGlobal()) {
+          return new KeyedConnectionHandler(pool, create(pool));
+        }
+        releaseSlot(pool);
+      } else if (pool.isRetired()) {
+        continue;
+      }
+
+      if (exhaustedAction == WHEN_EXHAUSTED_FAIL) {
+        throw new ConnectionException("Connection pool is exhausted for key '" + key + "', maxActive is "
+            + poolingProfile.getMaxActive() + " and maxTotal is " + maxTotal);
+      } else {
+        await(pool, deadline);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumActive() {
+    return max(0, totalCount.get() - idleCount.get());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumIdle() {
+    return idleCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumActive(K key) {
+    KeyPool pool = pools.get(key);
+    return pool != null ? max(0, pool.total.get() - pool.idleCount.get()) : 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumIdle(K key) {
+    KeyPool pool = pools.get(key);
+    return pool != null ? pool.idleCount.get() : 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clear(K key) {
+    KeyPool pool = pools.get(key);
+    if (pool != null) {
+      clear(pool);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    for (KeyPool pool : pools.values()) {
+      clear(pool);
+    }
+    signalWaiters();
+  }
+
+  private void clear(KeyPool pool) {
+    PooledEntry<C> entry;
+    while ((entry = pool.claimIdle()) != null) {
+      destroy(pool, entry);
+    }
+  }
+
+  /**
+   * Reserves a slot under the global cap, making room for it by evicting the least recently used idle connection
+   * of all the keys if necessary
+   *
+   * @return whether the slot was reserved
+   */
+  private boolean reserveGlobal() {
+    if (maxTotal <= 0) {
+      totalCount.incrementAndGet();
+      return true;
+    }
+
+    while (true) {
+      int total = totalCount.get();
+      if (total < maxTotal) {
+        if (totalCount.compareAndSet(total, total + 1)) {
+          return true;
+        }
+      } else if (!evictLeastRecentlyUsed()) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * @return whether an idle connection was evicted
+   */
+  private boolean evictLeastRecentlyUsed() {
+    while (true) {
+      KeyPool victimPool = null;
+      PooledEntry<C> victim = null;
+      for (KeyPool pool : pools.values()) {
+        PooledEntry<C> oldest = pool.oldestIdle();
+        if (oldest != null && (victim == null || oldest.lastReturned - victim.lastReturned < 0)) {
+          victimPool = pool;
+          victim = oldest;
+        }
+      }
+
+      if (victim == null) {
+        return false;
+      }
+
+      // if another thread claimed the victim in the meantime, look again
+      if (victimPool.claim(victim, REMOVED)) {
+        victimPool.idle.remove(victim);
+        destroy(victimPool, victim);
+        return true;
+      }
+    }
+  }
+
+  private PooledEntry<C> create(KeyPool pool) throws ConnectionException {
+    try {
+      return new PooledEntry<>(connectionProvider.connect(pool.key));
+    } catch (ConnectionException | RuntimeException e) {
+      totalCount.decrementAndGet();
+      releaseSlot(pool);
+      signalWaiters();
+      throw e;
+    }
+  }
+
+  private boolean isValid(KeyPool pool, PooledEntry<C> entry) {
+    if (!validationPolicy.requiresValidation(entry.lastValidated, entry.suspect, nanoTime())) {
+      return true;
+    }
+
+    try {
+      ConnectionValidationResult result = connectionProvider.validate(pool.key, entry.connection);
+      if (result != null && result.isValid()) {
+        entry.lastValidated = nanoTime();
+        entry.suspect = false;
+        return true;
+      }
+      return false;
+    } catch (Exception e) {
+      LOGGER.debug("Exception found validating pooled connection for key '{}'", pool.key, e);
+      return false;
+    }
+  }
+
+  private void returnConnection(KeyPool pool, PooledEntry<C> entry) {
+    int maxIdle = poolingProfile.getMaxIdle();
+    if (closed.get() || (maxIdle >= 0 && pool.idleCount.get() >= maxIdle)) {
+      destroy(pool, entry);
+      return;
+    }
+
+    entry.lastReturned = nanoTime();
+    pool.idleCount.incrementAndGet();
+    idleCount.incrementAndGet();
+    entry.state.set(IDLE);
+    pool.idle.offerFirst(entry);
+
+    // the pool could have been closed before the connection became idle
+    if (closed.get()) {
+      clear(pool);
+    }
+    signalWaiters();
+  }
+
+  private void destroy(KeyPool pool, PooledEntry<C> entry) {
+    entry.state.set(REMOVED);
+    totalCount.decrementAndGet();
+    releaseSlot(pool);
+    signalWaiters();
+
+    try {
+      connectionProvider.disconnect(pool.key, entry.connection);
+    } catch (Exception e) {
+      LOGGER.warn("Exception found disconnecting pooled connection for key '{}'", pool.key, e);
+    }
+  }
+
+  /**
+   * Frees a slot of the given {@code pool}, retiring it if it no longer holds any connection
+   */
+  private void releaseSlot(KeyPool pool) {
+    if (pool.total.decrementAndGet() == 0 && pool.total.compareAndSet(0, RETIRED)) {
+      pools.remove(pool.key, pool);
+    }
+  }
+
+  private void await(KeyPool pool, long deadline) throws ConnectionException {
+    lock.lock();
+    waiting.incrementAndGet();
+    try {
+      // a connection could have been freed since the pool was found exhausted
+      if (closed.get() || hasCapacity(pool)) {
+        return;
+      }
+
+      if (deadline == 0) {
+        available.await();
+      } else {
+        long remaining = deadline - nanoTime();
+        if (remaining <= 0 || available.awaitNanos(remaining) <= 0) {
+          throw new ConnectionException("Timeout waiting for a connection for key '" + pool.key + "', maxWait is "
+              + poolingProfile.getMaxWait() + " ms");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectionException("Interrupted while waiting for a connection for key '" + pool.key + "'", e);
+    } finally {
+      waiting.decrementAndGet();
+      lock.unlock();
+    }
+  }
+
+  private boolean hasCapacity(KeyPool pool) {
+    int maxActive = poolingProfile.getMaxActive();
+    int total = pool.total.get();
+    if (pool.idleCount.get() > 0) {
+      return true;
+    }
+    // a retired pool is replaced by an empty one, but that one still has to fit under the global cap
+    boolean keyCapacity = total < 0 || maxActive <= 0 || total < maxActive
+        || poolingProfile.getExhaustedAction() == WHEN_EXHAUSTED_GROW;
+    return keyCapacity && (maxTotal <= 0 || totalCount.get() < maxTotal || idleCount.get() > 0);
+  }
+
+  private void signalWaiters() {
+    if (waiting.get() > 0) {
+      lock.lock();
+      try {
+        available.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void checkNotClosed() throws ConnectionException {
+    if (closed.get()) {
+      throw new ConnectionException("Connection pool has been closed");
+    }
+  }
+
+  /**
+   * The connections of one key
+   */
+  private final class KeyPool {
+
+    private final K key;
+    private final Deque<PooledEntry<C>> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger(0);
+
+    /**
+     * The amount of connections of the key, either borrowed, idle or being created. {@link #RETIRED} once the key
+     * pool has been discarded
+     */
+    private final AtomicInteger total = new AtomicInteger(0);
+
+    private KeyPool(K key) {
+      this.key = key;
+    }
+
+    private PooledEntry<C> claimIdle() {
+      PooledEntry<C> entry;
+      while ((entry = idle.pollFirst()) != null) {
+        if (claim(entry, IN_USE)) {
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    private PooledEntry<C> oldestIdle() {
+      Iterator<PooledEntry<C>> iterator = idle.descendingIterator();
+      while (iterator.hasNext()) {
+        PooledEntry<C> entry = iterator.next();
+        if (entry.state.get() == IDLE) {
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Moves an idle connection to the given state
+     *
+     * @return whether the connection was still idle
+     */
+    private boolean claim(PooledEntry<C> entry, int state) {
+      if (entry.state.compareAndSet(IDLE, state)) {
+        idleCount.decrementAndGet();
+        DefaultKeyedConnectionPool.this.idleCount.decrementAndGet();
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Reserves a slot for a new connection
+     *
+     * @param maxActive the key's cap. Non positive means no limit
+     * @return whether the slot was reserved
+     */
+    private boolean reserve(int maxActive) {
+      int current;
+      do {
+        current = total.get();
+        if (current < 0 || (maxActive > 0 && current >= maxActive)) {
+          return false;
+        }
+      } while (!total.compareAndSet(current, current + 1));
+
+      return true;
+    }
+
+    private boolean isRetired() {
+      return total.get() < 0;
+    }
+  }
+
+  private static final class PooledEntry<C> {
+
+    private final C connection;
+    private final AtomicInteger state = new AtomicInteger(IN_USE);
+    private volatile long lastReturned;
+    private volatile long lastValidated = nanoTime();
+    private volatile boolean suspect = false;
+
+    private PooledEntry(C connection) {
+      this.connection = connection;
+    }
+  }
+
+  private final class KeyedConnectionHandler implements ConnectionHandler<C> {
+
+    private final KeyPool pool;
+    private final PooledEntry<C> entry;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    private KeyedConnectionHandler(KeyPool pool, PooledEntry<C> entry) {
+      this.pool = pool;
+      this.entry = entry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public C getConnection() throws ConnectionException {
+      if (released.get()) {
+        throw new ConnectionException("Connection has already been released");
+      }
+      return entry.connection;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        returnConnection(pool, entry);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(ErrorType errorType) {
+      if (!released.get() && isConnectivityError(errorType)) {
+        entry.suspect = true;
+      }
+      release();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate() {
+      if (released.compareAndSet(false, true)) {
+        destroy(pool, entry);
+      }
+    }
+  }
+}
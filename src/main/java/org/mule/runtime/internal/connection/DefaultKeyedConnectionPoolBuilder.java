@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.connection.KeyedConnectionPool;
+import org.mule.runtime.api.connection.KeyedConnectionProvider;
+
+/**
+ * Default implementation of {@link KeyedConnectionPool.Builder}, which builds instances of
+ * {@link DefaultKeyedConnectionPool}.
+ *
+ * @param <K> the generic type of the keys
+ * @param <C> the generic type of the pooled connections
+ * @since 1.0
+ */
+public final class DefaultKeyedConnectionPoolBuilder<K, C> implements KeyedConnectionPool.Builder<K, C> {
+
+  private final KeyedConnectionProvider<K, C> connectionProvider;
+  private PoolingProfile poolingProfile = new PoolingProfile();
+  private int maxTotal = 0;
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionProvider the provider which creates, validates and disconnects the pooled connections
+   */
+  public DefaultKeyedConnectionPoolBuilder(KeyedConnectionProvider<K, C> connectionProvider) {
+    checkArgument(connectionProvider != null, "connectionProvider cannot be null");
+    this.connectionProvider = connectionProvider;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KeyedConnectionPool.Builder<K, C> poolingProfile(PoolingProfile poolingProfile) {
+    checkArgument(poolingProfile != null, "poolingProfile cannot be null");
+    this.poolingProfile = poolingProfile;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KeyedConnectionPool.Builder<K, C> maxTotal(int maxTotal) {
+    this.maxTotal = maxTotal;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KeyedConnectionPool<K, C> build() {
+    return new DefaultKeyedConnectionPool<>(connectionProvider, new PoolingProfile(poolingProfile), maxTotal);
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.lang.Math.max;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.MultiplexedConnectionManager;
+import org.mule.runtime.api.connection.MultiplexedConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link MultiplexedConnectionManager}.
+ * <p>
+ * Each connection is tracked through a {@link SharedConnection}, which counts the streams it's carrying in an atomic
+ * field. Taking a stream is a compare-and-set on that counter, so assigning operations to connections doesn't require
+ * any lock. Once a connection is broken and its last stream released, its counter is moved to a negative value, which
+ * prevents any stream from being taken from it ever again and makes sure it's disconnected only once.
+ * <p>
+ * New connections are added to the set before they're actually connected, so that the operations which arrive in the
+ * meantime are assigned to them and wait for the connection to be established, instead of each one creating another
+ * connection.
+ *
+ * @param <C> the generic type of the shared connections
+ * @since 1.0
+ */
+public final class DefaultMultiplexedConnectionManager<C> implements MultiplexedConnectionManager<C> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultMultiplexedConnectionManager.class);
+  private static final int DISCONNECTED = -1;
+
+  private final MultiplexedConnectionProvider<C> connectionProvider;
+  private final int maxStreams;
+  private final int maxConnections;
+
+  private final List<SharedConnection> connections = new CopyOnWriteArrayList<>();
+  private final AtomicInteger connectionsCount = new AtomicInteger(0);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionProvider the provider which creates and disconnects the shared connections
+   */
+  public DefaultMultiplexedConnectionManager(MultiplexedConnectionProvider<C> connectionProvider) {
+    checkArgument(connectionProvider != null, "connectionProvider cannot be null");
+    this.connectionProvider = connectionProvider;
+    maxStreams = connectionProvider.getMaxConcurrentStreams() > 0 ? connectionProvider.getMaxConcurrentStreams()
+        : Integer.MAX_VALUE;
+    maxConnections = max(1, connectionProvider.getMaxConnections());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionHandler<C> acquire() throws ConnectionException {
+    while (true) {
+      if (closed.get()) {
+        throw new ConnectionException("Connection manager has been closed");
+      }
+
+      SharedConnection selected = leastLoaded();
+      if (selected != null) {
+        if (selected.tryAcquireStream()) {
+          return new SharedConnectionHandler(selected, awaitConnection(selected));
+        }
+        continue;
+      }
+
+      if (reserveConnection()) {
+        SharedConnection created = new SharedConnection();
+        connections.add(created);
+        C connection = connect(created);
+
+        // close() could have gone through the connections before this one was added or while it was being established
+        if (closed.get()) {
+          discard(created);
+          releaseStream(created);
+          throw new ConnectionException("Connection manager has been closed");
+        }
+        return new SharedConnectionHandler(created, connection);
+      }
+
+      throw new ConnectionException("All the " + maxConnections + " shared connections are carrying " + maxStreams
+          + " concurrent operations");
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getConnectionsCount() {
+    return connectionsCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getActiveStreamsCount() {
+    int streams = 0;
+    for (SharedConnection shared : connections) {
+      streams += max(0, shared.streams.get());
+    }
+
+    return streams;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    for (SharedConnection shared : connections) {
+      discard(shared);
+      if (shared.streams.compareAndSet(0, DISCONNECTED)) {
+        disconnect(shared);
+      }
+    }
+  }
+
+  private SharedConnection leastLoaded() {
+    SharedConnection selected = null;
+    int selectedStreams = maxStreams;
+    for (SharedConnection shared : connections) {
+      int streams = shared.streams.get();
+      if (!shared.broken && streams >= 0 && streams < selectedStreams) {
+        selected = shared;
+        selectedStreams = streams;
+      }
+    }
+
+    return selected;
+  }
+
+  private boolean reserveConnection() {
+    int count;
+    do {
+      count = connectionsCount.get();
+      if (count >= maxConnections) {
+        return false;
+      }
+    } while (!connectionsCount.compareAndSet(count, count + 1));
+
+    return true;
+  }
+
+  private C connect(SharedConnection shared) throws ConnectionException {
+    try {
+      C connection = connectionProvider.connect();
+      shared.connection.complete(connection);
+      return connection;
+    } catch (ConnectionException | RuntimeException e) {
+      discard(shared);
+      shared.streams.set(DISCONNECTED);
+      shared.connection.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private C awaitConnection(SharedConnection shared) throws ConnectionException {
+    try {
+      return shared.connection.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      releaseStream(shared);
+      throw new ConnectionException("Interrupted while waiting for a shared connection to be established", e);
+    } catch (ExecutionException e) {
+      // the stream was taken before the connection failed, so the counter might not be terminal yet
+      releaseStream(shared);
+      if (e.getCause() instanceof ConnectionException) {
+        throw (ConnectionException) e.getCause();
+      }
+      throw new ConnectionException("Could not establish shared connection", e.getCause());
+    }
+  }
+
+  /**
+   * Takes {@code shared} out of the set, so that no new streams are assigned to it
+   */
+  private void discard(SharedConnection shared) {
+    shared.broken = true;
+    if (connections.remove(shared)) {
+      connectionsCount.decrementAndGet();
+    }
+  }
+
+  private void releaseStream(SharedConnection shared) {
+    if (shared.streams.decrementAndGet() == 0 && shared.broken && shared.streams.compareAndSet(0, DISCONNECTED)) {
+      disconnect(shared);
+    }
+  }
+
+  private void disconnect(SharedConnection shared) {
+    C connection = shared.connection.getNow(null);
+    if (connection == null || shared.connection.isCompletedExceptionally()) {
+      return;
+    }
+
+    try {
+      connectionProvider.disconnect(connection);
+    } catch (Exception e) {
+      LOGGER.warn("Exception found disconnecting shared connection", e);
+    }
+  }
+
+  private final class SharedConnection {
+
+    private final CompletableFuture<C> connection = new CompletableFuture<>();
+    private final AtomicInteger streams = new AtomicInteger(1);
+    private volatile boolean broken = false;
+
+    private boolean tryAcquireStream() {
+      int current;
+      do {
+        current = streams.get();
+        if (current < 0 || current >= maxStreams) {
+          return false;
+        }
+      } while (!streams.compareAndSet(current, current + 1));
+
+      // the connection could have been broken right before the stream was taken
+      if (broken) {
+        releaseStream(this);
+        return false;
+      }
+
+      return true;
+    }
+  }
+
+  private final class SharedConnectionHandler implements ConnectionHandler<C> {
+
+    private final SharedConnection shared;
+    private final C connection;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    private SharedConnectionHandler(SharedConnection shared, C connection) {
+      this.shared = shared;
+      this.connection = connection;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public C getConnection() throws ConnectionException {
+      if (released.get()) {
+        throw new ConnectionException("Connection has already been released");
+      }
+      return connection;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        releaseStream(shared);
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate() {
+      if (released.compareAndSet(false, true)) {
+        discard(shared);
+        releaseStream(shared);
+      }
+    }
+  }
+}
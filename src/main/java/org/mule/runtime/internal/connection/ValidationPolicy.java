@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.connection;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.runtime.api.config.PoolingProfile.VALIDATE_CACHED;
+import static org.mule.runtime.api.config.PoolingProfile.VALIDATE_ON_ERROR;
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.message.ErrorType;
+
+/**
+ * Decides whether an idle pooled connection has to be validated before being borrowed, according to the
+ * {@link PoolingProfile#getValidationPolicy() validation policy} of a {@link PoolingProfile}.
+ *
+ * @since 1.0
+ */
+final class ValidationPolicy {
+
+  private static final String CONNECTIVITY_ERROR_IDENTIFIER = "CONNECTIVITY";
+
+  private final int policy;
+  private final long ttlNanos;
+
+  ValidationPolicy(PoolingProfile poolingProfile) {
+    policy = poolingProfile.getValidationPolicy();
+    ttlNanos = MILLISECONDS.toNanos(poolingProfile.getValidationTtlMillis());
+  }
+
+  /**
+   * @param lastValidated when the connection was last successfully validated, as given by {@link System#nanoTime()}
+   * @param suspect       whether the last operation performed with the connection failed with a connectivity error
+   * @param now           the current {@link System#nanoTime()}
+   * @return whether the connection has to be validated
+   */
+  boolean requiresValidation(long lastValidated, boolean suspect, long now) {
+    if (suspect) {
+      return true;
+    } else if (policy == VALIDATE_ON_ERROR) {
+      return false;
+    } else if (policy == VALIDATE_CACHED) {
+      return now - lastValidated >= ttlNanos;
+    }
+    return true;
+  }
+
+  /**
+   * @return whether {@code errorType} is, or descends from, a connectivity error
+   */
+  static boolean isConnectivityError(ErrorType errorType) {
+    while (errorType != null) {
+      if (CONNECTIVITY_ERROR_IDENTIFIER.equals(errorType.getIdentifier())) {
+        return true;
+      }
+      errorType = errorType.getParentErrorType();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.metadata;
+
+import org.mule.runtime.api.el.ExpressionFunction;
+import org.mule.runtime.api.metadata.CollectionDataType;
+import org.mule.runtime.api.metadata.DataType;
+import org.mule.runtime.api.metadata.FunctionDataType;
+import org.mule.runtime.api.metadata.MediaType;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+
+/**
+ * Keeps canonical {@link DataType} instances, so that the {@link DataType#fromType(Class)} and
+ * {@link DataType#fromObject(Object)} shortcuts don't create a builder and a new {@link DataType} each time, and so
+ * that equal {@link DataType}s built by different components can share an instance.
+ * <p>
+ * The cache is organized per Java type through a {@link ClassValue}, so it doesn't hold any strong reference to the
+ * cached classes: once a class loader becomes unreachable, its classes and their cached {@link DataType}s can be
+ * collected along with it. Since a {@link CollectionDataType} also references its item type, it's kept with the one of
+ * the two classes which may be unloaded first, and not cached at all when that can't be determined.
+ * <p>
+ * The canonical instances of each class are keyed by their {@link MediaType} and item type, and bounded, given that the
+ * media types may carry parameters with unique values.
+ *
+ * @since 1.0
+ */
+public final class DataTypeCache {
+
+  /**
+   * The maximum amount of canonical instances per class. They're cleared when full.
+   */
+  private static final int MAX_CANONICAL_PER_CLASS = 64;
+
+  private static final ClassValue<ClassEntry> ENTRIES = new ClassValue<ClassEntry>() {
+
+    @Override
+    protected ClassEntry computeValue(Class<?> type) {
+      return new ClassEntry();
+    }
+  };
+
+  private static volatile DataType nullValueDataType;
+
+  private DataTypeCache() {}
+
+  /**
+   * Returns the {@link DataType} for the given {@code type}, creating it through {@code factory} only the first time.
+   *
+   * @param type    the Java type
+   * @param factory the function which creates the {@link DataType} if not yet cached
+   * @return the cached {@link DataType}
+   */
+  public static DataType fromType(Class<?> type, Function<Class<?>, DataType> factory) {
+    ClassEntry entry = ENTRIES.get(type);
+    DataType dataType = entry.fromType;
+    if (dataType == null) {
+      dataType = canonical(factory.apply(type));
+      entry.fromType = dataType;
+    }
+    return dataType;
+  }
+
+  /**
+   * Returns the {@link DataType} for the given {@code value}, creating it through {@code factory} only the first time
+   * a value of the same class is evaluated.
+   * <p>
+   * Values which carry their own media type, such as {@link DataHandler}s and {@link DataSource}s, and
+   * {@link ExpressionFunction}s, are always evaluated through the {@code factory}.
+   *
+   * @param value   the value to get the {@link DataType} of
+   * @param factory the function which creates the {@link DataType} if not yet cached
+   * @return the {@link DataType} for {@code value}
+   */
+  public static DataType fromObject(Object value, Function<Object, DataType> factory) {
+    if (value == null) {
+      DataType dataType = nullValueDataType;
+      if (dataType == null) {
+        dataType = canonical(factory.apply(null));
+        nullValueDataType = dataType;
+      }
+      return dataType;
+    }
+
+    if (value instanceof DataHandler || value instanceof DataSource || value instanceof ExpressionFunction) {
+      return factory.apply(value);
+    }
+
+    ClassEntry entry = ENTRIES.get(value.getClass());
+    DataType dataType = entry.fromObject;
+    if (dataType == null) {
+      dataType = canonical(factory.apply(value));
+      entry.fromObject = dataType;
+    }
+    return dataType;
+  }
+
+  /**
+   * Returns the canonical instance equal to the given {@code dataType}, registering it as such if there's none yet.
+   * {@link FunctionDataType}s are returned as they are.
+   *
+   * @param dataType a {@link DataType}
+   * @return the canonical instance, or {@code dataType} itself
+   */
+  public static DataType canonical(DataType dataType) {
+    if (dataType == null || dataType instanceof FunctionDataType) {
+      return dataType;
+    }
+
+    DataType itemDataType = dataType instanceof CollectionDataType ? ((CollectionDataType) dataType).getItemDataType() : null;
+    Class<?> itemType = itemDataType != null ? itemDataType.getType() : null;
+    Class<?> owner = ownerOf(dataType.getType(), itemType);
+    if (owner == null) {
+      return dataType;
+    }
+
+    Map<Key, DataType> canonicals = ENTRIES.get(owner).canonicals;
+    Key key = new Key(dataType.getType(), dataType.getMediaType(), itemType,
+                      itemDataType != null ? itemDataType.getMediaType() : null);
+    DataType canonical = canonicals.get(key);
+    if (canonical != null && canonical.equals(dataType)) {
+      return canonical;
+    }
+
+    if (canonicals.size() >= MAX_CANONICAL_PER_CLASS) {
+      canonicals.clear();
+    }
+    canonical = canonicals.putIfAbsent(key, dataType);
+    return canonical != null && canonical.equals(dataType) ? canonical : dataType;
+  }
+
+  /**
+   * @return the class in which cache entries referencing both {@code type} and {@code itemType} can be kept without
+   *         preventing the other one from being unloaded, or {@code null} if there's none.
+   */
+  private static Class<?> ownerOf(Class<?> type, Class<?> itemType) {
+    if (itemType == null || itemType == type || itemType.getClassLoader() == null) {
+      return type;
+    }
+    if (type.getClassLoader() == null || type.getClassLoader() == itemType.getClassLoader()) {
+      return itemType;
+    }
+    return null;
+  }
+
+  private static final class ClassEntry {
+
+    private volatile DataType fromType;
+    private volatile DataType fromObject;
+    private final Map<Key, DataType> canonicals = new ConcurrentHashMap<>(4);
+  }
+
+  private static final class Key {
+
+    private final Class<?> type;
+    private final MediaType mediaType;
+    private final Class<?> itemType;
+    private final MediaType itemMediaType;
+    private final int hash;
+
+    private Key(Class<?> type, MediaType mediaType, Class<?> itemType, MediaType itemMediaType) {
+      this.type = type;
+      this.mediaType = mediaType;
+      this.itemType = itemType;
+      this.itemMediaType = itemMediaType;
+      hash = Objects.hash(type, mediaType, itemType, itemMediaType);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return type == other.type && itemType == other.itemType && Objects.equals(mediaType, other.mediaType)
+          && Objects.equals(itemMediaType, other.itemMediaType);
+    }
+  }
+}
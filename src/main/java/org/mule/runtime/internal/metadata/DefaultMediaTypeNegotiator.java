@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.metadata;
+
+import static java.util.Optional.of;
+import static java.util.Optional.ofNullable;
+import org.mule.runtime.api.metadata.MediaType;
+import org.mule.runtime.api.metadata.MediaTypeNegotiator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default implementation of {@link MediaTypeNegotiator}.
+ * <p>
+ * The media ranges are compiled into {@link MediaRange}s, which hold the lower case type and subtype to compare to, or
+ * {@code null} for wildcards. They're kept in an array sorted by decreasing specificity, so the quality of a media type
+ * is the one of the first range matching it. Evaluating the producible media types is then a single pass over them, with
+ * no allocation nor parsing involved.
+ *
+ * @since 1.0
+ */
+public final class DefaultMediaTypeNegotiator implements MediaTypeNegotiator {
+
+  private static final String QUALITY_PARAM = "q";
+  private static final String WILDCARD = "*";
+
+  /**
+   * The maximum amount of cached negotiators. The cache is cleared when full, just like the one of
+   * {@link MediaType#parse(String)}.
+   */
+  private static final int MAX_CACHE_SIZE = 256;
+  private static final Map<String, DefaultMediaTypeNegotiator> NEGOTIATORS = new ConcurrentHashMap<>();
+
+  private static final DefaultMediaTypeNegotiator ACCEPT_ANY =
+      new DefaultMediaTypeNegotiator(new MediaRange[] {new MediaRange(null, null, null, 1)});
+
+  /**
+   * Returns a {@link MediaTypeNegotiator} for the given {@code Accept} header, reusing a cached one if the same header
+   * was already parsed.
+   *
+   * @param acceptHeader the value of the {@code Accept} header
+   * @return a {@link MediaTypeNegotiator}
+   * @throws IllegalArgumentException if the header cannot be parsed
+   */
+  public static MediaTypeNegotiator forAcceptHeader(String acceptHeader) {
+    if (acceptHeader == null) {
+      return ACCEPT_ANY;
+    }
+
+    DefaultMediaTypeNegotiator negotiator = NEGOTIATORS.get(acceptHeader);
+    if (negotiator == null) {
+      negotiator = parse(acceptHeader);
+      if (NEGOTIATORS.size() >= MAX_CACHE_SIZE) {
+        NEGOTIATORS.clear();
+      }
+      NEGOTIATORS.putIfAbsent(acceptHeader, negotiator);
+    }
+    return negotiator;
+  }
+
+  private static DefaultMediaTypeNegotiator parse(String acceptHeader) {
+    List<MediaRange> ranges = new ArrayList<>();
+
+    // splits the list elements, taking into account that the parameter values may be quoted strings holding commas
+    boolean quoted = false;
+    int start = 0;
+    for (int i = 0; i < acceptHeader.length(); i++) {
+      char c = acceptHeader.charAt(i);
+      if (quoted && c == '\\') {
+        i++;
+      } else if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ',' && !quoted) {
+        addRange(acceptHeader, acceptHeader.substring(start, i), ranges);
+        start = i + 1;
+      }
+    }
+    addRange(acceptHeader, acceptHeader.substring(start), ranges);
+
+    if (ranges.isEmpty()) {
+      return ACCEPT_ANY;
+    }
+
+    MediaRange[] sorted = ranges.toArray(new MediaRange[ranges.size()]);
+    // the sort is stable, so ranges with the same specificity keep the order in which they were sent
+    Arrays.sort(sorted, (r1, r2) -> r2.specificity - r1.specificity);
+    return new DefaultMediaTypeNegotiator(sorted);
+  }
+
+  private static void addRange(String acceptHeader, String element, List<MediaRange> ranges) {
+    String trimmed = element.trim();
+    // empty list elements are allowed by the RFC
+    if (trimmed.isEmpty()) {
+      return;
+    }
+
+    MediaType mediaRange;
+    try {
+      mediaRange = MediaType.parse(trimmed);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Accept header cannot be parsed: " + acceptHeader, e);
+    }
+
+    String type = mediaRange.getPrimaryType();
+    String subType = mediaRange.getSubType();
+    String suffix = null;
+    if (WILDCARD.equals(type)) {
+      if (!WILDCARD.equals(subType)) {
+        throw new IllegalArgumentException("Accept header cannot be parsed: " + acceptHeader + ". Media range '"
+            + trimmed + "' has a wildcard type but not a wildcard subtype");
+      }
+      type = null;
+      subType = null;
+    } else if (WILDCARD.equals(subType)) {
+      subType = null;
+    } else if (subType.startsWith("*+")) {
+      suffix = subType.substring(1);
+      subType = null;
+    }
+
+    ranges.add(new MediaRange(type, subType, suffix, parseQuality(acceptHeader, mediaRange.getParameter(QUALITY_PARAM))));
+  }
+
+  /**
+   * Parses a quality value, as defined in <a href="https://tools.ietf.org/html/rfc7231#section-5.3.1">RFC-7231</a>:
+   * either {@code 0} followed by up to three decimals, or {@code 1} followed by up to three zero decimals. Unlike
+   * {@link Double#parseDouble(String)}, this rejects signs, exponents, hexadecimal notation and {@code NaN}.
+   */
+  private static double parseQuality(String acceptHeader, String quality) {
+    if (quality == null) {
+      return 1;
+    }
+
+    int length = quality.length();
+    char integer = length > 0 ? quality.charAt(0) : 0;
+    boolean valid = (integer == '0' || integer == '1') && length <= 5 && (length == 1 || quality.charAt(1) == '.');
+    int thousandths = 0;
+    for (int i = 2; valid && i < 5; i++) {
+      char digit = i < length ? quality.charAt(i) : '0';
+      valid = digit >= '0' && digit <= (integer == '0' ? '9' : '0');
+      thousandths = thousandths * 10 + digit - '0';
+    }
+
+    if (!valid) {
+      throw new IllegalArgumentException("Accept header cannot be parsed: " + acceptHeader + ". Invalid quality '"
+          + quality + "'");
+    }
+    return integer == '1' ? 1 : thousandths / 1000.0;
+  }
+
+  private final MediaRange[] ranges;
+
+  private DefaultMediaTypeNegotiator(MediaRange[] ranges) {
+    this.ranges = ranges;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getQuality(MediaType mediaType) {
+    for (MediaRange range : ranges) {
+      if (range.matches(mediaType)) {
+        return range.quality;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean accepts(MediaType mediaType) {
+    return getQuality(mediaType) > 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Optional<MediaType> select(Collection<MediaType> producible) {
+    MediaType selected = null;
+    double selectedQuality = 0;
+    for (MediaType mediaType : producible) {
+      double quality = getQuality(mediaType);
+      if (quality > selectedQuality) {
+        // nothing can beat it
+        if (quality == 1) {
+          return of(mediaType);
+        }
+        selected = mediaType;
+        selectedQuality = quality;
+      }
+    }
+
+    return ofNullable(selected);
+  }
+
+  /**
+   * A compiled media range of an {@code Accept} header.
+   */
+  private static final class MediaRange {
+
+    private final String type;
+    private final String subType;
+    private final String suffix;
+    private final double quality;
+    private final int specificity;
+
+    /**
+     * @param type    the type to match, or {@code null} for any
+     * @param subType the subtype to match, or {@code null} for any
+     * @param suffix  the structured syntax suffix to match, including the {@code +}, or {@code null} for any
+     * @param quality the {@code q} weight
+     */
+    private MediaRange(String type, String subType, String suffix, double quality) {
+      this.type = type;
+      this.subType = subType;
+      this.suffix = suffix;
+      this.quality = quality;
+      if (type == null) {
+        specificity = 0;
+      } else if (subType != null) {
+        specificity = 3;
+      } else {
+        specificity = suffix != null ? 2 : 1;
+      }
+    }
+
+    private boolean matches(MediaType mediaType) {
+      // media types built through MediaType.create(...) are not lower cased
+      if (type != null && !type.equalsIgnoreCase(mediaType.getPrimaryType())) {
+        return false;
+      }
+      if (subType != null) {
+        return subType.equalsIgnoreCase(mediaType.getSubType());
+      }
+      if (suffix != null) {
+        String candidate = mediaType.getSubType();
+        return candidate.length() > suffix.length()
+            && candidate.regionMatches(true, candidate.length() - suffix.length(), suffix, 0, suffix.length());
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.lang.Math.min;
+import static java.nio.ByteBuffer.allocate;
+import static java.nio.channels.Channels.newChannel;
+import static java.util.Arrays.asList;
+import static java.util.Arrays.copyOf;
+import static org.mule.runtime.api.util.Preconditions.checkState;
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for {@link StreamBuffer} implementations which store the stream's content in chunks of
+ * a fixed size.
+ * <p>
+ * Because all chunks have the same size, the chunk holding any given position is found in constant
+ * time. Growing the buffer never copies already fetched data, it only appends a new chunk. Each chunk
+ * is obtained through {@link #allocateChunk(int)}, which allows implementations to decide where the data
+ * is actually stored.
+ * <p>
+ * The buffer can optionally be bounded to a maximum size. If the stream turns out to be bigger than that,
+ * a {@link StreamingBufferSizeExceededException} is thrown.
+ * <p>
+ * The buffer is append-only: once a chunk has been filled, its content never changes. That allows any number
+ * of threads to read content which has already been fetched without acquiring any lock. Only the thread which
+ * needs to fetch more content from the wrapped stream synchronizes on {@code this} buffer, and it publishes the
+ * new content by updating a volatile size once the bytes have been written into the chunk.
+ *
+ * @since 1.0
+ */
+public abstract class AbstractChunkedStreamBuffer implements StreamBuffer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractChunkedStreamBuffer.class);
+  private static final int INITIAL_CHUNKS_CAPACITY = 16;
+
+  protected final int chunkSize;
+
+  private final long maxSize;
+  private final ReadableByteChannel streamChannel;
+
+  // replaced by a bigger copy when full, so that readers never observe a partially grown array
+  private volatile ByteBuffer[] chunks = new ByteBuffer[INITIAL_CHUNKS_CAPACITY];
+  private volatile long size = 0;
+  private volatile boolean released = false;
+
+  // only accessed while holding the lock on this buffer
+  private int chunksCount = 0;
+  private ByteBuffer tail;
+  private int tailIndex = -1;
+  private boolean streamFullyConsumed = false;
+
+  /**
+   * Creates a new unbounded instance
+   *
+   * @param stream    the stream to be buffered
+   * @param chunkSize the size in bytes of each chunk
+   */
+  protected AbstractChunkedStreamBuffer(InputStream stream, int chunkSize) {
+    this(stream, chunkSize, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param stream    the stream to be buffered
+   * @param chunkSize the size in bytes of each chunk
+   * @param maxSize   the maximum amount of bytes that can be buffered
+   */
+  protected AbstractChunkedStreamBuffer(InputStream stream, int chunkSize, long maxSize) {
+    this.streamChannel = newChannel(stream);
+    this.chunkSize = chunkSize;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This method doesn't block if the content at the given {@code position} has already been fetched.
+   */
+  @Override
+  public ByteBuffer get(long position, int length) throws IOException {
+    checkState(!released, "Buffer has already been released");
+
+    long available = size;
+    if (position >= available) {
+      available = fetchUntil(position);
+      if (position >= available) {
+        return null;
+      }
+    }
+
+    int offset = (int) (position % chunkSize);
+    int count = (int) min(min(chunkSize - offset, available - position), length);
+
+    ByteBuffer view = getChunk((int) (position / chunkSize)).duplicate();
+    view.position(offset);
+    view.limit(offset + count);
+
+    return view.asReadOnlyBuffer();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void release() {
+    if (released) {
+      return;
+    }
+
+    released = true;
+    tail = null;
+    DefaultStreamingStatistics.getInstance().onBytesReleased(size);
+
+    try {
+      streamChannel.close();
+    } catch (IOException e) {
+      LOGGER.debug("Exception found closing buffered stream", e);
+    }
+
+    try {
+      doRelease();
+    } finally {
+      chunks = new ByteBuffer[0];
+      chunksCount = 0;
+    }
+  }
+
+  /**
+   * Allocates the chunk which will be placed at the given {@code index}.
+   *
+   * @param index the index of the chunk to allocate
+   * @return a new chunk of {@link #chunkSize} capacity
+   * @throws IOException if the chunk could not be allocated
+   */
+  protected abstract ByteBuffer allocateChunk(int index) throws IOException;
+
+  /**
+   * Releases the resources which are specific of the implementation. Invoked while the chunks are still
+   * available through {@link #getChunks()}.
+   */
+  protected abstract void doRelease();
+
+  /**
+   * Returns the chunk at the given {@code index}, which is guaranteed to have already been fetched.
+   * <p>
+   * This default implementation returns the chunk as it was allocated. Implementations which move the
+   * chunks' content elsewhere after they're filled should override this method to restore it.
+   * <p>
+   * This method is invoked without holding any lock, so implementations must be safe for concurrent use.
+   *
+   * @param index the index of the chunk to obtain
+   * @return the chunk at the given {@code index}
+   * @throws IOException if the chunk could not be obtained
+   */
+  protected ByteBuffer getChunk(int index) throws IOException {
+    return chunks[index];
+  }
+
+  /**
+   * Returns the allocated chunks. The returned list doesn't support structural modifications, but its elements
+   * can be replaced.
+   * <p>
+   * Must only be invoked while holding the lock on {@code this} buffer, which is always the case for
+   * {@link #allocateChunk(int)} and {@link #doRelease()}.
+   *
+   * @return the allocated chunks
+   */
+  protected List<ByteBuffer> getChunks() {
+    return asList(chunks).subList(0, chunksCount);
+  }
+
+  /**
+   * Appends a chunk to the buffer without filling it, so that it is used once the content reaches it.
+   * Meant to preallocate chunks upon construction.
+   *
+   * @param chunk a chunk of {@link #chunkSize} capacity
+   */
+  protected final synchronized void addChunk(ByteBuffer chunk) {
+    if (chunksCount == chunks.length) {
+      chunks = copyOf(chunks, chunksCount * 2);
+    }
+
+    chunks[chunksCount++] = chunk;
+  }
+
+  private synchronized long fetchUntil(long position) throws IOException {
+    checkState(!released, "Buffer has already been released");
+    while (size <= position && !streamFullyConsumed) {
+      fetch();
+    }
+
+    return size;
+  }
+
+  private void fetch() throws IOException {
+    if (tail == null || !tail.hasRemaining()) {
+      if (size == maxSize) {
+        checkStreamFullyConsumed();
+        return;
+      }
+      tail = nextChunk();
+    }
+
+    int read = streamChannel.read(tail);
+    if (read == -1) {
+      streamFullyConsumed = true;
+    } else {
+      size += read;
+      DefaultStreamingStatistics.getInstance().onBytesBuffered(read);
+    }
+  }
+
+  private ByteBuffer nextChunk() throws IOException {
+    tailIndex++;
+    if (tailIndex == chunksCount) {
+      addChunk(allocateChunk(tailIndex));
+    }
+
+    ByteBuffer chunk = chunks[tailIndex].duplicate();
+    long remaining = maxSize - (long) tailIndex * chunkSize;
+    if (remaining < chunkSize) {
+      chunk.limit((int) remaining);
+    }
+
+    return chunk;
+  }
+
+  private void checkStreamFullyConsumed() throws IOException {
+    ByteBuffer probe = allocate(1);
+    int read;
+    do {
+      read = streamChannel.read(probe);
+    } while (read == 0);
+
+    if (read == -1) {
+      streamFullyConsumed = true;
+    } else {
+      throw new StreamingBufferSizeExceededException(maxSize);
+    }
+  }
+}
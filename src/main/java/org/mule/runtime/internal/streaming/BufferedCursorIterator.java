@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import static org.mule.runtime.api.util.Preconditions.checkState;
+import org.mule.runtime.api.streaming.CursorIterator;
+import org.mule.runtime.internal.streaming.ObjectStreamBuffer.SegmentView;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CursorIterator} which pulls its items from an {@link ObjectStreamBuffer} shared with all the
+ * other cursors opened by the same {@link BufferedCursorIteratorProvider}.
+ * <p>
+ * Each instance keeps track of its own position plus the segment it's currently iterating, so that
+ * the buffer is only accessed when moving from one segment to the next.
+ *
+ * @param <T> the generic type of the iterated items
+ * @since 1.0
+ */
+final class BufferedCursorIterator<T> implements CursorIterator<T> {
+
+  private final ObjectStreamBuffer<T> buffer;
+  private final BufferedCursorIteratorProvider<T> provider;
+  private final int segmentSize;
+
+  private SegmentView segment;
+  private long position = 0;
+  private boolean closed = false;
+  private boolean released = false;
+
+  BufferedCursorIterator(ObjectStreamBuffer<T> buffer, BufferedCursorIteratorProvider<T> provider) {
+    this.buffer = buffer;
+    this.provider = provider;
+    segmentSize = buffer.getSegmentSize();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void seek(long position) {
+    checkNotReleased();
+    checkArgument(position >= 0, "position cannot be negative");
+    this.position = position;
+    closed = false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isClosed() {
+    return closed || released;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasNext() {
+    checkNotReleased();
+    if (isInCurrentSegment()) {
+      return true;
+    }
+
+    segment = buffer.get(position);
+    if (segment == null) {
+      closed = true;
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    T item = (T) segment.items[(int) (position % segmentSize)];
+    position++;
+    return item;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (!released) {
+      released = true;
+      segment = null;
+      provider.releaseCursor();
+    }
+  }
+
+  private boolean isInCurrentSegment() {
+    return segment != null
+        && segment.index == position / segmentSize
+        && position % segmentSize < segment.count;
+  }
+
+  private void checkNotReleased() {
+    checkState(!released, "Cursor is closed");
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import org.mule.runtime.api.streaming.CursorIterator;
+import org.mule.runtime.api.streaming.CursorIteratorProvider;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link CursorIteratorProvider} which opens cursors over one single {@link ObjectStreamBuffer}.
+ * <p>
+ * All the opened cursors share the same backing store and only differ in their position. The
+ * buffer is released once {@code this} provider has been closed and all its cursors were closed too.
+ *
+ * @param <T> the generic type of the iterated items
+ * @since 1.0
+ */
+public final class BufferedCursorIteratorProvider<T> implements CursorIteratorProvider<T> {
+
+  private final ObjectStreamBuffer<T> buffer;
+  private final AtomicInteger openCursorsCount = new AtomicInteger(0);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final AtomicBoolean released = new AtomicBoolean(false);
+
+  /**
+   * Creates a new instance
+   *
+   * @param buffer the buffer which will back all the opened cursors
+   */
+  public BufferedCursorIteratorProvider(ObjectStreamBuffer<T> buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CursorIterator<T> openCursor() {
+    openCursorsCount.incrementAndGet();
+    if (closed.get()) {
+      if (openCursorsCount.decrementAndGet() == 0) {
+        releaseResources();
+      }
+      throw new IllegalStateException("Cannot open a new cursor on a closed iterator provider");
+    }
+
+    return new BufferedCursorIterator<>(buffer, this);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true) && openCursorsCount.get() == 0) {
+      releaseResources();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isClosed() {
+    return closed.get();
+  }
+
+  void releaseCursor() {
+    if (openCursorsCount.decrementAndGet() == 0 && closed.get()) {
+      releaseResources();
+    }
+  }
+
+  private void releaseResources() {
+    if (released.compareAndSet(false, true)) {
+      buffer.release();
+    }
+  }
+}
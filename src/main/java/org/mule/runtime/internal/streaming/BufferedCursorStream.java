@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.lang.Math.min;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.streaming.CursorStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link CursorStream} which pulls its content from a {@link StreamBuffer} shared with all the
+ * other cursors opened by the same {@link BufferedCursorStreamProvider}.
+ * <p>
+ * Each instance only keeps track of its own position. The content is read straight from the
+ * views provided by the buffer, which allows {@link #read(ByteBuffer)} and {@link #transferTo(WritableByteChannel)}
+ * to move data without staging it on the heap.
+ * <p>
+ * If a {@link ReadAheadPrefetcher} is provided, reads go through it so that sequential access is served from
+ * prefetched content. Seeking to a different position cancels any outstanding prefetch.
+ *
+ * @since 1.0
+ */
+final class BufferedCursorStream extends CursorStream {
+
+  private final StreamBuffer buffer;
+  private final BufferedCursorStreamProvider provider;
+  private final ReadAheadPrefetcher prefetcher;
+
+  private long position = 0;
+  private long mark = 0;
+  private boolean closed = false;
+  private boolean released = false;
+
+  BufferedCursorStream(StreamBuffer buffer, BufferedCursorStreamProvider provider, ReadAheadPrefetcher prefetcher) {
+    this.buffer = buffer;
+    this.provider = provider;
+    this.prefetcher = prefetcher;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void seek(long position) throws IOException {
+    checkNotReleased();
+    checkArgument(position >= 0, "position cannot be negative");
+    if (prefetcher != null && position != this.position) {
+      prefetcher.cancel();
+    }
+    this.position = position;
+    closed = false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isClosed() {
+    return closed || released;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read() throws IOException {
+    checkNotReleased();
+    ByteBuffer view = nextView(1);
+    if (view == null) {
+      closed = true;
+      return -1;
+    }
+
+    position++;
+    return view.get() & 0xff;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    checkNotReleased();
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    } else if (len == 0) {
+      return 0;
+    }
+
+    int read = 0;
+    while (read < len) {
+      ByteBuffer view = nextView(len - read);
+      if (view == null) {
+        break;
+      }
+
+      int count = view.remaining();
+      view.get(b, off + read, count);
+      position += count;
+      read += count;
+    }
+
+    if (read == 0) {
+      closed = true;
+      return -1;
+    }
+
+    return read;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read(ByteBuffer destination) throws IOException {
+    checkNotReleased();
+    if (!destination.hasRemaining()) {
+      return 0;
+    }
+
+    int read = 0;
+    while (destination.hasRemaining()) {
+      ByteBuffer view = nextView(destination.remaining());
+      if (view == null) {
+        break;
+      }
+
+      int count = view.remaining();
+      destination.put(view);
+      position += count;
+      read += count;
+    }
+
+    if (read == 0) {
+      closed = true;
+      return -1;
+    }
+
+    return read;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long transferTo(WritableByteChannel target) throws IOException {
+    checkNotReleased();
+    if (prefetcher != null) {
+      prefetcher.cancel();
+    }
+    long transferred = buffer.transferTo(position, target);
+    position += transferred;
+    closed = true;
+
+    return transferred;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long skip(long n) throws IOException {
+    checkNotReleased();
+    long skipped = 0;
+    while (skipped < n) {
+      ByteBuffer view = nextView((int) min(n - skipped, Integer.MAX_VALUE));
+      if (view == null) {
+        break;
+      }
+
+      position += view.remaining();
+      skipped += view.remaining();
+    }
+
+    return skipped;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void mark(int readlimit) {
+    mark = position;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void reset() throws IOException {
+    seek(mark);
+  }
+
+  /**
+   * Releases {@code this} cursor. Once invoked, the cursor can no longer be used.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!released) {
+      released = true;
+      if (prefetcher != null) {
+        prefetcher.cancel();
+      }
+      provider.releaseCursor();
+    }
+  }
+
+  private ByteBuffer nextView(int length) throws IOException {
+    return prefetcher != null ? prefetcher.get(position, length) : buffer.get(position, length);
+  }
+
+  private void checkNotReleased() throws IOException {
+    if (released) {
+      throw new IOException("Stream is closed");
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import org.mule.runtime.api.streaming.CursorStream;
+import org.mule.runtime.api.streaming.CursorStreamProvider;
+import org.mule.runtime.api.streaming.StreamingStatistics;
+import org.mule.runtime.internal.streaming.CursorStreamProviderLeakDetector.LeakTracker;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link CursorStreamProvider} which opens cursors over one single {@link StreamBuffer}.
+ * <p>
+ * All the opened cursors share the same backing store and only differ in their position. The
+ * buffer is released once {@code this} provider has been closed and all its cursors were closed too.
+ * <p>
+ * Activity is reported to the {@link StreamingStatistics}, and the provider is tracked by the default
+ * {@link CursorStreamProviderLeakDetector}.
+ * <p>
+ * Optionally, each cursor can be given a {@link ReadAheadPrefetcher} which reads ahead on a background
+ * {@link ExecutorService} once sequential access is detected.
+ *
+ * @since 1.0
+ */
+public final class BufferedCursorStreamProvider implements CursorStreamProvider {
+
+  private final StreamBuffer buffer;
+  private final AtomicInteger openCursorsCount = new AtomicInteger(0);
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final AtomicBoolean released = new AtomicBoolean(false);
+  private final DefaultStreamingStatistics statistics = DefaultStreamingStatistics.getInstance();
+  private final LeakTracker leakTracker;
+  private final ExecutorService prefetchExecutor;
+  private final int prefetchChunkSize;
+  private final int readAheadChunks;
+  private final PrefetchFence prefetchFence = new PrefetchFence();
+
+  /**
+   * Creates a new instance
+   *
+   * @param buffer the buffer which will back all the opened cursors
+   */
+  public BufferedCursorStreamProvider(StreamBuffer buffer) {
+    this(buffer, null, 0, 0);
+  }
+
+  /**
+   * Creates a new instance which reads ahead on behalf of its cursors
+   *
+   * @param buffer            the buffer which will back all the opened cursors
+   * @param prefetchExecutor  the executor on which prefetches are performed. If {@code null}, no read ahead takes place
+   * @param prefetchChunkSize the amount of bytes fetched on each prefetch
+   * @param readAheadChunks   the amount of chunks to read ahead of each cursor's position. If {@code 0}, no read ahead
+   *                          takes place
+   */
+  public BufferedCursorStreamProvider(StreamBuffer buffer, ExecutorService prefetchExecutor, int prefetchChunkSize,
+                                      int readAheadChunks) {
+    this.buffer = buffer;
+    this.prefetchExecutor = prefetchExecutor;
+    this.prefetchChunkSize = prefetchChunkSize;
+    this.readAheadChunks = readAheadChunks;
+    statistics.onProviderOpened();
+    leakTracker = CursorStreamProviderLeakDetector.getDefault().track(this, buffer, closed, openCursorsCount);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CursorStream openCursor() {
+    int count = openCursorsCount.incrementAndGet();
+    if (closed.get()) {
+      if (openCursorsCount.decrementAndGet() == 0) {
+        releaseResources();
+      }
+      throw new IllegalStateException("Cannot open a new cursor on a closed stream provider");
+    }
+
+    statistics.onCursorOpened(count);
+    ReadAheadPrefetcher prefetcher = prefetchExecutor != null && readAheadChunks > 0
+        ? new ReadAheadPrefetcher(buffer, prefetchFence, prefetchExecutor, prefetchChunkSize, readAheadChunks)
+        : null;
+
+    return new BufferedCursorStream(buffer, this, prefetcher);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true)) {
+      statistics.onProviderClosed();
+      if (openCursorsCount.get() == 0) {
+        releaseResources();
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isClosed() {
+    return closed.get();
+  }
+
+  void releaseCursor() {
+    statistics.onCursorClosed();
+    if (openCursorsCount.decrementAndGet() == 0 && closed.get()) {
+      releaseResources();
+    }
+  }
+
+  private void releaseResources() {
+    if (released.compareAndSet(false, true)) {
+      if (leakTracker != null) {
+        leakTracker.close();
+      }
+      prefetchFence.close();
+      buffer.release();
+    }
+  }
+}
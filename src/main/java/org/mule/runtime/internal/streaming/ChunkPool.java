@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.lang.Integer.getInteger;
+import static java.nio.ByteBuffer.allocateDirect;
+import org.mule.runtime.api.streaming.BufferPoolStatistics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process-wide pool of direct {@link ByteBuffer} chunks, shared by all the streaming buffers which
+ * use chunks of the same size.
+ * <p>
+ * Each thread keeps a small cache of free chunks so that the common case of borrowing and returning
+ * from the same thread does not contend with other threads. When that cache is empty (or full, when
+ * returning), a lock-free global free list is used. Chunks which don't fit in either of them are left
+ * to be garbage collected, so that the amount of idle memory retained by the pool is bounded.
+ * <p>
+ * Pools are obtained through {@link #forChunkSize(int)}. All of them report to the same
+ * {@link BufferPoolStatistics}, available through {@link #getStatistics()}.
+ *
+ * @since 1.0
+ */
+public final class ChunkPool {
+
+  /**
+   * System property to set the maximum amount of chunks each thread keeps cached, per chunk size
+   */
+  public static final String THREAD_CACHE_SIZE_PROPERTY = "mule.streaming.bufferPool.threadCacheSize";
+
+  /**
+   * System property to set the maximum amount of bytes each pool retains in its global free list
+   */
+  public static final String MAX_IDLE_SIZE_PROPERTY = "mule.streaming.bufferPool.maxIdleSize";
+
+  private static final int THREAD_CACHE_SIZE = getInteger(THREAD_CACHE_SIZE_PROPERTY, 4);
+  private static final int MAX_IDLE_SIZE = getInteger(MAX_IDLE_SIZE_PROPERTY, 32 * 1024 * 1024);
+
+  private static final ConcurrentMap<Integer, ChunkPool> POOLS = new ConcurrentHashMap<>();
+  private static final DefaultBufferPoolStatistics STATISTICS = new DefaultBufferPoolStatistics();
+
+  private final int chunkSize;
+  private final int maxIdleChunks;
+  private final Queue<ByteBuffer> freeChunks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger freeChunksCount = new AtomicInteger(0);
+  private final ThreadLocal<Deque<ByteBuffer>> threadCache = ThreadLocal.withInitial(ArrayDeque::new);
+
+  /**
+   * @param chunkSize the size in bytes of the chunks
+   * @return the pool for chunks of the given {@code chunkSize}
+   */
+  public static ChunkPool forChunkSize(int chunkSize) {
+    return POOLS.computeIfAbsent(chunkSize, ChunkPool::new);
+  }
+
+  /**
+   * @return the statistics of all the pools
+   */
+  public static BufferPoolStatistics getStatistics() {
+    return STATISTICS;
+  }
+
+  private ChunkPool(int chunkSize) {
+    this.chunkSize = chunkSize;
+    maxIdleChunks = MAX_IDLE_SIZE / chunkSize;
+  }
+
+  /**
+   * Borrows a chunk from the pool, allocating a new one if no free chunk is available.
+   *
+   * @return a cleared direct {@link ByteBuffer} of {@code chunkSize} capacity
+   */
+  public ByteBuffer borrow() {
+    ByteBuffer chunk = threadCache.get().pollLast();
+    if (chunk == null) {
+      chunk = freeChunks.poll();
+      if (chunk != null) {
+        freeChunksCount.decrementAndGet();
+      } else {
+        STATISTICS.allocationMisses.increment();
+        chunk = allocateDirect(chunkSize);
+      }
+    }
+
+    STATISTICS.onBorrow();
+    return chunk;
+  }
+
+  /**
+   * Returns a chunk previously obtained through {@link #borrow()}. The chunk cannot be used after
+   * this method is invoked.
+   *
+   * @param chunk the chunk to return
+   */
+  public void giveBack(ByteBuffer chunk) {
+    STATISTICS.chunksInUse.decrementAndGet();
+    chunk.clear();
+
+    Deque<ByteBuffer> cache = threadCache.get();
+    if (cache.size() < THREAD_CACHE_SIZE) {
+      cache.addLast(chunk);
+    } else if (freeChunksCount.incrementAndGet() <= maxIdleChunks) {
+      freeChunks.offer(chunk);
+    } else {
+      freeChunksCount.decrementAndGet();
+    }
+  }
+
+  private static final class DefaultBufferPoolStatistics implements BufferPoolStatistics {
+
+    private final AtomicLong chunksInUse = new AtomicLong(0);
+    private final AtomicLong chunksInUseHighWaterMark = new AtomicLong(0);
+    private final LongAdder allocationMisses = new LongAdder();
+
+    private void onBorrow() {
+      long inUse = chunksInUse.incrementAndGet();
+      long highWaterMark;
+      while (inUse > (highWaterMark = chunksInUseHighWaterMark.get())) {
+        if (chunksInUseHighWaterMark.compareAndSet(highWaterMark, inUse)) {
+          break;
+        }
+      }
+    }
+
+    @Override
+    public long getChunksInUse() {
+      return chunksInUse.get();
+    }
+
+    @Override
+    public long getChunksInUseHighWaterMark() {
+      return chunksInUseHighWaterMark.get();
+    }
+
+    @Override
+    public long getAllocationMisses() {
+      return allocationMisses.sum();
+    }
+  }
+}
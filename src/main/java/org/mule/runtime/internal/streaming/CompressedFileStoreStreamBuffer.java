@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.lang.Math.min;
+import static java.nio.ByteBuffer.allocate;
+import static java.nio.ByteBuffer.wrap;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.copyOf;
+import static java.util.zip.Deflater.BEST_SPEED;
+import static org.mule.runtime.api.util.Preconditions.checkState;
+import org.mule.runtime.api.streaming.FileStoreCursorStreamConfig;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StreamBuffer} which keeps the first bytes of the stream in direct (off-heap) memory
+ * and spills the rest into a temporary file, compressing each chunk independently.
+ * <p>
+ * Just like {@link FileStoreStreamBuffer}, the content is organized in chunks of a fixed size and the
+ * first ones are borrowed from the shared {@link ChunkPool}. Spilled chunks are filled on the heap and,
+ * once full, deflated as one self-contained block which is appended to the temporary file. An index
+ * keeps the offset and length of each block, so accessing any position of the stream only requires
+ * reading and inflating the one block which holds it.
+ * <p>
+ * The last inflated blocks are kept in a small cache with one slot per block index modulo its size, so that
+ * cursors reading sequentially don't inflate the same block over and over, and concurrent cursors reading
+ * different blocks don't evict each other's. Looking up the cache requires no lock. Blocks are read and
+ * inflated without holding any lock either, each reader using its own {@link Inflater} taken from a pool.
+ * Only the lookup of the block's offset and length synchronizes on the block index.
+ *
+ * @since 1.0
+ */
+public final class CompressedFileStoreStreamBuffer extends AbstractChunkedStreamBuffer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompressedFileStoreStreamBuffer.class);
+  private static final String TEMP_FILE_PREFIX = "mule-stream-buffer";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final int INITIAL_INDEX_CAPACITY = 16;
+  private static final int INFLATED_BLOCKS_CACHE_SIZE = 8;
+
+  private final int maxInMemoryChunks;
+  private final ChunkPool chunkPool;
+  private final Deflater deflater = new Deflater(BEST_SPEED, true);
+  private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+  private final AtomicReferenceArray<InflatedBlock> inflatedBlocks = new AtomicReferenceArray<>(INFLATED_BLOCKS_CACHE_SIZE);
+  private final byte[] deflateBuffer;
+  private final Object blockIndexLock = new Object();
+
+  private FileChannel fileChannel;
+  private long fileSize = 0;
+
+  // guarded by blockIndexLock
+  private long[] blockOffsets = new long[INITIAL_INDEX_CAPACITY];
+  private int[] blockLengths = new int[INITIAL_INDEX_CAPACITY];
+  private int blocksCount = 0;
+
+  private volatile boolean released = false;
+
+  /**
+   * Creates a new instance
+   *
+   * @param stream the stream to be buffered
+   * @param config this buffer's configuration
+   */
+  public CompressedFileStoreStreamBuffer(InputStream stream, FileStoreCursorStreamConfig config) {
+    super(stream, config.getChunkSize().toBytes());
+    maxInMemoryChunks = config.getMaxInMemorySize().toBytes() / chunkSize;
+    chunkPool = ChunkPool.forChunkSize(chunkSize);
+    deflateBuffer = new byte[chunkSize];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected ByteBuffer allocateChunk(int index) throws IOException {
+    if (index < maxInMemoryChunks) {
+      return chunkPool.borrow();
+    }
+
+    int previous = index - 1;
+    if (previous >= maxInMemoryChunks) {
+      List<ByteBuffer> chunks = getChunks();
+      ByteBuffer filled = chunks.get(previous);
+      long offset = deflate(filled);
+
+      synchronized (blockIndexLock) {
+        addBlock(offset, (int) (fileSize - offset));
+      }
+      cacheInflatedBlock(previous, filled);
+      chunks.set(previous, null);
+    }
+
+    return allocate(chunkSize);
+  }
+
+  /**
+   * Returns the chunk at the given {@code index}, inflating it from the temporary file if it was
+   * already spilled.
+   *
+   * @param index the index of the chunk to obtain
+   * @return the chunk at the given {@code index}
+   * @throws IOException if the block could not be read or inflated
+   */
+  @Override
+  protected ByteBuffer getChunk(int index) throws IOException {
+    ByteBuffer chunk = super.getChunk(index);
+    if (chunk != null) {
+      return chunk;
+    }
+
+    checkState(!released, "Buffer has already been released");
+    InflatedBlock cached = inflatedBlocks.get(index % INFLATED_BLOCKS_CACHE_SIZE);
+    if (cached != null && cached.index == index) {
+      return cached.content;
+    }
+
+    int block = index - maxInMemoryChunks;
+    long offset;
+    int length;
+    synchronized (blockIndexLock) {
+      offset = blockOffsets[block];
+      length = blockLengths[block];
+    }
+
+    ByteBuffer content = inflate(block, offset, length);
+    cacheInflatedBlock(index, content);
+    return content;
+  }
+
+  private void cacheInflatedBlock(int index, ByteBuffer content) {
+    inflatedBlocks.set(index % INFLATED_BLOCKS_CACHE_SIZE, new InflatedBlock(index, content));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void doRelease() {
+    List<ByteBuffer> chunks = getChunks();
+    chunks.subList(0, min(maxInMemoryChunks, chunks.size())).forEach(chunkPool::giveBack);
+
+    deflater.end();
+    released = true;
+    for (int i = 0; i < INFLATED_BLOCKS_CACHE_SIZE; i++) {
+      inflatedBlocks.set(i, null);
+    }
+    endInflaters();
+
+    if (fileChannel != null) {
+      try {
+        fileChannel.close();
+      } catch (IOException e) {
+        LOGGER.warn("Could not close and delete temporary stream buffer file", e);
+      }
+    }
+  }
+
+  private long deflate(ByteBuffer chunk) throws IOException {
+    if (fileChannel == null) {
+      Path file = createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+      fileChannel = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE);
+    }
+
+    long offset = fileSize;
+    deflater.reset();
+    deflater.setInput(chunk.array(), chunk.arrayOffset(), chunkSize);
+    deflater.finish();
+
+    while (!deflater.finished()) {
+      ByteBuffer block = wrap(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+      while (block.hasRemaining()) {
+        fileSize += fileChannel.write(block, fileSize);
+      }
+    }
+
+    return offset;
+  }
+
+  private void addBlock(long offset, int length) {
+    if (blocksCount == blockOffsets.length) {
+      blockOffsets = copyOf(blockOffsets, blocksCount * 2);
+      blockLengths = copyOf(blockLengths, blocksCount * 2);
+    }
+
+    blockOffsets[blocksCount] = offset;
+    blockLengths[blocksCount] = length;
+    blocksCount++;
+  }
+
+  private ByteBuffer inflate(int block, long offset, int length) throws IOException {
+    ByteBuffer compressed = allocate(length);
+    while (compressed.hasRemaining()) {
+      if (fileChannel.read(compressed, offset + compressed.position()) == -1) {
+        throw new EOFException("Unexpected end of stream buffer file");
+      }
+    }
+
+    byte[] content = new byte[chunkSize];
+    Inflater inflater = inflaters.poll();
+    if (inflater == null) {
+      inflater = new Inflater(true);
+    }
+    inflater.setInput(compressed.array());
+
+    try {
+      int inflated = 0;
+      while (inflated < chunkSize && !inflater.finished()) {
+        int count = inflater.inflate(content, inflated, chunkSize - inflated);
+        if (count == 0 && inflater.needsInput()) {
+          break;
+        }
+        inflated += count;
+      }
+
+      if (inflated != chunkSize) {
+        throw new IOException("Stream buffer block " + block + " is corrupted");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Stream buffer block " + block + " is corrupted", e);
+    } finally {
+      inflater.reset();
+      inflaters.offer(inflater);
+      // the buffer may have been released while inflating, in which case nobody else would end it
+      if (released) {
+        endInflaters();
+      }
+    }
+
+    return wrap(content);
+  }
+
+  private void endInflaters() {
+    Inflater inflater;
+    while ((inflater = inflaters.poll()) != null) {
+      inflater.end();
+    }
+  }
+
+  private static final class InflatedBlock {
+
+    private final int index;
+    private final ByteBuffer content;
+
+    private InflatedBlock(int index, ByteBuffer content) {
+      this.index = index;
+      this.content = content;
+    }
+  }
+}
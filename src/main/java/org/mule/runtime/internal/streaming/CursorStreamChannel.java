@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import org.mule.runtime.api.streaming.CursorStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A {@link ReadableByteChannel} view over a {@link CursorStream}. Reads are delegated to
+ * {@link CursorStream#read(ByteBuffer)}.
+ *
+ * @since 1.0
+ */
+public final class CursorStreamChannel implements ReadableByteChannel {
+
+  private final CursorStream cursor;
+  private volatile boolean open = true;
+
+  /**
+   * Creates a new instance
+   *
+   * @param cursor the cursor to read from
+   */
+  public CursorStreamChannel(CursorStream cursor) {
+    this.cursor = cursor;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    return cursor.read(dst);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Closes {@code this} channel and the underlying {@link CursorStream}
+   */
+  @Override
+  public void close() throws IOException {
+    if (open) {
+      open = false;
+      cursor.close();
+    }
+  }
+}
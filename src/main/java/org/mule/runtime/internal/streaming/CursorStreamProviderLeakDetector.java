@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.lang.Integer.getInteger;
+import org.mule.runtime.api.streaming.CursorStreamProvider;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects {@link CursorStreamProvider} instances which are garbage collected before their resources were released.
+ * <p>
+ * Only one out of {@code samplingInterval} providers is tracked, which keeps the overhead low enough to be left
+ * enabled in production. For each tracked provider, the stack trace of the point in which it was created is kept
+ * so that it can be logged when the leak is detected. The leaked {@link StreamBuffer} is then released so that
+ * its memory chunks and temporary files are not lost.
+ * <p>
+ * Leaks are reported, and their buffers released, by a single daemon thread which waits on the reference queue. It's
+ * started when the first provider is tracked, so detectors which track nothing don't create any thread.
+ *
+ * @since 1.0
+ */
+public final class CursorStreamProviderLeakDetector {
+
+  /**
+   * System property to set the sampling interval of the default detector. A value of {@code 1} tracks all the providers,
+   * while {@code 0} disables the detection.
+   */
+  public static final String SAMPLING_INTERVAL_PROPERTY = "mule.streaming.leakDetection.samplingInterval";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CursorStreamProviderLeakDetector.class);
+  private static final CursorStreamProviderLeakDetector DEFAULT =
+      new CursorStreamProviderLeakDetector(getInteger(SAMPLING_INTERVAL_PROPERTY, 128));
+
+  private final int samplingInterval;
+  private final AtomicLong trackRequests = new AtomicLong(0);
+  private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+  private final Set<LeakTracker> trackers = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean reaperStarted = new AtomicBoolean(false);
+  private volatile Thread reaper;
+
+  /**
+   * @return the detector configured through the {@link #SAMPLING_INTERVAL_PROPERTY} system property
+   */
+  public static CursorStreamProviderLeakDetector getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Creates a new instance
+   *
+   * @param samplingInterval how many providers are created for each tracked one. Non positive values disable detection
+   */
+  public CursorStreamProviderLeakDetector(int samplingInterval) {
+    this.samplingInterval = samplingInterval;
+  }
+
+  /**
+   * Starts tracking the given {@code provider}, if it falls into the sample.
+   *
+   * @param provider    the provider to track
+   * @param buffer      the buffer which backs the {@code provider}
+   * @param closed      the {@code provider}'s closed flag
+   * @param openCursors the {@code provider}'s open cursors count
+   * @return a {@link LeakTracker} to be {@link LeakTracker#close() closed} once the provider's resources are released,
+   * or {@code null} if the provider is not being tracked
+   */
+  public LeakTracker track(CursorStreamProvider provider, StreamBuffer buffer, AtomicBoolean closed,
+                           AtomicInteger openCursors) {
+    if (samplingInterval <= 0 || trackRequests.getAndIncrement() % samplingInterval != 0) {
+      return null;
+    }
+
+    if (reaperStarted.compareAndSet(false, true)) {
+      Thread thread = new Thread(this::reportLeaks, "mule-streaming-leak-detector");
+      thread.setDaemon(true);
+      reaper = thread;
+      thread.start();
+    }
+
+    LeakTracker tracker = new LeakTracker(provider, buffer, closed, openCursors);
+    trackers.add(tracker);
+    return tracker;
+  }
+
+  /**
+   * Stops the thread which reports the leaks, if it was started. Providers which are garbage collected afterwards
+   * are not reported.
+   */
+  public void stop() {
+    Thread thread = reaper;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void reportLeaks() {
+    while (!Thread.currentThread().isInterrupted()) {
+      Reference<?> reference;
+      try {
+        reference = referenceQueue.remove();
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      LeakTracker tracker = (LeakTracker) reference;
+      if (trackers.remove(tracker)) {
+        try {
+          tracker.onLeak();
+        } catch (RuntimeException e) {
+          LOGGER.warn("Exception found releasing the buffer of a leaked CursorStreamProvider", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tracks a single provider. Must be closed once the provider's resources are released.
+   */
+  public final class LeakTracker extends PhantomReference<Object> {
+
+    private final Throwable allocationSite;
+    private final StreamBuffer buffer;
+    private final AtomicBoolean closed;
+    private final AtomicInteger openCursors;
+
+    private LeakTracker(CursorStreamProvider provider, StreamBuffer buffer, AtomicBoolean closed,
+                        AtomicInteger openCursors) {
+      super(provider, referenceQueue);
+      this.allocationSite = new Throwable("CursorStreamProvider allocation site");
+      this.buffer = buffer;
+      this.closed = closed;
+      this.openCursors = openCursors;
+    }
+
+    /**
+     * Stops tracking the provider
+     */
+    public void close() {
+      trackers.remove(this);
+      clear();
+    }
+
+    private void onLeak() {
+      boolean providerClosed = closed.get();
+      int providerOpenCursors = openCursors.get();
+      DefaultStreamingStatistics.getInstance().onProviderLeaked(providerClosed, providerOpenCursors);
+
+      LOGGER.error(providerClosed
+          ? "A CursorStreamProvider was garbage collected with " + providerOpenCursors + " cursors which were never closed."
+          : "A CursorStreamProvider was garbage collected without being closed.", allocationSite);
+
+      buffer.release();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import org.mule.runtime.api.streaming.StreamingStatistics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default implementation of {@link StreamingStatistics}.
+ * <p>
+ * All counters are updated without locking so that gathering them is cheap enough to be always enabled.
+ *
+ * @since 1.0
+ */
+public final class DefaultStreamingStatistics implements StreamingStatistics {
+
+  private static final DefaultStreamingStatistics INSTANCE = new DefaultStreamingStatistics();
+
+  private final LongAdder openProviders = new LongAdder();
+  private final LongAdder closedProviders = new LongAdder();
+  private final LongAdder openCursors = new LongAdder();
+  private final LongAdder closedCursors = new LongAdder();
+  private final LongAdder bufferedBytes = new LongAdder();
+  private final LongAdder leakedProviders = new LongAdder();
+  private final AtomicInteger maxCursorsPerProvider = new AtomicInteger(0);
+
+  /**
+   * @return the process-wide instance
+   */
+  public static DefaultStreamingStatistics getInstance() {
+    return INSTANCE;
+  }
+
+  private DefaultStreamingStatistics() {}
+
+  void onProviderOpened() {
+    openProviders.increment();
+  }
+
+  void onProviderClosed() {
+    openProviders.decrement();
+    closedProviders.increment();
+  }
+
+  void onCursorOpened(int providerOpenCursors) {
+    openCursors.increment();
+
+    int max;
+    while (providerOpenCursors > (max = maxCursorsPerProvider.get())) {
+      if (maxCursorsPerProvider.compareAndSet(max, providerOpenCursors)) {
+        break;
+      }
+    }
+  }
+
+  void onCursorClosed() {
+    openCursors.decrement();
+    closedCursors.increment();
+  }
+
+  void onBytesBuffered(long bytes) {
+    bufferedBytes.add(bytes);
+  }
+
+  void onBytesReleased(long bytes) {
+    bufferedBytes.add(-bytes);
+  }
+
+  void onProviderLeaked(boolean providerClosed, int providerOpenCursors) {
+    leakedProviders.increment();
+    if (!providerClosed) {
+      openProviders.decrement();
+    }
+    openCursors.add(-providerOpenCursors);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getOpenProvidersCount() {
+    return openProviders.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getClosedProvidersCount() {
+    return closedProviders.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getOpenCursorsCount() {
+    return openCursors.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getClosedCursorsCount() {
+    return closedCursors.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getBufferedBytes() {
+    return bufferedBytes.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getMaxCursorsPerProvider() {
+    return maxCursorsPerProvider.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getLeakedProvidersCount() {
+    return leakedProviders.sum();
+  }
+}
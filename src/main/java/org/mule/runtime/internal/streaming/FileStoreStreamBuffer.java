@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.lang.Math.min;
+import static java.nio.ByteBuffer.allocate;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.mule.runtime.api.util.Preconditions.checkState;
+import org.mule.runtime.api.streaming.FileStoreCursorStreamConfig;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StreamBuffer} which keeps the first bytes of the stream in direct (off-heap) memory
+ * and spills the rest into a temporary file.
+ * <p>
+ * The content is organized in chunks of a fixed size. The first chunks are borrowed from the shared
+ * {@link ChunkPool} until the configured {@link FileStoreCursorStreamConfig#getMaxInMemorySize()} is reached. From then on,
+ * each chunk is filled on the heap and, once full, written to its position of the temporary file. Accessing a spilled
+ * position only requires reading back the one chunk which holds it, with a positional read which doesn't take any lock.
+ * <p>
+ * The last chunks read back are kept in a small cache with one slot per chunk index modulo its size, so that cursors
+ * reading sequentially don't read the same chunk over and over. The file is never mapped into memory, so the only
+ * resource held for the spilled content is the file itself, which is deleted as soon as the buffer is released.
+ * <p>
+ * When {@link #transferTo(long, WritableByteChannel) transferring} content which has already been spilled,
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} is used so that the operating system can
+ * move the data straight from the file into the target.
+ *
+ * @since 1.0
+ */
+public final class FileStoreStreamBuffer extends AbstractChunkedStreamBuffer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileStoreStreamBuffer.class);
+  private static final String TEMP_FILE_PREFIX = "mule-stream-buffer";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final int READ_CHUNKS_CACHE_SIZE = 8;
+
+  private final int maxInMemoryChunks;
+  private final ChunkPool chunkPool;
+  private final AtomicReferenceArray<SpilledChunk> readChunks = new AtomicReferenceArray<>(READ_CHUNKS_CACHE_SIZE);
+
+  private volatile FileChannel fileChannel;
+  private volatile int spilledChunks = 0;
+  private volatile boolean released = false;
+
+  /**
+   * Creates a new instance
+   *
+   * @param stream the stream to be buffered
+   * @param config this buffer's configuration
+   */
+  public FileStoreStreamBuffer(InputStream stream, FileStoreCursorStreamConfig config) {
+    super(stream, config.getChunkSize().toBytes());
+    maxInMemoryChunks = config.getMaxInMemorySize().toBytes() / chunkSize;
+    chunkPool = ChunkPool.forChunkSize(chunkSize);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long transferTo(long position, WritableByteChannel target) throws IOException {
+    long transferred = 0;
+    while (true) {
+      long current = position + transferred;
+      int index = (int) (current / chunkSize);
+      if (isSpilled(index)) {
+        checkState(!released, "Buffer has already been released");
+        transferred += transferFromFile(current - (long) maxInMemoryChunks * chunkSize,
+                                        chunkSize - (int) (current % chunkSize), target);
+      } else {
+        ByteBuffer view = get(current, Integer.MAX_VALUE);
+        if (view == null) {
+          return transferred;
+        }
+        while (view.hasRemaining()) {
+          transferred += target.write(view);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected ByteBuffer allocateChunk(int index) throws IOException {
+    if (index < maxInMemoryChunks) {
+      return chunkPool.borrow();
+    }
+
+    int previous = index - 1;
+    if (previous >= maxInMemoryChunks) {
+      List<ByteBuffer> chunks = getChunks();
+      ByteBuffer filled = chunks.get(previous);
+      spill(previous, filled);
+
+      cacheReadChunk(previous, filled);
+      chunks.set(previous, null);
+    }
+
+    return allocate(chunkSize);
+  }
+
+  /**
+   * Returns the chunk at the given {@code index}, reading it back from the temporary file if it was
+   * already spilled.
+   *
+   * @param index the index of the chunk to obtain
+   * @return the chunk at the given {@code index}
+   * @throws IOException if the chunk could not be read
+   */
+  @Override
+  protected ByteBuffer getChunk(int index) throws IOException {
+    ByteBuffer chunk = super.getChunk(index);
+    if (chunk != null) {
+      return chunk;
+    }
+
+    checkState(!released, "Buffer has already been released");
+    SpilledChunk cached = readChunks.get(index % READ_CHUNKS_CACHE_SIZE);
+    if (cached != null && cached.index == index) {
+      return cached.content;
+    }
+
+    ByteBuffer content = readFileChunk(index);
+    cacheReadChunk(index, content);
+    return content;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void doRelease() {
+    List<ByteBuffer> chunks = getChunks();
+    chunks.subList(0, min(maxInMemoryChunks, chunks.size())).forEach(chunkPool::giveBack);
+
+    released = true;
+    for (int i = 0; i < READ_CHUNKS_CACHE_SIZE; i++) {
+      readChunks.set(i, null);
+    }
+
+    if (fileChannel != null) {
+      try {
+        fileChannel.close();
+      } catch (IOException e) {
+        LOGGER.warn("Could not close and delete temporary stream buffer file", e);
+      }
+    }
+  }
+
+  private boolean isSpilled(int index) {
+    return index >= maxInMemoryChunks && index < maxInMemoryChunks + spilledChunks;
+  }
+
+  private long transferFromFile(long fileOffset, int count, WritableByteChannel target) throws IOException {
+    long transferred = 0;
+    while (transferred < count) {
+      transferred += fileChannel.transferTo(fileOffset + transferred, count - transferred, target);
+    }
+
+    return transferred;
+  }
+
+  private void cacheReadChunk(int index, ByteBuffer content) {
+    readChunks.set(index % READ_CHUNKS_CACHE_SIZE, new SpilledChunk(index, content));
+  }
+
+  private void spill(int index, ByteBuffer chunk) throws IOException {
+    if (fileChannel == null) {
+      Path file = createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+      fileChannel = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE);
+    }
+
+    long offset = fileOffset(index);
+    ByteBuffer content = chunk.duplicate();
+    content.clear();
+    while (content.hasRemaining()) {
+      fileChannel.write(content, offset + content.position());
+    }
+
+    // published once written, so that transfers never read the chunk from the file before it's there
+    spilledChunks++;
+  }
+
+  private ByteBuffer readFileChunk(int index) throws IOException {
+    long offset = fileOffset(index);
+    ByteBuffer content = allocate(chunkSize);
+    while (content.hasRemaining()) {
+      if (fileChannel.read(content, offset + content.position()) == -1) {
+        throw new EOFException("Unexpected end of stream buffer file");
+      }
+    }
+
+    content.clear();
+    return content;
+  }
+
+  private long fileOffset(int index) {
+    return (long) (index - maxInMemoryChunks) * chunkSize;
+  }
+
+  private static final class SpilledChunk {
+
+    private final int index;
+    private final ByteBuffer content;
+
+    private SpilledChunk(int index, ByteBuffer content) {
+      this.index = index;
+      this.content = content;
+    }
+  }
+}
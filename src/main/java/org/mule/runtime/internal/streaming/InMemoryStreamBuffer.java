@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import org.mule.runtime.api.streaming.InMemoryCursorStreamConfig;
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded {@link StreamBuffer} which keeps all the content in direct memory.
+ * <p>
+ * The buffer is organized in chunks of {@link InMemoryCursorStreamConfig#getBufferSizeIncrement()} bytes. Enough
+ * chunks to hold {@link InMemoryCursorStreamConfig#getInitialBufferSize()} bytes are allocated upfront and new ones
+ * are added as the stream is consumed. A {@link StreamingBufferSizeExceededException} is thrown if the stream
+ * exceeds {@link InMemoryCursorStreamConfig#getMaxBufferSize()}.
+ * <p>
+ * Chunks are borrowed from the shared {@link ChunkPool} and given back to it when {@code this} buffer is released.
+ *
+ * @since 1.0
+ */
+public final class InMemoryStreamBuffer extends AbstractChunkedStreamBuffer {
+
+  private final ChunkPool chunkPool;
+
+  /**
+   * Creates a new instance
+   *
+   * @param stream the stream to be buffered
+   * @param config this buffer's configuration
+   */
+  public InMemoryStreamBuffer(InputStream stream, InMemoryCursorStreamConfig config) {
+    super(stream, config.getBufferSizeIncrement().toBytes(), config.getMaxBufferSize().toBytes());
+    chunkPool = ChunkPool.forChunkSize(chunkSize);
+
+    long initialBufferSize = config.getInitialBufferSize().toBytes();
+    for (int index = 0; (long) index * chunkSize < initialBufferSize; index++) {
+      addChunk(allocateChunk(index));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected ByteBuffer allocateChunk(int index) {
+    return chunkPool.borrow();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void doRelease() {
+    getChunks().forEach(chunkPool::giveBack);
+  }
+}
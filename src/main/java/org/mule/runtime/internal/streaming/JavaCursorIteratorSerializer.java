@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import org.mule.runtime.api.streaming.CursorIteratorSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link CursorIteratorSerializer} which uses standard Java serialization.
+ *
+ * @since 1.0
+ */
+public final class JavaCursorIteratorSerializer implements CursorIteratorSerializer {
+
+  public static final JavaCursorIteratorSerializer INSTANCE = new JavaCursorIteratorSerializer();
+
+  private JavaCursorIteratorSerializer() {}
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void serialize(List<?> items, OutputStream out) throws IOException {
+    ObjectOutputStream objectOut = new ObjectOutputStream(out);
+    objectOut.writeInt(items.size());
+    for (Object item : items) {
+      objectOut.writeObject(item);
+    }
+    objectOut.flush();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<?> deserialize(InputStream in) throws IOException {
+    ObjectInputStream objectIn = new ObjectInputStream(in);
+    int size = objectIn.readInt();
+    List<Object> items = new ArrayList<>(size);
+    try {
+      for (int i = 0; i < size; i++) {
+        items.add(objectIn.readObject());
+      }
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Could not deserialize item", e);
+    }
+
+    return items;
+  }
+}
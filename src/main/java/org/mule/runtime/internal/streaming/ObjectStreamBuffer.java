@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.nio.ByteBuffer.allocate;
+import static java.nio.ByteBuffer.wrap;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.asList;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.mule.runtime.api.util.Preconditions.checkState;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.streaming.CursorIteratorConfig;
+import org.mule.runtime.api.streaming.CursorIteratorSerializer;
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers the items of an {@link Iterator} so that they can be randomly accessed by the many cursors
+ * opened from the same {@link BufferedCursorIteratorProvider}.
+ * <p>
+ * Items are kept in segments of a fixed size, so the segment holding any given position is found in
+ * constant time. The first segments are kept in memory until {@link CursorIteratorConfig#getMaxInMemoryInstances()}
+ * is reached. From then on, each segment is serialized into a temporary file as soon as it's complete, using the
+ * configured {@link CursorIteratorSerializer}. If no serializer was configured, a
+ * {@link StreamingBufferSizeExceededException} is thrown instead.
+ * <p>
+ * The last few spilled segments which were read back are kept deserialized, so that cursors moving back and forth
+ * around the same positions don't read and deserialize the same segment again on each access.
+ * <p>
+ * The wrapped iterator is consumed lazily, only as the cursors request positions which haven't been fetched yet.
+ *
+ * @param <T> the generic type of the buffered items
+ * @since 1.0
+ */
+public final class ObjectStreamBuffer<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ObjectStreamBuffer.class);
+  private static final String TEMP_FILE_PREFIX = "mule-object-buffer";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final int SPILLED_SEGMENTS_CACHE_SIZE = 2;
+
+  private final Iterator<T> iterator;
+  private final int segmentSize;
+  private final int maxInMemoryInstances;
+  private final int maxInMemorySegments;
+  private final CursorIteratorSerializer serializer;
+  private final List<Segment> segments = new ArrayList<>();
+  private final Map<Segment, Object[]> readSpilledSegments = new LinkedHashMap<Segment, Object[]>(4, 0.75f, true) {
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Segment, Object[]> eldest) {
+      return size() > SPILLED_SEGMENTS_CACHE_SIZE;
+    }
+  };
+
+  private Segment tail;
+  private long size = 0;
+  private boolean iteratorFullyConsumed = false;
+  private boolean released = false;
+  private FileChannel fileChannel;
+  private long fileSize = 0;
+
+  /**
+   * Creates a new instance
+   *
+   * @param iterator the iterator to be buffered
+   * @param config   this buffer's configuration
+   */
+  public ObjectStreamBuffer(Iterator<T> iterator, CursorIteratorConfig config) {
+    this.iterator = iterator;
+    segmentSize = config.getSegmentSize();
+    maxInMemoryInstances = config.getMaxInMemoryInstances();
+    maxInMemorySegments = maxInMemoryInstances / segmentSize;
+    serializer = config.getSerializer().orElse(null);
+  }
+
+  /**
+   * Returns the segment holding the given {@code position}, fetching items from the wrapped iterator if needed.
+   *
+   * @param position the zero-based position of the item to obtain
+   * @return a {@link SegmentView} or {@code null} if {@code position} is beyond the end of the iterator
+   */
+  SegmentView get(long position) {
+    Segment segment;
+    int index = (int) (position / segmentSize);
+    int count;
+
+    synchronized (this) {
+      checkState(!released, "Buffer has already been released");
+      if (!fetchUntil(position)) {
+        return null;
+      }
+
+      segment = segments.get(index);
+      count = segment == tail ? tail.count : segmentSize;
+      if (segment.items != null) {
+        return new SegmentView(index, segment.items, count);
+      }
+    }
+
+    return new SegmentView(index, readSpilledSegment(segment), count);
+  }
+
+  /**
+   * @return the amount of items on each segment
+   */
+  int getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Releases all the resources allocated by {@code this} buffer. If the wrapped iterator is
+   * {@link AutoCloseable}, it is closed as well.
+   */
+  synchronized void release() {
+    if (released) {
+      return;
+    }
+
+    released = true;
+    segments.clear();
+    tail = null;
+    synchronized (readSpilledSegments) {
+      readSpilledSegments.clear();
+    }
+
+    if (fileChannel != null) {
+      try {
+        fileChannel.close();
+      } catch (IOException e) {
+        LOGGER.warn("Could not close and delete temporary object buffer file", e);
+      }
+    }
+
+    if (iterator instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) iterator).close();
+      } catch (Exception e) {
+        LOGGER.debug("Exception found closing buffered iterator", e);
+      }
+    }
+  }
+
+  private boolean fetchUntil(long position) {
+    while (size <= position) {
+      if (iteratorFullyConsumed) {
+        return false;
+      }
+      fetch();
+    }
+
+    return true;
+  }
+
+  private void fetch() {
+    if (!iterator.hasNext()) {
+      iteratorFullyConsumed = true;
+      return;
+    }
+
+    if (serializer == null && size >= maxInMemoryInstances) {
+      throw new StreamingBufferSizeExceededException(maxInMemoryInstances);
+    }
+
+    if (tail == null || tail.count == segmentSize) {
+      newSegment();
+    }
+
+    tail.items[tail.count++] = iterator.next();
+    size++;
+  }
+
+  private void newSegment() {
+    // the new tail counts as an in memory segment too
+    if (tail != null && serializer != null && segments.size() >= maxInMemorySegments) {
+      spill(tail);
+    }
+
+    tail = new Segment(new Object[segmentSize]);
+    segments.add(tail);
+  }
+
+  private void spill(Segment segment) {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      serializer.serialize(asList(segment.items), out);
+      byte[] bytes = out.toByteArray();
+
+      if (fileChannel == null) {
+        fileChannel = FileChannel.open(createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX), READ, WRITE, DELETE_ON_CLOSE);
+      }
+
+      ByteBuffer buffer = wrap(bytes);
+      while (buffer.hasRemaining()) {
+        fileChannel.write(buffer, fileSize + buffer.position());
+      }
+
+      segment.offset = fileSize;
+      segment.length = bytes.length;
+      segment.items = null;
+      fileSize += bytes.length;
+    } catch (IOException e) {
+      throw new MuleRuntimeException(createStaticMessage("Could not spill object stream segment to disk"), e);
+    }
+  }
+
+  private Object[] readSpilledSegment(Segment segment) {
+    synchronized (readSpilledSegments) {
+      Object[] items = readSpilledSegments.get(segment);
+      if (items != null) {
+        return items;
+      }
+    }
+
+    // read outside of the lock, so that cursors over different segments don't wait for each other
+    Object[] items = deserializeSpilledSegment(segment);
+    synchronized (readSpilledSegments) {
+      readSpilledSegments.put(segment, items);
+    }
+    return items;
+  }
+
+  private Object[] deserializeSpilledSegment(Segment segment) {
+    try {
+      ByteBuffer buffer = allocate(segment.length);
+      while (buffer.hasRemaining()) {
+        if (fileChannel.read(buffer, segment.offset + buffer.position()) == -1) {
+          throw new EOFException("Unexpected end of object buffer file");
+        }
+      }
+
+      return serializer.deserialize(new ByteArrayInputStream(buffer.array())).toArray();
+    } catch (IOException e) {
+      throw new MuleRuntimeException(createStaticMessage("Could not read object stream segment from disk"), e);
+    }
+  }
+
+  private static final class Segment {
+
+    private Object[] items;
+    private int count = 0;
+    private long offset;
+    private int length;
+
+    private Segment(Object[] items) {
+      this.items = items;
+    }
+  }
+
+  /**
+   * An immutable view over a segment, obtained through {@link #get(long)}
+   */
+  static final class SegmentView {
+
+    final int index;
+    final Object[] items;
+    final int count;
+
+    private SegmentView(int index, Object[] items, int count) {
+      this.index = index;
+      this.items = items;
+      this.count = count;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the background prefetches of {@link ReadAheadPrefetcher}s from accessing a {@link StreamBuffer} once it's
+ * released.
+ * <p>
+ * Cancelling a prefetch doesn't stop it if it's already running, so each one {@link #enter() enters} the fence before
+ * reading from the buffer. {@link #close()} waits for the prefetches which already entered to {@link #exit()}, and
+ * keeps any other from entering, so the buffer can be released right after it.
+ *
+ * @since 1.0
+ */
+final class PrefetchFence {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // guarded by lock
+  private boolean closed = false;
+
+  /**
+   * @return whether the prefetch can access the buffer, in which case {@link #exit()} must be invoked once it's done
+   */
+  boolean enter() {
+    lock.readLock().lock();
+    if (closed) {
+      lock.readLock().unlock();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Signals that a prefetch which {@link #enter() entered} is no longer accessing the buffer
+   */
+  void exit() {
+    lock.readLock().unlock();
+  }
+
+  /**
+   * Waits for the running prefetches to finish and keeps new ones from accessing the buffer
+   */
+  void close() {
+    lock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
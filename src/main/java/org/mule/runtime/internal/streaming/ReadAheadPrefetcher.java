@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import static java.lang.Math.min;
+import static java.nio.ByteBuffer.allocate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads ahead the content of a {@link StreamBuffer} on behalf of one single {@link BufferedCursorStream}.
+ * <p>
+ * Sequential access is detected by comparing the position of each read with the one in which the previous
+ * read ended. Once enough consecutive reads are found to be sequential, the chunks following the one being read are
+ * fetched on a background {@link ExecutorService} and copied into a ring of buffers, so that by the time the cursor
+ * reaches them, any disk access or decompression has already taken place.
+ * <p>
+ * When a non sequential read is detected or {@link #cancel()} is invoked, the outstanding prefetches are cancelled.
+ * Running tasks are never interrupted, since interrupting a thread blocked on a
+ * {@link java.nio.channels.FileChannel} closes the channel for every other cursor. Instead, they go through the
+ * provider's {@link PrefetchFence}, so that they never access the buffer after it's released.
+ * <p>
+ * Instances are not thread safe, just like the cursor which owns them.
+ *
+ * @since 1.0
+ */
+final class ReadAheadPrefetcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReadAheadPrefetcher.class);
+  private static final int SEQUENTIAL_READS_THRESHOLD = 2;
+
+  private final StreamBuffer buffer;
+  private final PrefetchFence fence;
+  private final ExecutorService executor;
+  private final int chunkSize;
+  private final int readAheadChunks;
+  private final Prefetch[] ring;
+
+  private long expectedPosition = -1;
+  private int sequentialReads = 0;
+
+  /**
+   * Creates a new instance
+   *
+   * @param buffer          the buffer to read from
+   * @param fence           the fence which keeps prefetches from accessing the {@code buffer} once released
+   * @param executor        the executor on which prefetches are performed
+   * @param chunkSize       the amount of bytes fetched on each prefetch
+   * @param readAheadChunks the amount of chunks to read ahead of the current position
+   */
+  ReadAheadPrefetcher(StreamBuffer buffer, PrefetchFence fence, ExecutorService executor, int chunkSize,
+                      int readAheadChunks) {
+    this.buffer = buffer;
+    this.fence = fence;
+    this.executor = executor;
+    this.chunkSize = chunkSize;
+    this.readAheadChunks = readAheadChunks;
+    // one extra slot so that the chunk being read is never overwritten by a prefetch
+    ring = new Prefetch[readAheadChunks + 1];
+  }
+
+  /**
+   * Same as {@link StreamBuffer#get(long, int)}, but the returned view is taken from the prefetched content when
+   * available.
+   *
+   * @param position the zero-based position of the first byte to obtain
+   * @param length   the maximum amount of bytes to obtain
+   * @return a {@link ByteBuffer} view or {@code null} if {@code position} is beyond the end of the stream
+   * @throws IOException if the wrapped stream could not be read
+   */
+  ByteBuffer get(long position, int length) throws IOException {
+    if (position == expectedPosition) {
+      sequentialReads++;
+    } else if (sequentialReads > 0) {
+      cancel();
+    }
+
+    ByteBuffer view = fromRing(position, length);
+    if (view == null) {
+      view = buffer.get(position, length);
+    }
+
+    if (view != null) {
+      expectedPosition = position + view.remaining();
+      if (sequentialReads >= SEQUENTIAL_READS_THRESHOLD) {
+        prefetchAfter(position / chunkSize);
+      }
+    }
+
+    return view;
+  }
+
+  /**
+   * Cancels all the outstanding prefetches and resets the sequential access detection.
+   */
+  void cancel() {
+    for (int i = 0; i < ring.length; i++) {
+      if (ring[i] != null) {
+        ring[i].future.cancel(false);
+        ring[i] = null;
+      }
+    }
+
+    sequentialReads = 0;
+    expectedPosition = -1;
+  }
+
+  private ByteBuffer fromRing(long position, int length) throws IOException {
+    long chunk = position / chunkSize;
+    Prefetch prefetch = ring[slot(chunk)];
+    if (prefetch == null || prefetch.chunk != chunk) {
+      return null;
+    }
+
+    ByteBuffer content;
+    try {
+      content = prefetch.future.get();
+    } catch (CancellationException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for prefetched content");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      LOGGER.debug("Prefetch failed, falling back to direct read", e.getCause());
+      return null;
+    }
+
+    int offset = (int) (position - chunk * chunkSize);
+    if (offset >= content.limit()) {
+      return null;
+    }
+
+    ByteBuffer view = content.duplicate();
+    view.position(offset);
+    view.limit(min(content.limit(), offset + length));
+
+    return view.asReadOnlyBuffer();
+  }
+
+  private void prefetchAfter(long currentChunk) {
+    for (int i = 1; i <= readAheadChunks; i++) {
+      long chunk = currentChunk + i;
+      int slot = slot(chunk);
+      Prefetch previous = ring[slot];
+      if (previous != null && previous.chunk == chunk) {
+        continue;
+      }
+
+      ByteBuffer target = previous != null && previous.isReusable() ? previous.content : allocate(chunkSize);
+      if (previous != null) {
+        previous.future.cancel(false);
+        ring[slot] = null;
+      }
+
+      try {
+        ring[slot] = new Prefetch(chunk, target, executor.submit(() -> fill(chunk, target)));
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Prefetch rejected by executor", e);
+        return;
+      }
+    }
+  }
+
+  private ByteBuffer fill(long chunk, ByteBuffer target) throws IOException {
+    target.clear();
+    // once the buffer is released, an empty target makes the cursor fall back to a direct read
+    if (!fence.enter()) {
+      target.flip();
+      return target;
+    }
+
+    try {
+      long start = chunk * chunkSize;
+      ByteBuffer view;
+      while (target.hasRemaining() && (view = buffer.get(start + target.position(), target.remaining())) != null) {
+        target.put(view);
+      }
+    } finally {
+      fence.exit();
+    }
+    target.flip();
+
+    return target;
+  }
+
+  private int slot(long chunk) {
+    return (int) (chunk % ring.length);
+  }
+
+  private static final class Prefetch {
+
+    private final long chunk;
+    private final ByteBuffer content;
+    private final Future<ByteBuffer> future;
+
+    private Prefetch(long chunk, ByteBuffer content, Future<ByteBuffer> future) {
+      this.chunk = chunk;
+      this.content = content;
+      this.future = future;
+    }
+
+    private boolean isReusable() {
+      return future.isDone() && !future.isCancelled();
+    }
+  }
+}
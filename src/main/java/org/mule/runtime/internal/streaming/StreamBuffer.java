@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.streaming;
+
+import org.mule.runtime.api.streaming.CursorStream;
+import org.mule.runtime.api.streaming.CursorStreamProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A buffer which holds the content of an {@link InputStream} so that it can be randomly accessed by
+ * the many {@link CursorStream cursors} opened from the same {@link CursorStreamProvider}.
+ * <p>
+ * The wrapped stream is consumed lazily, only as the cursors request positions which haven't been
+ * fetched yet.
+ *
+ * @since 1.0
+ */
+public interface StreamBuffer {
+
+  /**
+   * Returns a read-only view over the buffered content starting at the given {@code position}.
+   * <p>
+   * The returned {@link ByteBuffer} shares its content with the buffer, no data is copied. It will
+   * contain at least one byte and at most {@code length} bytes, although it could contain less if
+   * the requested range spans across the buffer's internal boundaries.
+   *
+   * @param position the zero-based position of the first byte to obtain
+   * @param length   the maximum amount of bytes to obtain
+   * @return a {@link ByteBuffer} view or {@code null} if {@code position} is beyond the end of the stream
+   * @throws IOException if the wrapped stream could not be read
+   */
+  ByteBuffer get(long position, int length) throws IOException;
+
+  /**
+   * Writes all the buffered content from the given {@code position} until the end of the stream into
+   * the given {@code target}, fetching from the wrapped stream as needed.
+   * <p>
+   * This default implementation writes the views obtained through {@link #get(long, int)}. Implementations
+   * are free to use more efficient mechanisms, such as
+   * {@link java.nio.channels.FileChannel#transferTo(long, long, WritableByteChannel)}.
+   *
+   * @param position the zero-based position of the first byte to transfer
+   * @param target   a blocking channel to write into
+   * @return the number of transferred bytes
+   * @throws IOException if the wrapped stream could not be read or the target could not be written
+   */
+  default long transferTo(long position, WritableByteChannel target) throws IOException {
+    long transferred = 0;
+    ByteBuffer view;
+    while ((view = get(position + transferred, Integer.MAX_VALUE)) != null) {
+      while (view.hasRemaining()) {
+        transferred += target.write(view);
+      }
+    }
+
+    return transferred;
+  }
+
+  /**
+   * Releases all the resources allocated by {@code this} buffer, including the wrapped stream.
+   * Once invoked, the buffer can no longer be used.
+   */
+  void release();
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.tx;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_NONE;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_WAIT;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.failure;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.success;
+import org.mule.runtime.api.config.DatabasePoolingProfile;
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.ConnectionPool;
+import org.mule.runtime.api.connection.ConnectionPoolStatistics;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.tx.PooledDataSource;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation of {@link PooledDataSource}, backed by a {@link ConnectionPool} of {@link PhysicalConnection}s.
+ * <p>
+ * Connections which are held for longer than the leak detection threshold are looked for periodically if a scheduler
+ * is available. Otherwise, they're looked for while obtaining a connection, at most once per threshold period.
+ *
+ * @since 1.0
+ */
+final class DefaultPooledDataSource implements PooledDataSource {
+
+  private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(DefaultPooledDataSource.class);
+
+  /**
+   * How long, in seconds, the driver is given to check whether a connection is valid
+   */
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  /**
+   * How often idle connections are validated and the minimum pool size replenished when a scheduler is available
+   */
+  private static final int MAINTENANCE_INTERVAL_MILLIS = 30000;
+
+  private final DataSource dataSource;
+  private final String dataSourceName;
+  private final int statementCacheSize;
+  private final long leakDetectionThresholdNanos;
+  private final ScheduledExecutorService scheduler;
+  private final ConnectionPool<PhysicalConnection> pool;
+
+  private final Set<LogicalConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+  private final AtomicLong nextLeakDetection = new AtomicLong(nanoTime());
+  private final LongAdder suspectedLeaks = new LongAdder();
+  private ScheduledFuture<?> leakDetectionTask;
+
+  DefaultPooledDataSource(DataSource dataSource, String dataSourceName, DatabasePoolingProfile dbPoolingProfile,
+                          ScheduledExecutorService scheduler) {
+    this.dataSource = dataSource;
+    this.dataSourceName = dataSourceName;
+    this.scheduler = scheduler;
+    statementCacheSize = dbPoolingProfile.getPreparedStatementCacheSize();
+    leakDetectionThresholdNanos =
+        dbPoolingProfile.getLeakDetectionThresholdUnit().toNanos(dbPoolingProfile.getLeakDetectionThreshold());
+    pool = ConnectionPool.builder(new JdbcConnectionProvider())
+        .poolingProfile(toPoolingProfile(dbPoolingProfile))
+        .scheduler(scheduler)
+        .build();
+  }
+
+  private PoolingProfile toPoolingProfile(DatabasePoolingProfile dbPoolingProfile) {
+    long maxWait = dbPoolingProfile.getMaxWaitUnit().toMillis(dbPoolingProfile.getMaxWait());
+    PoolingProfile poolingProfile = new PoolingProfile(dbPoolingProfile.getMaxPoolSize(), dbPoolingProfile.getMaxPoolSize(),
+                                                       maxWait, WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    poolingProfile.setMinIdle(dbPoolingProfile.getMinPoolSize());
+    if (scheduler != null) {
+      poolingProfile.setEvictionCheckIntervalMillis(MAINTENANCE_INTERVAL_MILLIS);
+    }
+    return poolingProfile;
+  }
+
+  /**
+   * Creates the initial connections and starts the background work, if any
+   *
+   * @throws ConnectionException if the initial connections could not be created
+   */
+  void start() throws ConnectionException {
+    pool.start();
+    if (scheduler != null && leakDetectionThresholdNanos > 0) {
+      leakDetectionTask = scheduler.scheduleWithFixedDelay(() -> detectLeaks(nanoTime()), leakDetectionThresholdNanos,
+                                                           leakDetectionThresholdNanos, NANOSECONDS);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (leakDetectionThresholdNanos > 0 && scheduler == null) {
+      detectLeaksIfDue();
+    }
+
+    ConnectionHandler<PhysicalConnection> handler;
+    PhysicalConnection physical;
+    try {
+      handler = pool.borrow();
+      physical = handler.getConnection();
+    } catch (ConnectionException e) {
+      throw new SQLException("Could not obtain connection from data source '" + dataSourceName + "': " + e.getMessage(),
+                             "08001", e);
+    }
+
+    if (leakDetectionThresholdNanos <= 0) {
+      return new LogicalConnection(handler, physical, closed -> {
+      }, false).getProxy();
+    }
+
+    LogicalConnection connection = new LogicalConnection(handler, physical, borrowedConnections::remove, true);
+    borrowedConnections.add(connection);
+    return connection.getProxy();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    throw new SQLFeatureNotSupportedException("Pooled data source '" + dataSourceName
+        + "' doesn't support obtaining connections with different credentials");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionPoolStatistics getStatistics() {
+    return pool.getStatistics();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getSuspectedLeaksCount() {
+    return suspectedLeaks.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    if (leakDetectionTask != null) {
+      leakDetectionTask.cancel(false);
+    }
+    pool.close();
+  }
+
+  private void detectLeaksIfDue() {
+    long now = nanoTime();
+    long next = nextLeakDetection.get();
+    if (now - next >= 0 && nextLeakDetection.compareAndSet(next, now + leakDetectionThresholdNanos)) {
+      detectLeaks(now);
+    }
+  }
+
+  private void detectLeaks(long now) {
+    for (LogicalConnection connection : borrowedConnections) {
+      long heldNanos = now - connection.getBorrowedAt();
+      if (heldNanos > leakDetectionThresholdNanos && connection.reportLeak()) {
+        suspectedLeaks.increment();
+        LOGGER.warn("Connection of data source '{}' has been held for {} ms without being closed, it might have leaked",
+                    dataSourceName, NANOSECONDS.toMillis(heldNanos), connection.getBorrowSite());
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return dataSource.getLogWriter();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    dataSource.setLogWriter(out);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    dataSource.setLoginTimeout(seconds);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return dataSource.getLoginTimeout();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    return dataSource.getParentLogger();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    return iface.isInstance(this) ? iface.cast(this) : dataSource.unwrap(iface);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+  }
+
+  private final class JdbcConnectionProvider implements ConnectionProvider<PhysicalConnection> {
+
+    @Override
+    public PhysicalConnection connect() throws ConnectionException {
+      Connection connection;
+      try {
+        connection = dataSource.getConnection();
+      } catch (SQLException e) {
+        throw new ConnectionException("Could not obtain connection from data source '" + dataSourceName + "'", e);
+      }
+
+      try {
+        return new PhysicalConnection(connection, statementCacheSize);
+      } catch (SQLException e) {
+        try {
+          connection.close();
+        } catch (SQLException closeException) {
+          e.addSuppressed(closeException);
+        }
+        throw new ConnectionException("Could not read the settings of a connection of data source '" + dataSourceName
+            + "'", e);
+      }
+    }
+
+    @Override
+    public void disconnect(PhysicalConnection connection) {
+      connection.close();
+    }
+
+    /**
+     * Validates the connection through {@link Connection#isValid(int)}, which lets the driver use its own lightweight
+     * check instead of a test query
+     */
+    @Override
+    public ConnectionValidationResult validate(PhysicalConnection connection) {
+      try {
+        return connection.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS) ? success()
+            : failure("Connection of data source '" + dataSourceName + "' is no longer valid", null);
+      } catch (SQLException e) {
+        return failure("Could not validate connection of data source '" + dataSourceName + "'", e);
+      }
+    }
+  }
+}
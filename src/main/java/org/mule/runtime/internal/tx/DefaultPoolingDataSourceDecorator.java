@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.tx;
+
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import org.mule.runtime.api.config.DatabasePoolingProfile;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.tx.PooledDataSource;
+import org.mule.runtime.api.tx.PoolingDataSourceDecorator;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.sql.DataSource;
+import javax.sql.XADataSource;
+
+/**
+ * Default implementation of {@link PoolingDataSourceDecorator}, which decorates data sources with
+ * {@link DefaultPooledDataSource}s.
+ *
+ * @since 1.0
+ */
+public final class DefaultPoolingDataSourceDecorator implements PoolingDataSourceDecorator {
+
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a new instance
+   *
+   * @param scheduler the scheduler for the pools' background work. Might be {@code null}
+   */
+  public DefaultPoolingDataSourceDecorator(ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PooledDataSource decorate(DataSource dataSource, String dataSourceName, DatabasePoolingProfile dbPoolingProfile) {
+    checkArgument(dataSource != null, "dataSource cannot be null");
+    checkArgument(dbPoolingProfile != null, "dbPoolingProfile cannot be null");
+
+    DefaultPooledDataSource pooledDataSource =
+        new DefaultPooledDataSource(dataSource, dataSourceName, dbPoolingProfile, scheduler);
+    try {
+      pooledDataSource.start();
+    } catch (ConnectionException e) {
+      pooledDataSource.close();
+      throw new MuleRuntimeException(createStaticMessage("Could not create the initial connections of data source '"
+          + dataSourceName + "'"), e);
+    }
+
+    return pooledDataSource;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean appliesTo(DataSource dataSource) {
+    return !(dataSource instanceof PooledDataSource) && !(dataSource instanceof XADataSource);
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.tx;
+
+import static java.lang.System.identityHashCode;
+import static java.lang.System.nanoTime;
+import org.mule.runtime.api.connection.ConnectionHandler;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link Connection} handed out by a {@link DefaultPooledDataSource}. It's a dynamic proxy over a
+ * {@link PhysicalConnection} which returns it to the pool when it's closed.
+ * <p>
+ * Statements created through it are proxied as well, so that the ones prepared through {@link PreparedStatement}
+ * methods go back to the {@link StatementCache} when they're closed, and so that the ones still open when the
+ * connection is closed are closed along with it.
+ * <p>
+ * If any call fails with a SQL state of the connection exception class ({@code 08}), the physical connection is
+ * considered broken and it's discarded instead of being returned to the pool.
+ * <p>
+ * {@link Connection#unwrap(Class)} returns the proxy itself for any interface it implements, so that clients can't
+ * reach the physical connection and close it or keep it after returning it. Unwrapping to a vendor interface does
+ * hand out the physical connection, whose settings can then be changed behind the proxy's back, so it's always
+ * reset when it's returned.
+ *
+ * @since 1.0
+ */
+final class LogicalConnection implements InvocationHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogicalConnection.class);
+  private static final String CONNECTION_EXCEPTION_SQL_STATE_CLASS = "08";
+
+  private final ConnectionHandler<PhysicalConnection> handler;
+  private final PhysicalConnection physical;
+  private final Connection proxy;
+  private final Consumer<LogicalConnection> onClose;
+  private final long borrowedAt;
+  private final Exception borrowSite;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final AtomicBoolean leakReported = new AtomicBoolean(false);
+  private final List<PooledStatement> openStatements = new ArrayList<>();
+  private volatile boolean dirty = false;
+  private volatile boolean broken = false;
+
+  /**
+   * Creates a new instance
+   *
+   * @param handler         the handler of the pooled {@link PhysicalConnection}
+   * @param physical        the pooled connection
+   * @param onClose         a callback invoked when the connection is closed
+   * @param trackBorrowSite whether to capture the stack trace of the code which obtained the connection
+   */
+  LogicalConnection(ConnectionHandler<PhysicalConnection> handler, PhysicalConnection physical,
+                    Consumer<LogicalConnection> onClose, boolean trackBorrowSite) {
+    this.handler = handler;
+    this.physical = physical;
+    this.onClose = onClose;
+    borrowedAt = nanoTime();
+    borrowSite = trackBorrowSite ? new Exception("Connection was obtained here") : null;
+    proxy = (Connection) Proxy.newProxyInstance(LogicalConnection.class.getClassLoader(), new Class[] {Connection.class},
+                                                this);
+  }
+
+  Connection getProxy() {
+    return proxy;
+  }
+
+  long getBorrowedAt() {
+    return borrowedAt;
+  }
+
+  Exception getBorrowSite() {
+    return borrowSite;
+  }
+
+  /**
+   * @return whether this is the first time this connection is reported as a possible leak
+   */
+  boolean reportLeak() {
+    return leakReported.compareAndSet(false, true);
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    switch (method.getName()) {
+      case "close":
+        close();
+        return null;
+      case "isClosed":
+        return closed.get();
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return identityHashCode(proxy);
+      case "toString":
+        return "Pooled " + physical.getConnection();
+      case "isValid":
+        return !closed.get() && !broken && (Boolean) invokeTarget(physical.getConnection(), method, args);
+      case "unwrap":
+        checkNotClosed();
+        if (((Class<?>) args[0]).isInstance(proxy)) {
+          return proxy;
+        }
+        dirty = true;
+        return invokeTarget(physical.getConnection(), method, args);
+      case "isWrapperFor":
+        checkNotClosed();
+        return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) invokeTarget(physical.getConnection(), method, args);
+      default:
+        break;
+    }
+
+    checkNotClosed();
+    if (method.getName().startsWith("set")) {
+      dirty = true;
+    }
+
+    if (method.getName().equals("prepareStatement") && physical.getStatementCache().isEnabled()) {
+      StatementKey key = new StatementKey(args);
+      PreparedStatement statement = physical.getStatementCache().checkOut(key);
+      if (statement == null) {
+        statement = (PreparedStatement) invokeTarget(physical.getConnection(), method, args);
+      }
+      return track(statement, method.getReturnType(), key);
+    }
+
+    Object result = invokeTarget(physical.getConnection(), method, args);
+    return result instanceof Statement ? track((Statement) result, method.getReturnType(), null) : result;
+  }
+
+  /**
+   * Invokes a method on an object of the physical connection, recording whether it failed because the connection is
+   * broken
+   */
+  Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException && isFatal((SQLException) cause)) {
+        broken = true;
+      }
+      throw cause;
+    }
+  }
+
+  void checkNotClosed() throws SQLException {
+    if (closed.get()) {
+      throw new SQLException("Connection is closed", "08003");
+    }
+  }
+
+  private Object track(Statement statement, Class<?> type, StatementKey key) {
+    PooledStatement pooled = new PooledStatement(this, statement, type, key);
+    synchronized (openStatements) {
+      openStatements.add(pooled);
+    }
+    return pooled.getProxy();
+  }
+
+  /**
+   * Closes a statement created through this connection, returning it to the {@link StatementCache} if it was
+   * prepared through it
+   */
+  void closeStatement(PooledStatement pooled) throws SQLException {
+    synchronized (openStatements) {
+      openStatements.remove(pooled);
+    }
+
+    Statement statement = pooled.getStatement();
+    if (pooled.getKey() == null || broken) {
+      statement.close();
+      return;
+    }
+
+    try {
+      ((PreparedStatement) statement).clearParameters();
+      statement.clearWarnings();
+    } catch (SQLException e) {
+      statement.close();
+      throw e;
+    }
+    physical.getStatementCache().checkIn(pooled.getKey(), (PreparedStatement) statement);
+  }
+
+  private void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    onClose.accept(this);
+    closeOpenStatements();
+    reset();
+
+    if (broken) {
+      handler.invalidate();
+    } else {
+      handler.release();
+    }
+  }
+
+  private void closeOpenStatements() {
+    List<PooledStatement> statements;
+    synchronized (openStatements) {
+      statements = new ArrayList<>(openStatements);
+    }
+
+    for (PooledStatement statement : statements) {
+      try {
+        statement.close();
+      } catch (SQLException e) {
+        LOGGER.debug("Exception found closing statement of pooled connection", e);
+      }
+    }
+  }
+
+  /**
+   * Rolls back any pending work and restores the settings changed by the client, so that the next one gets the
+   * connection as it was created
+   */
+  private void reset() {
+    if (broken) {
+      return;
+    }
+
+    try {
+      Connection connection = physical.getConnection();
+      if ((dirty || !physical.isDefaultAutoCommit()) && !connection.getAutoCommit()) {
+        connection.rollback();
+      }
+      if (dirty) {
+        physical.restoreDefaults();
+      }
+    } catch (SQLException e) {
+      LOGGER.warn("Exception found resetting pooled connection, it will be discarded", e);
+      broken = true;
+    }
+  }
+
+  private static boolean isFatal(SQLException e) {
+    return e instanceof SQLNonTransientConnectionException
+        || (e.getSQLState() != null && e.getSQLState().startsWith(CONNECTION_EXCEPTION_SQL_STATE_CLASS));
+  }
+}
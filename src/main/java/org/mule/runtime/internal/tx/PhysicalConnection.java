@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.tx;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Connection} of the decorated data source, as kept by the pool, along with its {@link StatementCache} and
+ * the settings it had when it was created, which are restored every time it's returned.
+ *
+ * @since 1.0
+ */
+final class PhysicalConnection {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PhysicalConnection.class);
+
+  private final Connection connection;
+  private final StatementCache statementCache;
+  private final boolean defaultAutoCommit;
+  private final boolean defaultReadOnly;
+  private final int defaultTransactionIsolation;
+  private final String defaultCatalog;
+
+  PhysicalConnection(Connection connection, int statementCacheSize) throws SQLException {
+    this.connection = connection;
+    statementCache = new StatementCache(statementCacheSize);
+    defaultAutoCommit = connection.getAutoCommit();
+    defaultReadOnly = connection.isReadOnly();
+    defaultTransactionIsolation = connection.getTransactionIsolation();
+    defaultCatalog = connection.getCatalog();
+  }
+
+  Connection getConnection() {
+    return connection;
+  }
+
+  StatementCache getStatementCache() {
+    return statementCache;
+  }
+
+  boolean isDefaultAutoCommit() {
+    return defaultAutoCommit;
+  }
+
+  /**
+   * Restores the settings the connection had when it was created
+   */
+  void restoreDefaults() throws SQLException {
+    if (connection.getAutoCommit() != defaultAutoCommit) {
+      connection.setAutoCommit(defaultAutoCommit);
+    }
+    if (connection.isReadOnly() != defaultReadOnly) {
+      connection.setReadOnly(defaultReadOnly);
+    }
+    if (connection.getTransactionIsolation() != defaultTransactionIsolation) {
+      connection.setTransactionIsolation(defaultTransactionIsolation);
+    }
+    if (!Objects.equals(connection.getCatalog(), defaultCatalog)) {
+      connection.setCatalog(defaultCatalog);
+    }
+  }
+
+  /**
+   * Closes the cached statements and the connection itself
+   */
+  void close() {
+    statementCache.close();
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      LOGGER.warn("Exception found closing pooled JDBC connection", e);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.tx;
+
+import static java.lang.System.identityHashCode;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Statement} created through a {@link LogicalConnection}. It's a dynamic proxy which lets the connection
+ * decide what closing the statement means.
+ *
+ * @since 1.0
+ */
+final class PooledStatement implements InvocationHandler {
+
+  private final LogicalConnection connection;
+  private final Statement statement;
+  private final StatementKey key;
+  private final Statement proxy;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+
+  /**
+   * Creates a new instance
+   *
+   * @param connection the connection which created the statement
+   * @param statement  the statement of the physical connection
+   * @param type       the {@link Statement} interface the proxy implements
+   * @param key        the key of the statement in the {@link StatementCache}, or {@code null} if it's not cached
+   */
+  PooledStatement(LogicalConnection connection, Statement statement, Class<?> type, StatementKey key) {
+    this.connection = connection;
+    this.statement = statement;
+    this.key = key;
+    proxy = (Statement) Proxy.newProxyInstance(PooledStatement.class.getClassLoader(), new Class[] {type}, this);
+  }
+
+  Statement getProxy() {
+    return proxy;
+  }
+
+  Statement getStatement() {
+    return statement;
+  }
+
+  StatementKey getKey() {
+    return key;
+  }
+
+  void close() throws SQLException {
+    if (closed.compareAndSet(false, true)) {
+      connection.closeStatement(this);
+    }
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    switch (method.getName()) {
+      case "close":
+        close();
+        return null;
+      case "isClosed":
+        return closed.get();
+      case "getConnection":
+        return connection.getProxy();
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return identityHashCode(proxy);
+      case "toString":
+        return "Pooled " + statement;
+      default:
+        break;
+    }
+
+    if (closed.get()) {
+      throw new SQLException("Statement is closed");
+    }
+    connection.checkNotClosed();
+    return connection.invokeTarget(statement, method, args);
+  }
+}
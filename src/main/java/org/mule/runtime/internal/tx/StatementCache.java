@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.tx;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least recently used cache of the {@link PreparedStatement}s of one physical connection.
+ * <p>
+ * Statements are taken out of the cache while they're in use, so that two statements with the same SQL can be open at
+ * the same time, and put back once the client closes them. The statement which was closed the longest ago is the one
+ * actually closed when the cache is full.
+ *
+ * @since 1.0
+ */
+final class StatementCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StatementCache.class);
+
+  private final int maxSize;
+  private final Map<StatementKey, PreparedStatement> statements;
+
+  StatementCache(int maxSize) {
+    this.maxSize = maxSize;
+    statements = new LinkedHashMap<StatementKey, PreparedStatement>() {
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+        if (size() > StatementCache.this.maxSize) {
+          closeQuietly(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @return whether statements are cached at all
+   */
+  boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * Takes the statement for the given {@code key} out of the cache
+   *
+   * @return the cached statement, or {@code null} if there's none
+   */
+  synchronized PreparedStatement checkOut(StatementKey key) {
+    return statements.remove(key);
+  }
+
+  /**
+   * Puts a statement back into the cache, closing it if there's already one for the same {@code key}
+   */
+  synchronized void checkIn(StatementKey key, PreparedStatement statement) {
+    if (statements.containsKey(key)) {
+      closeQuietly(statement);
+    } else {
+      statements.put(key, statement);
+    }
+  }
+
+  /**
+   * Closes all the cached statements
+   */
+  synchronized void close() {
+    for (PreparedStatement statement : statements.values()) {
+      closeQuietly(statement);
+    }
+    statements.clear();
+  }
+
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      LOGGER.debug("Exception found closing cached statement", e);
+    }
+  }
+}
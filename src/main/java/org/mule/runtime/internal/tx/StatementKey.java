@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.internal.tx;
+
+import static java.util.Arrays.deepEquals;
+import static java.util.Arrays.deepHashCode;
+
+/**
+ * Identifies a cached {@link java.sql.PreparedStatement} by the arguments it was prepared with: the SQL plus the
+ * optional result set type, concurrency, holdability or generated keys settings.
+ *
+ * @since 1.0
+ */
+final class StatementKey {
+
+  private final Object[] arguments;
+  private final int hash;
+
+  StatementKey(Object[] arguments) {
+    this.arguments = arguments;
+    hash = deepHashCode(arguments);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof StatementKey)) {
+      return false;
+    }
+
+    StatementKey other = (StatementKey) obj;
+    return hash == other.hash && deepEquals(arguments, other.arguments);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.runtime.api.connection.CircuitBreakingConnectionProvider.State.CLOSED;
+import static org.mule.runtime.api.connection.CircuitBreakingConnectionProvider.State.HALF_OPEN;
+import static org.mule.runtime.api.connection.CircuitBreakingConnectionProvider.State.OPEN;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.success;
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CircuitBreakingConnectionProviderTestCase {
+
+  private static final ErrorType CIRCUIT_OPEN = new ErrorType() {
+
+    @Override
+    public String getIdentifier() {
+      return "CIRCUIT_OPEN";
+    }
+
+    @Override
+    public String getNamespace() {
+      return "TEST";
+    }
+
+    @Override
+    public ErrorType getParentErrorType() {
+      return null;
+    }
+  };
+
+  private final TestConnectionProvider delegate = new TestConnectionProvider();
+
+  @Test
+  public void tripsOnConsecutiveFailures() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(3).openDuration(1, SECONDS).errorType(CIRCUIT_OPEN).build();
+
+    delegate.failing = true;
+    for (int i = 0; i < 3; i++) {
+      assertConnectFails(breaker);
+    }
+    assertThat(breaker.getState(), is(OPEN));
+    assertThat(delegate.attempts.get(), is(3));
+
+    try {
+      breaker.connect();
+      fail("Breaker should have failed fast");
+    } catch (ConnectionException e) {
+      assertThat(e.getErrorType().get(), is(sameInstance(CIRCUIT_OPEN)));
+    }
+    assertThat(delegate.attempts.get(), is(3));
+  }
+
+  @Test
+  public void successResetsConsecutiveFailures() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(3).errorType(CIRCUIT_OPEN).build();
+
+    for (int i = 0; i < 5; i++) {
+      delegate.failing = true;
+      assertConnectFails(breaker);
+      assertConnectFails(breaker);
+      delegate.failing = false;
+      breaker.connect();
+    }
+    assertThat(breaker.getState(), is(CLOSED));
+  }
+
+  @Test
+  public void tripsOnFailureRate() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(0).failureRateThreshold(0.5, 10).errorType(CIRCUIT_OPEN).build();
+
+    for (int i = 0; i < 20 && breaker.getState() == CLOSED; i++) {
+      delegate.failing = i % 2 == 0;
+      try {
+        breaker.connect();
+      } catch (ConnectionException e) {
+        // expected for half of the attempts
+      }
+    }
+    assertThat(breaker.getState(), is(OPEN));
+  }
+
+  @Test
+  public void halfOpenProbeCloses() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(1).openDuration(50, MILLISECONDS).errorType(CIRCUIT_OPEN).build();
+
+    delegate.failing = true;
+    assertConnectFails(breaker);
+    assertThat(breaker.getState(), is(OPEN));
+
+    Thread.sleep(100);
+    delegate.failing = false;
+    breaker.connect();
+    assertThat(breaker.getState(), is(CLOSED));
+  }
+
+  @Test
+  public void halfOpenProbeFailureReopens() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(1).openDuration(50, MILLISECONDS).errorType(CIRCUIT_OPEN).build();
+
+    delegate.failing = true;
+    assertConnectFails(breaker);
+    Thread.sleep(100);
+    assertConnectFails(breaker);
+
+    assertThat(breaker.getState(), is(OPEN));
+    assertThat(delegate.attempts.get(), is(2));
+  }
+
+  @Test
+  public void halfOpenLetsOneSingleProbeThrough() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(1).openDuration(50, MILLISECONDS).errorType(CIRCUIT_OPEN).build();
+
+    delegate.failing = true;
+    assertConnectFails(breaker);
+    Thread.sleep(100);
+
+    delegate.failing = false;
+    delegate.latch = new CountDownLatch(1);
+    Thread probe = new Thread(() -> {
+      try {
+        breaker.connect();
+      } catch (ConnectionException e) {
+        // not expected, asserted through the breaker's state
+      }
+    });
+    probe.start();
+
+    while (breaker.getState() != HALF_OPEN) {
+      Thread.sleep(5);
+    }
+    assertConnectFails(breaker);
+
+    delegate.latch.countDown();
+    probe.join(5000);
+    assertThat(breaker.getState(), is(CLOSED));
+    assertThat(delegate.attempts.get(), is(2));
+  }
+
+  @Test
+  public void connectAsyncFailsFast() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(1).errorType(CIRCUIT_OPEN).build();
+
+    delegate.failing = true;
+    try {
+      breaker.connectAsync(Runnable::run).get();
+      fail("Connection should have failed");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause() instanceof ConnectionException, is(true));
+    }
+
+    assertThat(breaker.getState(), is(OPEN));
+    assertThat(breaker.connectAsync(Runnable::run).isCompletedExceptionally(), is(true));
+    assertThat(delegate.attempts.get(), is(1));
+  }
+
+  @Test
+  public void probeThrowingErrorReopens() throws Exception {
+    CircuitBreakingConnectionProvider<Object> breaker = CircuitBreakingConnectionProvider.builder(delegate)
+        .consecutiveFailuresThreshold(1).openDuration(50, MILLISECONDS).errorType(CIRCUIT_OPEN).build();
+
+    delegate.failing = true;
+    assertConnectFails(breaker);
+    Thread.sleep(100);
+
+    delegate.error = new NoClassDefFoundError("com/acme/Driver");
+    try {
+      breaker.connect();
+      fail("Probe should have thrown");
+    } catch (NoClassDefFoundError e) {
+      // expected
+    }
+    assertThat(breaker.getState(), is(OPEN));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void errorTypeIsMandatory() {
+    CircuitBreakingConnectionProvider.builder(delegate).build();
+  }
+
+  @Test
+  public void keepsPoolingMarker() {
+    PoolingConnectionProvider<Object> pooling = new PoolingConnectionProvider<Object>() {
+
+      @Override
+      public Object connect() {
+        return new Object();
+      }
+
+      @Override
+      public void disconnect(Object connection) {}
+
+      @Override
+      public ConnectionValidationResult validate(Object connection) {
+        return success();
+      }
+    };
+
+    assertThat(CircuitBreakingConnectionProvider.builder(pooling).errorType(CIRCUIT_OPEN).build(),
+               is(instanceOf(PoolingConnectionProvider.class)));
+    assertThat(CircuitBreakingConnectionProvider.builder(delegate).errorType(CIRCUIT_OPEN).build(),
+               is(not(instanceOf(PoolingConnectionProvider.class))));
+  }
+
+  @Test
+  public void keepsCachedMarker() {
+    CachedConnectionProvider<Object> cached = new CachedConnectionProvider<Object>() {
+
+      @Override
+      public Object connect() {
+        return new Object();
+      }
+
+      @Override
+      public void disconnect(Object connection) {}
+
+      @Override
+      public ConnectionValidationResult validate(Object connection) {
+        return success();
+      }
+    };
+
+    assertThat(CircuitBreakingConnectionProvider.builder(cached).errorType(CIRCUIT_OPEN).build(),
+               is(instanceOf(CachedConnectionProvider.class)));
+    assertThat(CircuitBreakingConnectionProvider.builder(delegate).errorType(CIRCUIT_OPEN).build(),
+               is(not(instanceOf(CachedConnectionProvider.class))));
+  }
+
+  private void assertConnectFails(ConnectionProvider<Object> provider) {
+    try {
+      provider.connect();
+      fail("Connection should have failed");
+    } catch (ConnectionException e) {
+      // expected
+    }
+  }
+
+  private static class TestConnectionProvider implements ConnectionProvider<Object> {
+
+    private final AtomicInteger attempts = new AtomicInteger(0);
+    private volatile boolean failing = false;
+    private volatile CountDownLatch latch;
+    private volatile Error error;
+
+    @Override
+    public Object connect() throws ConnectionException {
+      attempts.incrementAndGet();
+      if (latch != null) {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      if (error != null) {
+        throw error;
+      }
+      if (failing) {
+        throw new ConnectionException("Backend is down");
+      }
+      return new Object();
+    }
+
+    @Override
+    public void disconnect(Object connection) {}
+
+    @Override
+    public ConnectionValidationResult validate(Object connection) {
+      return success();
+    }
+  }
+}
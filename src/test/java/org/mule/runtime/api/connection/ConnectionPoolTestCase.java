@@ -0,0 +1,667 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_ALL;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_NONE;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_ONE;
+import static org.mule.runtime.api.config.PoolingProfile.SIZING_ADAPTIVE;
+import static org.mule.runtime.api.config.PoolingProfile.VALIDATE_CACHED;
+import static org.mule.runtime.api.config.PoolingProfile.VALIDATE_ON_ERROR;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_FAIL;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_GROW;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_WAIT;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.failure;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.success;
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.message.ErrorType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ConnectionPoolTestCase {
+
+  private static final int MAX_ACTIVE = 3;
+  private static final ErrorType CONNECTIVITY = new ErrorType() {
+
+    @Override
+    public String getIdentifier() {
+      return "CONNECTIVITY";
+    }
+
+    @Override
+    public String getNamespace() {
+      return "TEST";
+    }
+
+    @Override
+    public ErrorType getParentErrorType() {
+      return null;
+    }
+  };
+
+  private final TestConnectionProvider provider = new TestConnectionProvider();
+  private ConnectionPool<TestConnection> pool;
+
+  @After
+  public void after() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void initialiseAll() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_ALL);
+    assertThat(pool.getNumIdle(), is(MAX_ACTIVE));
+    assertThat(pool.getNumActive(), is(0));
+    assertThat(provider.connected.get(), is(MAX_ACTIVE));
+  }
+
+  @Test
+  public void reuseReturnedConnection() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+
+    ConnectionHandler<TestConnection> handler = pool.borrow();
+    TestConnection connection = handler.getConnection();
+    assertThat(pool.getNumActive(), is(1));
+    handler.release();
+
+    assertThat(pool.getNumActive(), is(0));
+    assertThat(pool.getNumIdle(), is(1));
+    assertThat(pool.borrow().getConnection(), is(sameInstance(connection)));
+    assertThat(provider.borrowed.get(), is(2));
+    assertThat(provider.returned.get(), is(1));
+  }
+
+  @Test(expected = ConnectionException.class)
+  public void exhaustedFail() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    for (int i = 0; i <= MAX_ACTIVE; i++) {
+      pool.borrow();
+    }
+  }
+
+  @Test
+  public void exhaustedGrow() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_GROW, INITIALISE_NONE);
+    for (int i = 0; i <= MAX_ACTIVE; i++) {
+      pool.borrow();
+    }
+    assertThat(pool.getNumActive(), is(MAX_ACTIVE + 1));
+  }
+
+  @Test(expected = ConnectionException.class)
+  public void exhaustedWaitTimeout() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    for (int i = 0; i <= MAX_ACTIVE; i++) {
+      pool.borrow();
+    }
+  }
+
+  @Test
+  public void exhaustedWaitHandOver() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    List<ConnectionHandler<TestConnection>> handlers = new ArrayList<>();
+    for (int i = 0; i < MAX_ACTIVE; i++) {
+      handlers.add(pool.borrow());
+    }
+
+    ExecutorService executor = newFixedThreadPool(1);
+    try {
+      Future<TestConnection> waiting = executor.submit(() -> pool.borrow().getConnection());
+      Thread.sleep(100);
+      TestConnection released = handlers.get(0).getConnection();
+      handlers.get(0).release();
+      assertThat(waiting.get(5, SECONDS), is(sameInstance(released)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void invalidConnectionIsDestroyed() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    ConnectionHandler<TestConnection> handler = pool.borrow();
+    TestConnection connection = handler.getConnection();
+    handler.release();
+
+    connection.valid = false;
+    assertThat(pool.borrow().getConnection(), is(not(sameInstance(connection))));
+    assertThat(connection.disconnected, is(true));
+  }
+
+  @Test
+  public void invalidate() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    ConnectionHandler<TestConnection> handler = pool.borrow();
+    handler.invalidate();
+
+    assertThat(pool.getNumActive(), is(0));
+    assertThat(pool.getNumIdle(), is(0));
+    assertThat(provider.disconnected.get(), is(1));
+  }
+
+  @Test
+  public void concurrentBorrowers() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    ExecutorService executor = newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 500; j++) {
+            ConnectionHandler<TestConnection> handler = pool.borrow();
+            TestConnection connection = handler.getConnection();
+            assertThat(connection.inUse.incrementAndGet(), is(1));
+            connection.inUse.decrementAndGet();
+            handler.release();
+          }
+          return null;
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        future.get(30, SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(pool.getNumActive(), is(0));
+    assertThat(provider.connected.get() - provider.disconnected.get() <= MAX_ACTIVE, is(true));
+  }
+
+  @Test
+  public void borrowAsync() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    ConnectionHandler<TestConnection> handler = pool.borrowAsync().get(5, SECONDS);
+    TestConnection connection = handler.getConnection();
+    handler.release();
+
+    assertThat(pool.borrowAsync().get(5, SECONDS).getConnection(), is(sameInstance(connection)));
+    assertThat(provider.borrowed.get(), is(2));
+  }
+
+  @Test
+  public void borrowAsyncWaitsWithoutBlocking() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    List<ConnectionHandler<TestConnection>> handlers = new ArrayList<>();
+    for (int i = 0; i < MAX_ACTIVE; i++) {
+      handlers.add(pool.borrow());
+    }
+
+    CompletableFuture<ConnectionHandler<TestConnection>> waiting = pool.borrowAsync();
+    assertThat(waiting.isDone(), is(false));
+
+    TestConnection released = handlers.get(0).getConnection();
+    handlers.get(0).release();
+    assertThat(waiting.get(5, SECONDS).getConnection(), is(sameInstance(released)));
+  }
+
+  @Test
+  public void borrowAsyncResumesOffTheReleasingThread() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    List<ConnectionHandler<TestConnection>> handlers = new ArrayList<>();
+    for (int i = 0; i < MAX_ACTIVE; i++) {
+      handlers.add(pool.borrow());
+    }
+
+    CompletableFuture<Thread> resumedOn = pool.borrowAsync().thenApply(handler -> Thread.currentThread());
+    handlers.get(0).release();
+    assertThat(resumedOn.get(5, SECONDS), is(not(sameInstance(Thread.currentThread()))));
+  }
+
+  @Test
+  public void borrowAsyncTimeoutWithoutScheduler() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    for (int i = 0; i < MAX_ACTIVE; i++) {
+      pool.borrow();
+    }
+
+    try {
+      pool.borrowAsync().get(5, SECONDS);
+      fail("Borrow should have timed out");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), is(instanceOf(ConnectionException.class)));
+    }
+  }
+
+  @Test
+  public void borrowAsyncTimeout() throws Exception {
+    ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor();
+    try {
+      PoolingProfile poolingProfile = new PoolingProfile(1, 1, 100, WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+      pool = ConnectionPool.builder(provider).poolingProfile(poolingProfile).scheduler(scheduler).build();
+      pool.start();
+      pool.borrow();
+
+      try {
+        pool.borrowAsync().get(5, SECONDS);
+        fail("Borrow should have timed out");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause(), is(instanceOf(ConnectionException.class)));
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void borrowAsyncConnectionFailureFreesSlot() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    provider.failConnect = true;
+    try {
+      pool.borrowAsync().get(5, SECONDS);
+      fail("Borrow should have failed");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), is(instanceOf(ConnectionException.class)));
+    }
+
+    provider.failConnect = false;
+    for (int i = 0; i < MAX_ACTIVE; i++) {
+      pool.borrowAsync().get(5, SECONDS);
+    }
+    assertThat(pool.getNumActive(), is(MAX_ACTIVE));
+  }
+
+  @Test
+  public void initialiseAllInParallel() throws Exception {
+    ScheduledExecutorService scheduler = newScheduledThreadPool(MAX_ACTIVE);
+    try {
+      provider.connectDelay = 200;
+      PoolingProfile poolingProfile = new PoolingProfile(MAX_ACTIVE, MAX_ACTIVE, 200, WHEN_EXHAUSTED_FAIL, INITIALISE_ALL);
+      pool = ConnectionPool.builder(provider).poolingProfile(poolingProfile).scheduler(scheduler).build();
+      pool.start();
+
+      assertThat(pool.getNumIdle(), is(MAX_ACTIVE));
+      assertThat(provider.maxConcurrentConnects.get() > 1, is(true));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void backgroundValidationAndPrewarm() throws Exception {
+    ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor();
+    try {
+      PoolingProfile poolingProfile = new PoolingProfile(MAX_ACTIVE, MAX_ACTIVE, 200, WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+      poolingProfile.setMinIdle(2);
+      poolingProfile.setEvictionCheckIntervalMillis(20);
+      pool = ConnectionPool.builder(provider).poolingProfile(poolingProfile).scheduler(scheduler).build();
+      pool.start();
+      assertThat(pool.getNumIdle(), is(2));
+
+      ConnectionHandler<TestConnection> handler = pool.borrow();
+      TestConnection invalid = handler.getConnection();
+      handler.release();
+      invalid.valid = false;
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (!invalid.disconnected && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      assertThat(invalid.disconnected, is(true));
+
+      while (pool.getNumIdle() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      assertThat(pool.getNumIdle(), is(2));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void statistics() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    List<ConnectionHandler<TestConnection>> handlers = new ArrayList<>();
+    for (int i = 0; i < MAX_ACTIVE; i++) {
+      handlers.add(pool.borrow());
+    }
+
+    try {
+      pool.borrow();
+      fail("Borrow should have timed out");
+    } catch (ConnectionException e) {
+      // expected
+    }
+
+    TestConnection invalid = handlers.get(0).getConnection();
+    handlers.get(0).release();
+    invalid.valid = false;
+    pool.borrow();
+
+    ConnectionPoolStatistics statistics = pool.getStatistics();
+    assertThat(statistics.getActiveCount(), is(MAX_ACTIVE));
+    assertThat(statistics.getIdleCount(), is(0));
+    assertThat(statistics.getWaitingCount(), is(0));
+    assertThat(statistics.getBorrowTimes().getCount(), is((long) MAX_ACTIVE + 1));
+    assertThat(statistics.getTimeoutsCount(), is(1L));
+    assertThat(statistics.getValidationFailuresCount(), is(1L));
+    assertThat(statistics.getValidationFailuresByErrorType().get(CONNECTIVITY), is(1L));
+    assertThat(statistics.getCreatedCount(), is((long) MAX_ACTIVE + 1));
+    assertThat(statistics.getDestroyedCount(), is(1L));
+
+    assertThat(provider.timeouts.get(), is(1));
+    assertThat(provider.validationFailures.get(), is(1));
+    assertThat(provider.created.get(), is(MAX_ACTIVE + 1));
+    assertThat(provider.destroyed.get(), is(1));
+  }
+
+  @Test
+  public void borrowTimesHistogram() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    provider.connectDelay = 50;
+    pool.borrow().release();
+
+    LatencyHistogram borrowTimes = pool.getStatistics().getBorrowTimes();
+    assertThat(borrowTimes.getCount(), is(1L));
+    assertThat(borrowTimes.getMax() >= MILLISECONDS.toNanos(50), is(true));
+    assertThat(borrowTimes.getValueAtPercentile(100), is(borrowTimes.getMax()));
+    assertThat(borrowTimes.getValueAtPercentile(50) >= borrowTimes.getMax() * 31 / 32, is(true));
+  }
+
+  @Test
+  public void adaptiveLimitBacksOffOnConnectionFailures() throws Exception {
+    pool = createAdaptivePool(10, 2);
+    assertThat(pool.getStatistics().getActiveLimit(), is(10));
+
+    provider.failConnect = true;
+    for (int i = 0; i < 30; i++) {
+      try {
+        pool.borrow();
+        fail("Borrow should have failed");
+      } catch (ConnectionException e) {
+        // expected
+      }
+    }
+
+    assertThat(pool.getStatistics().getActiveLimit(), is(2));
+  }
+
+  @Test
+  public void adaptiveLimitBacksOffOnSlowReturns() throws Exception {
+    pool = createAdaptivePool(10, 2);
+    for (int i = 0; i < 10; i++) {
+      ConnectionHandler<TestConnection> handler = pool.borrow();
+      Thread.sleep(20);
+      handler.release();
+    }
+    assertThat(pool.getStatistics().getActiveLimit(), is(10));
+
+    // connections slowed down by the same congestion event back off only once
+    List<ConnectionHandler<TestConnection>> handlers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      handlers.add(pool.borrow());
+    }
+    Thread.sleep(200);
+    for (ConnectionHandler<TestConnection> handler : handlers) {
+      handler.release();
+    }
+    assertThat(pool.getStatistics().getActiveLimit(), is(9));
+
+    ConnectionHandler<TestConnection> handler = pool.borrow();
+    Thread.sleep(200);
+    handler.release();
+    assertThat(pool.getStatistics().getActiveLimit(), is(8));
+  }
+
+  @Test
+  public void cachedValidation() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE, VALIDATE_CACHED, 60000);
+    for (int i = 0; i < 3; i++) {
+      pool.borrow().release();
+    }
+    assertThat(provider.validations.get(), is(0));
+  }
+
+  @Test
+  public void expiredCachedValidation() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE, VALIDATE_CACHED, 1);
+    pool.borrow().release();
+    Thread.sleep(10);
+    pool.borrow().release();
+    assertThat(provider.validations.get(), is(1));
+  }
+
+  @Test
+  public void connectivityErrorForcesCachedValidation() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE, VALIDATE_CACHED, 60000);
+    ConnectionHandler<TestConnection> handler = pool.borrow();
+    TestConnection connection = handler.getConnection();
+    handler.release(CONNECTIVITY);
+    connection.valid = false;
+
+    assertThat(pool.borrow().getConnection(), is(not(sameInstance(connection))));
+    assertThat(provider.validations.get(), is(1));
+    assertThat(connection.disconnected, is(true));
+  }
+
+  @Test
+  public void validateOnErrorOnly() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE, VALIDATE_ON_ERROR, 0);
+    for (int i = 0; i < 3; i++) {
+      pool.borrow().release();
+    }
+    assertThat(provider.validations.get(), is(0));
+
+    ConnectionHandler<TestConnection> handler = pool.borrow();
+    TestConnection connection = handler.getConnection();
+    handler.release(CONNECTIVITY);
+    assertThat(pool.borrow().getConnection(), is(sameInstance(connection)));
+    assertThat(provider.validations.get(), is(1));
+  }
+
+  @Test
+  public void nonConnectivityErrorDoesNotForceValidation() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_NONE, VALIDATE_ON_ERROR, 0);
+    ConnectionHandler<TestConnection> handler = pool.borrow();
+    handler.release(new ErrorType() {
+
+      @Override
+      public String getIdentifier() {
+        return "EXPRESSION";
+      }
+
+      @Override
+      public String getNamespace() {
+        return "TEST";
+      }
+
+      @Override
+      public ErrorType getParentErrorType() {
+        return null;
+      }
+    });
+
+    pool.borrow().release();
+    assertThat(provider.validations.get(), is(0));
+  }
+
+  @Test
+  public void closeDisconnectsIdleConnections() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL, INITIALISE_ALL);
+    pool.close();
+    assertThat(provider.disconnected.get(), is(MAX_ACTIVE));
+  }
+
+  @Test
+  public void closeWhileValidatingInBackground() throws Exception {
+    ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor();
+    try {
+      PoolingProfile poolingProfile = new PoolingProfile(MAX_ACTIVE, MAX_ACTIVE, 200, WHEN_EXHAUSTED_FAIL, INITIALISE_ONE);
+      poolingProfile.setEvictionCheckIntervalMillis(20);
+      pool = ConnectionPool.builder(provider).poolingProfile(poolingProfile).scheduler(scheduler).build();
+
+      provider.validationStarted = new CountDownLatch(1);
+      provider.validationReleased = new CountDownLatch(1);
+      pool.start();
+      assertThat(provider.validationStarted.await(5, SECONDS), is(true));
+
+      pool.close();
+      assertThat(provider.disconnected.get(), is(0));
+      provider.validationReleased.countDown();
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while (provider.disconnected.get() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      assertThat(provider.disconnected.get(), is(1));
+      assertThat(pool.getNumIdle(), is(0));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private ConnectionPool<TestConnection> createPool(int exhaustedAction, int initialisationPolicy) throws ConnectionException {
+    PoolingProfile poolingProfile = new PoolingProfile(MAX_ACTIVE, MAX_ACTIVE, 200, exhaustedAction, initialisationPolicy);
+    ConnectionPool<TestConnection> pool = ConnectionPool.builder(provider).poolingProfile(poolingProfile).build();
+    pool.start();
+    return pool;
+  }
+
+  private ConnectionPool<TestConnection> createPool(int exhaustedAction, int initialisationPolicy, int validationPolicy,
+                                                    int validationTtlMillis)
+      throws ConnectionException {
+    PoolingProfile poolingProfile = new PoolingProfile(MAX_ACTIVE, MAX_ACTIVE, 200, exhaustedAction, initialisationPolicy);
+    poolingProfile.setValidationPolicy(validationPolicy);
+    poolingProfile.setValidationTtlMillis(validationTtlMillis);
+    ConnectionPool<TestConnection> pool = ConnectionPool.builder(provider).poolingProfile(poolingProfile).build();
+    pool.start();
+    return pool;
+  }
+
+  private ConnectionPool<TestConnection> createAdaptivePool(int maxActive, int minActive) throws ConnectionException {
+    PoolingProfile poolingProfile = new PoolingProfile(maxActive, maxActive, 200, WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    poolingProfile.setSizingPolicy(SIZING_ADAPTIVE);
+    poolingProfile.setMinActive(minActive);
+    ConnectionPool<TestConnection> pool = ConnectionPool.builder(provider).poolingProfile(poolingProfile).build();
+    pool.start();
+    return pool;
+  }
+
+  private static class TestConnection {
+
+    private final AtomicInteger inUse = new AtomicInteger(0);
+    private volatile boolean valid = true;
+    private volatile boolean disconnected = false;
+  }
+
+  private static class TestConnectionProvider implements PoolingConnectionProvider<TestConnection> {
+
+    private final AtomicInteger connected = new AtomicInteger(0);
+    private final AtomicInteger disconnected = new AtomicInteger(0);
+    private final AtomicInteger borrowed = new AtomicInteger(0);
+    private final AtomicInteger returned = new AtomicInteger(0);
+    private final AtomicInteger created = new AtomicInteger(0);
+    private final AtomicInteger destroyed = new AtomicInteger(0);
+    private final AtomicInteger validationFailures = new AtomicInteger(0);
+    private final AtomicInteger timeouts = new AtomicInteger(0);
+    private final AtomicInteger validations = new AtomicInteger(0);
+    private final AtomicInteger concurrentConnects = new AtomicInteger(0);
+    private final AtomicInteger maxConcurrentConnects = new AtomicInteger(0);
+    private volatile boolean failConnect = false;
+    private volatile long connectDelay = 0;
+    private volatile CountDownLatch validationStarted;
+    private volatile CountDownLatch validationReleased;
+
+    @Override
+    public TestConnection connect() throws ConnectionException {
+      if (failConnect) {
+        throw new ConnectionException("Backend is down");
+      }
+
+      int concurrent = concurrentConnects.incrementAndGet();
+      maxConcurrentConnects.accumulateAndGet(concurrent, Math::max);
+      try {
+        if (connectDelay > 0) {
+          Thread.sleep(connectDelay);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ConnectionException(e);
+      } finally {
+        concurrentConnects.decrementAndGet();
+      }
+
+      connected.incrementAndGet();
+      return new TestConnection();
+    }
+
+    @Override
+    public void disconnect(TestConnection connection) {
+      connection.disconnected = true;
+      disconnected.incrementAndGet();
+    }
+
+    @Override
+    public ConnectionValidationResult validate(TestConnection connection) {
+      validations.incrementAndGet();
+      if (validationReleased != null) {
+        validationStarted.countDown();
+        try {
+          validationReleased.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return connection.valid ? success() : failure("Invalid connection", CONNECTIVITY, null);
+    }
+
+    @Override
+    public void onBorrow(TestConnection connection) {
+      borrowed.incrementAndGet();
+    }
+
+    @Override
+    public void onReturn(TestConnection connection) {
+      returned.incrementAndGet();
+    }
+
+    @Override
+    public void onConnectionCreated(TestConnection connection) {
+      created.incrementAndGet();
+    }
+
+    @Override
+    public void onConnectionDestroyed(TestConnection connection) {
+      destroyed.incrementAndGet();
+    }
+
+    @Override
+    public void onValidationFailure(TestConnection connection, ConnectionValidationResult result) {
+      validationFailures.incrementAndGet();
+    }
+
+    @Override
+    public void onBorrowTimeout() {
+      timeouts.incrementAndGet();
+    }
+  }
+}
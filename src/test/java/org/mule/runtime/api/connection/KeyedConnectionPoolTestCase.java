@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_NONE;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_FAIL;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_GROW;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_WAIT;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.failure;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.success;
+import org.mule.runtime.api.config.PoolingProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class KeyedConnectionPoolTestCase {
+
+  private static final int MAX_PER_KEY = 2;
+  private static final int MAX_TOTAL = 3;
+
+  private final TestConnectionProvider provider = new TestConnectionProvider();
+  private KeyedConnectionPool<String, TestConnection> pool;
+
+  @After
+  public void after() {
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void connectionsAreKeptPerKey() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL);
+    ConnectionHandler<TestConnection> handler = pool.borrow("a");
+    TestConnection connection = handler.getConnection();
+    assertThat(connection.key, is("a"));
+    handler.release();
+
+    assertThat(pool.getNumIdle("a"), is(1));
+    assertThat(pool.borrow("b").getConnection(), is(not(sameInstance(connection))));
+    assertThat(pool.borrow("a").getConnection(), is(sameInstance(connection)));
+  }
+
+  @Test
+  public void perKeyCap() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL);
+    for (int i = 0; i < MAX_PER_KEY; i++) {
+      pool.borrow("a");
+    }
+
+    try {
+      pool.borrow("a");
+      fail("Borrow should have failed");
+    } catch (ConnectionException e) {
+      // expected
+    }
+
+    pool.borrow("b");
+    assertThat(pool.getNumActive("a"), is(MAX_PER_KEY));
+    assertThat(pool.getNumActive(), is(MAX_PER_KEY + 1));
+  }
+
+  @Test
+  public void globalCap() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL);
+    pool.borrow("a");
+    pool.borrow("b");
+    pool.borrow("c");
+
+    try {
+      pool.borrow("d");
+      fail("Borrow should have failed");
+    } catch (ConnectionException e) {
+      // expected
+    }
+    assertThat(provider.connected.get(), is(MAX_TOTAL));
+  }
+
+  @Test
+  public void leastRecentlyUsedIdleConnectionIsEvicted() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL);
+    ConnectionHandler<TestConnection> cold = pool.borrow("cold");
+    ConnectionHandler<TestConnection> warm = pool.borrow("warm");
+    ConnectionHandler<TestConnection> hot = pool.borrow("hot");
+    TestConnection coldConnection = cold.getConnection();
+    TestConnection warmConnection = warm.getConnection();
+    cold.release();
+    warm.release();
+    hot.release();
+
+    pool.borrow("other");
+    assertThat(coldConnection.disconnected, is(true));
+    assertThat(warmConnection.disconnected, is(false));
+    assertThat(pool.getNumIdle("cold"), is(0));
+    assertThat(pool.getNumIdle(), is(2));
+
+    pool.borrow("another");
+    assertThat(warmConnection.disconnected, is(true));
+    assertThat(pool.getNumIdle("hot"), is(1));
+  }
+
+  @Test
+  public void maxIdlePerKey() throws Exception {
+    PoolingProfile poolingProfile = new PoolingProfile(MAX_PER_KEY, 1, 100, WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    pool = KeyedConnectionPool.builder(provider).poolingProfile(poolingProfile).build();
+    ConnectionHandler<TestConnection> first = pool.borrow("a");
+    ConnectionHandler<TestConnection> second = pool.borrow("a");
+    first.release();
+    second.release();
+
+    assertThat(pool.getNumIdle("a"), is(1));
+    assertThat(provider.disconnected.get(), is(1));
+  }
+
+  @Test
+  public void invalidConnectionIsReplaced() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL);
+    ConnectionHandler<TestConnection> handler = pool.borrow("a");
+    TestConnection invalid = handler.getConnection();
+    handler.release();
+    invalid.valid = false;
+
+    assertThat(pool.borrow("a").getConnection(), is(not(sameInstance(invalid))));
+    assertThat(invalid.disconnected, is(true));
+  }
+
+  @Test
+  public void emptyKeysAreDiscarded() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL);
+    pool.borrow("a").invalidate();
+    assertThat(pool.getNumActive(), is(0));
+    assertThat(pool.getNumIdle(), is(0));
+
+    ConnectionHandler<TestConnection> handler = pool.borrow("a");
+    assertThat(pool.getNumActive("a"), is(1));
+    handler.release();
+    pool.clear("a");
+    assertThat(pool.getNumIdle("a"), is(0));
+    assertThat(provider.disconnected.get(), is(2));
+  }
+
+  @Test
+  public void connectionFailureFreesSlot() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_FAIL);
+    provider.failConnect = true;
+    for (int i = 0; i <= MAX_TOTAL; i++) {
+      try {
+        pool.borrow("a");
+        fail("Borrow should have failed");
+      } catch (ConnectionException e) {
+        // expected
+      }
+    }
+
+    provider.failConnect = false;
+    pool.borrow("a");
+    pool.borrow("b");
+    pool.borrow("c");
+    assertThat(pool.getNumActive(), is(MAX_TOTAL));
+  }
+
+  @Test
+  public void waitForOtherKeyToBeReleased() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT);
+    List<ConnectionHandler<TestConnection>> handlers = new ArrayList<>();
+    handlers.add(pool.borrow("a"));
+    handlers.add(pool.borrow("b"));
+    handlers.add(pool.borrow("c"));
+
+    ExecutorService executor = newFixedThreadPool(1);
+    try {
+      Future<TestConnection> waiting = executor.submit(() -> pool.borrow("d").getConnection());
+      Thread.sleep(50);
+      assertThat(waiting.isDone(), is(false));
+
+      TestConnection released = handlers.get(0).getConnection();
+      handlers.get(0).release();
+      assertThat(waiting.get(5, SECONDS).key, is("d"));
+      assertThat(released.disconnected, is(true));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected = ConnectionException.class)
+  public void waitTimeout() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT);
+    for (int i = 0; i <= MAX_PER_KEY; i++) {
+      pool.borrow("a");
+    }
+  }
+
+  @Test
+  public void freshKeyWaitTimeout() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT);
+    pool.borrow("a");
+    pool.borrow("b");
+    pool.borrow("c");
+
+    ExecutorService executor = newSingleThreadExecutor();
+    try {
+      Future<?> borrow = executor.submit(() -> pool.borrow("d"));
+      try {
+        borrow.get(5, SECONDS);
+        fail("Borrow should have timed out");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause(), is(instanceOf(ConnectionException.class)));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(provider.connected.get(), is(MAX_TOTAL));
+  }
+
+  @Test
+  public void growKeepsGlobalCap() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_GROW);
+    for (int i = 0; i < MAX_TOTAL; i++) {
+      pool.borrow("a");
+    }
+    assertThat(pool.getNumActive("a"), is(MAX_TOTAL));
+
+    try {
+      pool.borrow("a");
+      fail("Borrow should have timed out");
+    } catch (ConnectionException e) {
+      // expected
+    }
+    assertThat(provider.connected.get(), is(MAX_TOTAL));
+  }
+
+  @Test
+  public void concurrentBorrowers() throws Exception {
+    pool = createPool(WHEN_EXHAUSTED_WAIT);
+    ExecutorService executor = newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        String key = "key" + (i % 4);
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 300; j++) {
+            ConnectionHandler<TestConnection> handler = pool.borrow(key);
+            TestConnection connection = handler.getConnection();
+            assertThat(connection.key, is(key));
+            assertThat(connection.inUse.incrementAndGet(), is(1));
+            connection.inUse.decrementAndGet();
+            handler.release();
+          }
+          return null;
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        future.get(30, SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(pool.getNumActive(), is(0));
+    assertThat(provider.connected.get() - provider.disconnected.get() <= MAX_TOTAL, is(true));
+  }
+
+  private KeyedConnectionPool<String, TestConnection> createPool(int exhaustedAction) {
+    PoolingProfile poolingProfile = new PoolingProfile(MAX_PER_KEY, MAX_PER_KEY, 100, exhaustedAction, INITIALISE_NONE);
+    return KeyedConnectionPool.builder(provider).poolingProfile(poolingProfile).maxTotal(MAX_TOTAL).build();
+  }
+
+  private static class TestConnection {
+
+    private final String key;
+    private final AtomicInteger inUse = new AtomicInteger(0);
+    private volatile boolean valid = true;
+    private volatile boolean disconnected = false;
+
+    private TestConnection(String key) {
+      this.key = key;
+    }
+  }
+
+  private static class TestConnectionProvider implements KeyedConnectionProvider<String, TestConnection> {
+
+    private final AtomicInteger connected = new AtomicInteger(0);
+    private final AtomicInteger disconnected = new AtomicInteger(0);
+    private volatile boolean failConnect = false;
+
+    @Override
+    public TestConnection connect(String key) throws ConnectionException {
+      if (failConnect) {
+        throw new ConnectionException("Backend is down");
+      }
+      connected.incrementAndGet();
+      return new TestConnection(key);
+    }
+
+    @Override
+    public void disconnect(String key, TestConnection connection) {
+      connection.disconnected = true;
+      disconnected.incrementAndGet();
+    }
+
+    @Override
+    public ConnectionValidationResult validate(String key, TestConnection connection) {
+      return connection.valid ? success() : failure("Invalid connection", null);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.connection;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.runtime.api.connection.ConnectionValidationResult.success;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class MultiplexedConnectionManagerTestCase {
+
+  private static final int MAX_STREAMS = 2;
+  private static final int MAX_CONNECTIONS = 2;
+
+  private final TestConnectionProvider provider = new TestConnectionProvider();
+  private final MultiplexedConnectionManager<TestConnection> manager = MultiplexedConnectionManager.create(provider);
+
+  @Test
+  public void sharesConnectionUntilMaxStreams() throws Exception {
+    ConnectionHandler<TestConnection> first = manager.acquire();
+    ConnectionHandler<TestConnection> second = manager.acquire();
+    assertThat(second.getConnection(), is(sameInstance(first.getConnection())));
+    assertThat(manager.getConnectionsCount(), is(1));
+
+    ConnectionHandler<TestConnection> third = manager.acquire();
+    assertThat(third.getConnection(), is(not(sameInstance(first.getConnection()))));
+    assertThat(manager.getConnectionsCount(), is(2));
+    assertThat(manager.getActiveStreamsCount(), is(3));
+  }
+
+  @Test
+  public void leastLoadedSelection() throws Exception {
+    List<ConnectionHandler<TestConnection>> handlers = new ArrayList<>();
+    for (int i = 0; i < MAX_STREAMS * MAX_CONNECTIONS; i++) {
+      handlers.add(manager.acquire());
+    }
+
+    ConnectionHandler<TestConnection> released = handlers.get(handlers.size() - 1);
+    TestConnection lessLoaded = released.getConnection();
+    released.release();
+
+    assertThat(manager.acquire().getConnection(), is(sameInstance(lessLoaded)));
+    assertThat(provider.connected.get(), is(MAX_CONNECTIONS));
+  }
+
+  @Test
+  public void failsWhenAllConnectionsAreAtMaxStreams() throws Exception {
+    for (int i = 0; i < MAX_STREAMS * MAX_CONNECTIONS; i++) {
+      manager.acquire();
+    }
+
+    try {
+      manager.acquire();
+      fail("Acquire should have failed");
+    } catch (ConnectionException e) {
+      // expected
+    }
+    assertThat(provider.connected.get(), is(MAX_CONNECTIONS));
+  }
+
+  @Test
+  public void releaseKeepsConnectionOpen() throws Exception {
+    ConnectionHandler<TestConnection> handler = manager.acquire();
+    TestConnection connection = handler.getConnection();
+    handler.release();
+
+    assertThat(connection.disconnected, is(false));
+    assertThat(manager.getActiveStreamsCount(), is(0));
+    assertThat(manager.acquire().getConnection(), is(sameInstance(connection)));
+  }
+
+  @Test
+  public void invalidateDisconnectsAfterLastRelease() throws Exception {
+    ConnectionHandler<TestConnection> first = manager.acquire();
+    ConnectionHandler<TestConnection> second = manager.acquire();
+    TestConnection broken = first.getConnection();
+
+    first.invalidate();
+    assertThat(manager.getConnectionsCount(), is(0));
+    assertThat(broken.disconnected, is(false));
+    assertThat(manager.acquire().getConnection(), is(not(sameInstance(broken))));
+
+    second.release();
+    assertThat(broken.disconnected, is(true));
+    assertThat(provider.disconnected.get(), is(1));
+  }
+
+  @Test
+  public void connectionFailureFreesSlot() throws Exception {
+    provider.failConnect = true;
+    try {
+      manager.acquire();
+      fail("Acquire should have failed");
+    } catch (ConnectionException e) {
+      // expected
+    }
+    assertThat(manager.getConnectionsCount(), is(0));
+
+    provider.failConnect = false;
+    manager.acquire();
+    assertThat(manager.getConnectionsCount(), is(1));
+  }
+
+  @Test
+  public void close() throws Exception {
+    ConnectionHandler<TestConnection> busy = manager.acquire();
+    TestConnection busyConnection = busy.getConnection();
+    ConnectionHandler<TestConnection> sharing = manager.acquire();
+    ConnectionHandler<TestConnection> idle = manager.acquire();
+    TestConnection idleConnection = idle.getConnection();
+    idle.release();
+    assertThat(idleConnection, is(not(sameInstance(busyConnection))));
+
+    manager.close();
+    assertThat(idleConnection.disconnected, is(true));
+    assertThat(busyConnection.disconnected, is(false));
+    busy.release();
+    assertThat(busyConnection.disconnected, is(false));
+    sharing.release();
+    assertThat(busyConnection.disconnected, is(true));
+
+    try {
+      manager.acquire();
+      fail("Acquire should have failed");
+    } catch (ConnectionException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void closeWhileConnecting() throws Exception {
+    provider.onConnect = manager::close;
+    try {
+      manager.acquire();
+      fail("Acquire should have failed");
+    } catch (ConnectionException e) {
+      // expected
+    }
+
+    assertThat(provider.connected.get(), is(1));
+    assertThat(provider.disconnected.get(), is(1));
+    assertThat(manager.getConnectionsCount(), is(0));
+  }
+
+  private static class TestConnection {
+
+    private volatile boolean disconnected = false;
+  }
+
+  private static class TestConnectionProvider implements MultiplexedConnectionProvider<TestConnection> {
+
+    private final AtomicInteger connected = new AtomicInteger(0);
+    private final AtomicInteger disconnected = new AtomicInteger(0);
+    private volatile boolean failConnect = false;
+    private volatile Runnable onConnect;
+
+    @Override
+    public TestConnection connect() throws ConnectionException {
+      if (failConnect) {
+        throw new ConnectionException("Backend is down");
+      }
+      connected.incrementAndGet();
+      if (onConnect != null) {
+        onConnect.run();
+      }
+      return new TestConnection();
+    }
+
+    @Override
+    public void disconnect(TestConnection connection) {
+      connection.disconnected = true;
+      disconnected.incrementAndGet();
+    }
+
+    @Override
+    public ConnectionValidationResult validate(TestConnection connection) {
+      return success();
+    }
+
+    @Override
+    public int getMaxConcurrentStreams() {
+      return MAX_STREAMS;
+    }
+
+    @Override
+    public int getMaxConnections() {
+      return MAX_CONNECTIONS;
+    }
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.metadata;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.api.metadata.MediaType.ANY;
+import static org.mule.runtime.api.metadata.MediaType.APPLICATION_JSON;
+import org.mule.runtime.api.el.BindingContext;
+import org.mule.runtime.api.el.ExpressionFunction;
+import org.mule.runtime.internal.metadata.DataTypeCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+
+import org.junit.Test;
+
+public class DataTypeCacheTestCase {
+
+  private static final int MAX_CANONICAL_PER_CLASS = 64;
+
+  private final AtomicInteger created = new AtomicInteger(0);
+
+  @Test
+  public void fromTypeIsSharedPerClass() {
+    Function<Class<?>, DataType> factory = type -> newDataType(type, ANY);
+    DataType dataType = DataTypeCache.fromType(Planet.class, factory);
+
+    assertThat(DataTypeCache.fromType(Planet.class, factory), is(sameInstance(dataType)));
+    assertThat(DataTypeCache.fromType(Moon.class, factory), is(not(sameInstance(dataType))));
+    assertThat(created.get(), is(2));
+  }
+
+  @Test
+  public void fromObjectIsSharedPerClass() {
+    Function<Object, DataType> factory = value -> newDataType(value.getClass(), ANY);
+    DataType dataType = DataTypeCache.fromObject(new Star(), factory);
+
+    assertThat(DataTypeCache.fromObject(new Star(), factory), is(sameInstance(dataType)));
+    assertThat(created.get(), is(1));
+  }
+
+  @Test
+  public void equalDataTypesAreCanonicalized() {
+    DataType canonical = DataTypeCache.canonical(new TestDataType(Planet.class, APPLICATION_JSON));
+    assertThat(DataTypeCache.canonical(new TestDataType(Planet.class, APPLICATION_JSON)), is(sameInstance(canonical)));
+  }
+
+  @Test
+  public void valuesCarryingTheirOwnMediaTypeBypassTheCache() {
+    Function<Object, DataType> factory = value -> newDataType(value.getClass(), ANY);
+
+    DataHandler dataHandler = new DataHandler("Mars", "text/plain");
+    DataTypeCache.fromObject(dataHandler, factory);
+    DataTypeCache.fromObject(dataHandler, factory);
+    assertThat(created.get(), is(2));
+
+    DataSource dataSource = new TestDataSource();
+    DataTypeCache.fromObject(dataSource, factory);
+    DataTypeCache.fromObject(dataSource, factory);
+    assertThat(created.get(), is(4));
+
+    ExpressionFunction function = new TestExpressionFunction();
+    DataTypeCache.fromObject(function, factory);
+    DataTypeCache.fromObject(function, factory);
+    assertThat(created.get(), is(6));
+  }
+
+  @Test
+  public void collectionWithItemInSameClassLoaderIsCanonicalized() {
+    DataType canonical = DataTypeCache.canonical(newCollectionDataType(PlanetList.class, Planet.class));
+    assertThat(DataTypeCache.canonical(newCollectionDataType(PlanetList.class, Planet.class)), is(sameInstance(canonical)));
+  }
+
+  @Test
+  public void collectionOfBootstrapTypeIsKeptWithItem() throws Exception {
+    Class<?> isolatedItem = new IsolatingClassLoader().loadClass(Moon.class.getName());
+
+    DataType canonical = DataTypeCache.canonical(newCollectionDataType(ArrayList.class, isolatedItem));
+    assertThat(DataTypeCache.canonical(newCollectionDataType(ArrayList.class, isolatedItem)), is(sameInstance(canonical)));
+  }
+
+  @Test
+  public void collectionWithItemInDifferentClassLoaderIsNotCached() throws Exception {
+    Class<?> isolatedItem = new IsolatingClassLoader().loadClass(Star.class.getName());
+
+    DataType first = newCollectionDataType(PlanetList.class, isolatedItem);
+    DataType second = newCollectionDataType(PlanetList.class, isolatedItem);
+    assertThat(DataTypeCache.canonical(first), is(sameInstance(first)));
+    assertThat(DataTypeCache.canonical(second), is(sameInstance(second)));
+  }
+
+  @Test
+  public void canonicalsAreClearedWhenFull() {
+    DataType first = DataTypeCache.canonical(new TestDataType(Comet.class, MediaType.parse("text/plain; id=0")));
+    for (int i = 1; i < MAX_CANONICAL_PER_CLASS; i++) {
+      DataTypeCache.canonical(new TestDataType(Comet.class, MediaType.parse("text/plain; id=" + i)));
+    }
+    assertThat(DataTypeCache.canonical(new TestDataType(Comet.class, MediaType.parse("text/plain; id=0"))),
+               is(sameInstance(first)));
+
+    DataTypeCache.canonical(new TestDataType(Comet.class, MediaType.parse("text/plain; id=" + MAX_CANONICAL_PER_CLASS)));
+    assertThat(DataTypeCache.canonical(new TestDataType(Comet.class, MediaType.parse("text/plain; id=0"))),
+               is(not(sameInstance(first))));
+  }
+
+  private DataType newDataType(Class<?> type, MediaType mediaType) {
+    created.incrementAndGet();
+    return new TestDataType(type, mediaType);
+  }
+
+  private static DataType newCollectionDataType(Class<?> type, Class<?> itemType) {
+    return new TestCollectionDataType(type, ANY, new TestDataType(itemType, APPLICATION_JSON));
+  }
+
+  public static class Planet {
+  }
+
+  public static class Moon {
+  }
+
+  public static class Star {
+  }
+
+  public static class Comet {
+  }
+
+  public static class PlanetList extends ArrayList<Planet> {
+
+    private static final long serialVersionUID = 1L;
+  }
+
+  /**
+   * Defines its own copy of the test classes, so that they're in a different class loader than this test
+   */
+  private static class IsolatingClassLoader extends ClassLoader {
+
+    private IsolatingClassLoader() {
+      super(DataTypeCacheTestCase.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.startsWith(DataTypeCacheTestCase.class.getName() + "$")) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded != null) {
+          return loaded;
+        }
+
+        try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          byte[] buffer = new byte[4096];
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+          }
+          return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+        } catch (IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+    }
+  }
+
+  private static class TestDataType implements DataType {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Class<?> type;
+    private final MediaType mediaType;
+
+    private TestDataType(Class<?> type, MediaType mediaType) {
+      this.type = type;
+      this.mediaType = mediaType;
+    }
+
+    @Override
+    public Class<?> getType() {
+      return type;
+    }
+
+    @Override
+    public MediaType getMediaType() {
+      return mediaType;
+    }
+
+    @Override
+    public boolean isCompatibleWith(DataType dataType) {
+      return equals(dataType);
+    }
+
+    @Override
+    public boolean isStreamType() {
+      return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      TestDataType other = (TestDataType) obj;
+      return type == other.type && mediaType.equals(other.mediaType);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, mediaType);
+    }
+  }
+
+  private static class TestCollectionDataType extends TestDataType implements CollectionDataType {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DataType itemDataType;
+
+    private TestCollectionDataType(Class<?> type, MediaType mediaType, DataType itemDataType) {
+      super(type, mediaType);
+      this.itemDataType = itemDataType;
+    }
+
+    @Override
+    public DataType getItemDataType() {
+      return itemDataType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return super.equals(obj) && itemDataType.equals(((TestCollectionDataType) obj).itemDataType);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * super.hashCode() + itemDataType.hashCode();
+    }
+  }
+
+  private static class TestDataSource implements DataSource {
+
+    @Override
+    public InputStream getInputStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getContentType() {
+      return "text/plain";
+    }
+
+    @Override
+    public String getName() {
+      return "planets";
+    }
+  }
+
+  private static class TestExpressionFunction implements ExpressionFunction {
+
+    @Override
+    public Object call(Object[] parameters, BindingContext context) {
+      return null;
+    }
+
+    @Override
+    public Optional<DataType> returnType() {
+      return Optional.empty();
+    }
+
+    @Override
+    public List<FunctionParameter> parameters() {
+      return new ArrayList<>();
+    }
+  }
+}
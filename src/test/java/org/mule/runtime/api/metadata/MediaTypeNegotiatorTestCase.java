@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.metadata;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.runtime.api.metadata.MediaType.APPLICATION_JSON;
+import static org.mule.runtime.api.metadata.MediaType.APPLICATION_XML;
+import static org.mule.runtime.api.metadata.MediaType.HTML;
+import static org.mule.runtime.api.metadata.MediaType.TEXT;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class MediaTypeNegotiatorTestCase {
+
+  private static final MediaType VENDOR_JSON = MediaType.parse("application/vnd.foo+json");
+
+  @Rule
+  public ExpectedException expected = ExpectedException.none();
+
+  @Test
+  public void noHeaderAcceptsAny() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader(null);
+    assertThat(negotiator.getQuality(APPLICATION_XML), is(1.0));
+    assertThat(negotiator.select(asList(TEXT, HTML)).get(), is(TEXT));
+  }
+
+  @Test
+  public void blankHeaderAcceptsAny() {
+    assertThat(MediaTypeNegotiator.forAcceptHeader(" ").accepts(APPLICATION_JSON), is(true));
+  }
+
+  @Test
+  public void exactMatch() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader("application/json");
+    assertThat(negotiator.accepts(APPLICATION_JSON), is(true));
+    assertThat(negotiator.accepts(MediaType.parse("application/json; charset=UTF-8")), is(true));
+    assertThat(negotiator.accepts(APPLICATION_XML), is(false));
+    assertThat(negotiator.accepts(VENDOR_JSON), is(false));
+  }
+
+  @Test
+  public void typeWildcard() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader("text/*");
+    assertThat(negotiator.accepts(TEXT), is(true));
+    assertThat(negotiator.accepts(HTML), is(true));
+    assertThat(negotiator.accepts(APPLICATION_JSON), is(false));
+  }
+
+  @Test
+  public void suffixWildcard() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader("application/*+json");
+    assertThat(negotiator.accepts(VENDOR_JSON), is(true));
+    assertThat(negotiator.accepts(MediaType.create("Application", "VND.BAR+JSON")), is(true));
+    assertThat(negotiator.accepts(APPLICATION_JSON), is(false));
+    assertThat(negotiator.accepts(MediaType.parse("application/vnd.foo+xml")), is(false));
+  }
+
+  @Test
+  public void mostSpecificRangeDefinesQuality() {
+    final MediaTypeNegotiator negotiator =
+        MediaTypeNegotiator.forAcceptHeader("*/*;q=0.1, text/*;q=0.5, application/*+json;q=0.7, text/html, text/plain;q=0");
+    assertThat(negotiator.getQuality(HTML), is(1.0));
+    assertThat(negotiator.getQuality(TEXT), is(0.0));
+    assertThat(negotiator.getQuality(MediaType.parse("text/csv")), is(0.5));
+    assertThat(negotiator.getQuality(VENDOR_JSON), is(0.7));
+    assertThat(negotiator.getQuality(APPLICATION_XML), is(0.1));
+  }
+
+  @Test
+  public void selectsHighestQuality() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader("application/xml;q=0.9, application/json");
+    assertThat(negotiator.select(asList(APPLICATION_XML, APPLICATION_JSON)).get(), is(APPLICATION_JSON));
+  }
+
+  @Test
+  public void selectsFirstOnTie() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader("application/xml;q=0.5, application/json;q=0.5");
+    assertThat(negotiator.select(asList(APPLICATION_JSON, APPLICATION_XML)).get(), is(APPLICATION_JSON));
+    assertThat(negotiator.select(asList(APPLICATION_XML, APPLICATION_JSON)).get(), is(APPLICATION_XML));
+  }
+
+  @Test
+  public void nothingAcceptable() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader("text/html, */*;q=0");
+    assertThat(negotiator.select(asList(APPLICATION_JSON, APPLICATION_XML)).isPresent(), is(false));
+  }
+
+  @Test
+  public void quotedCommaInParameter() {
+    final MediaTypeNegotiator negotiator = MediaTypeNegotiator.forAcceptHeader("text/html;level=\"1,2\";q=0.4, application/json");
+    assertThat(negotiator.getQuality(HTML), is(0.4));
+    assertThat(negotiator.getQuality(APPLICATION_JSON), is(1.0));
+  }
+
+  @Test
+  public void cachedNegotiator() {
+    final String header = "application/json, text/*;q=0.2";
+    assertThat(MediaTypeNegotiator.forAcceptHeader(header), sameInstance(MediaTypeNegotiator.forAcceptHeader(header)));
+  }
+
+  @Test
+  public void invalidQuality() {
+    expected.expect(IllegalArgumentException.class);
+    MediaTypeNegotiator.forAcceptHeader("application/json;q=2");
+  }
+
+  @Test
+  public void qualityValueGrammar() {
+    final MediaTypeNegotiator negotiator =
+        MediaTypeNegotiator.forAcceptHeader("text/html;q=0.125, application/json;q=1.000, application/xml;q=0.");
+    assertThat(negotiator.getQuality(HTML), is(0.125));
+    assertThat(negotiator.getQuality(APPLICATION_JSON), is(1.0));
+    assertThat(negotiator.getQuality(APPLICATION_XML), is(0.0));
+  }
+
+  @Test
+  public void invalidQualityValues() {
+    for (String quality : asList("NaN", "0x1p-1", "1e-1", ".5", "+0.5", "-0", "0.1234", "1.001", "2", "01", "")) {
+      try {
+        MediaTypeNegotiator.forAcceptHeader("application/json;q=" + quality);
+        fail("Quality '" + quality + "' should have been rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void invalidWildcardType() {
+    expected.expect(IllegalArgumentException.class);
+    MediaTypeNegotiator.forAcceptHeader("*/json");
+  }
+}
@@ -9,7 +9,9 @@ package org.mule.runtime.api.metadata;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import java.io.ByteArrayInputStream;
@@ -219,4 +221,68 @@ public class MediaTypeTestCase {
 
     assertThat(deserialized, is(withCharset));
   }
+
+  @Test
+  public void caseInsensitiveTypes() {
+    final MediaType parsed = MediaType.parse("Text/HTML; Charset=utf-8; Level=One");
+    assertThat(parsed.getPrimaryType(), is("text"));
+    assertThat(parsed.getSubType(), is("html"));
+    assertThat(parsed.getCharset().get(), is(UTF_8));
+    assertThat(parsed.getParameter("level"), is("One"));
+  }
+
+  @Test
+  public void quotedParamWithEscapes() {
+    final MediaType parsed = MediaType.parse("m/s;param1=\"a \\\"quoted\\\" ;value\";param2=value2;");
+    assertThat(parsed.getParameter("param1"), is("a \"quoted\" ;value"));
+    assertThat(parsed.getParameter("param2"), is("value2"));
+  }
+
+  @Test
+  public void unterminatedQuotedParam() {
+    expected.expect(IllegalArgumentException.class);
+    MediaType.parse("m/s; param1=\"value1");
+  }
+
+  @Test
+  public void commonMediaTypesAreShared() {
+    assertThat(MediaType.parse("application/json"), sameInstance(MediaType.APPLICATION_JSON));
+    assertThat(MediaType.parse("APPLICATION/JSON"), sameInstance(MediaType.APPLICATION_JSON));
+    assertThat(MediaType.parse("application/json; charset=UTF-8"),
+               sameInstance(MediaType.parse("application/json;charset=utf-8")));
+  }
+
+  @Test
+  public void constantsAreSharedAfterCachesAreCleared() {
+    for (int i = 0; i < 2048; i++) {
+      MediaType.parse("application/x-test-" + i);
+    }
+    assertThat(MediaType.parse("application/json"), sameInstance(MediaType.APPLICATION_JSON));
+    assertThat(MediaType.parse("Text/Plain"), sameInstance(MediaType.TEXT));
+  }
+
+  @Test
+  public void mediaTypesWithParamsAreNotShared() {
+    final MediaType parsed = MediaType.parse("multipart/form-data; boundary=abc");
+    assertThat(MediaType.parse("multipart/form-data; boundary=abc"), is(parsed));
+    assertThat(MediaType.parse("multipart/form-data; boundary=abc"), not(sameInstance(parsed)));
+  }
+
+  @Test
+  public void serializeKeepsDerivedFields() throws IOException, ClassNotFoundException {
+    final MediaType parsed = MediaType.parse("m/s; charset=UTF-8; param1=value1");
+
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new ObjectOutputStream(os).writeObject(parsed);
+    final MediaType deserialized = (MediaType) new ObjectInputStream(new ByteArrayInputStream(os.toByteArray())).readObject();
+
+    assertThat(deserialized.hashCode(), is(parsed.hashCode()));
+    assertThat(deserialized.toRfcString(), is(parsed.toRfcString()));
+  }
+
+  @Test
+  public void sameCharsetKeepsInstance() {
+    final MediaType parsed = MediaType.parse("m/s; charset=UTF-8");
+    assertThat(parsed.withCharset(UTF_8), sameInstance(parsed));
+  }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.metadata;
+
+import static java.lang.System.identityHashCode;
+import org.mule.runtime.api.metadata.DataTypeBuilder.DataTypeCollectionTypeBuilder;
+import org.mule.runtime.api.metadata.DataTypeBuilder.DataTypeFunctionTypeBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link AbstractDataTypeBuilderFactory} for the tests of this module, which don't have the one of the Mule Runtime
+ * available. Its builders only keep the types and the media types, and count how many times a {@link DataType} is
+ * inferred from a value.
+ */
+public class TestDataTypeBuilderFactory extends AbstractDataTypeBuilderFactory {
+
+  private static final AtomicInteger INFERRED = new AtomicInteger(0);
+
+  /**
+   * @return how many times a {@link DataType} was inferred through {@link DataTypeBuilder#fromObject(Object)}
+   */
+  static int getInferredCount() {
+    return INFERRED.get();
+  }
+
+  @Override
+  protected DataTypeBuilder create() {
+    return newBuilder(Object.class, MediaType.ANY);
+  }
+
+  @Override
+  protected DataTypeBuilder create(DataType dataType) {
+    return newBuilder(dataType.getType(), dataType.getMediaType());
+  }
+
+  private static DataTypeBuilder newBuilder(Class<?> initialType, MediaType initialMediaType) {
+    Class<?>[] type = {initialType, null};
+    MediaType[] mediaType = {initialMediaType, MediaType.ANY};
+    return (DataTypeBuilder) Proxy.newProxyInstance(TestDataTypeBuilderFactory.class.getClassLoader(),
+                                                    new Class[] {DataTypeBuilder.class, DataTypeCollectionTypeBuilder.class,
+                                                        DataTypeFunctionTypeBuilder.class},
+                                                    (proxy, method, args) -> {
+                                                      switch (method.getName()) {
+                                                        case "type":
+                                                        case "functionType":
+                                                          type[0] = (Class<?>) args[0];
+                                                          return proxy;
+                                                        case "streamType":
+                                                        case "collectionType":
+                                                          type[0] = (Class<?>) args[0];
+                                                          type[1] = Object.class;
+                                                          return proxy;
+                                                        case "itemType":
+                                                          type[1] = (Class<?>) args[0];
+                                                          return proxy;
+                                                        case "itemMediaType":
+                                                          mediaType[1] = toMediaType(args[0]);
+                                                          return proxy;
+                                                        case "fromObject":
+                                                          INFERRED.incrementAndGet();
+                                                          type[0] = args[0] != null ? args[0].getClass() : Object.class;
+                                                          return proxy;
+                                                        case "mediaType":
+                                                          mediaType[0] = toMediaType(args[0]);
+                                                          return proxy;
+                                                        case "build":
+                                                          return type[1] != null
+                                                              ? new TestCollectionDataType(type[0], mediaType[0],
+                                                                                           new TestDataType(type[1],
+                                                                                                            mediaType[1]))
+                                                              : new TestDataType(type[0], mediaType[0]);
+                                                        case "equals":
+                                                          return proxy == args[0];
+                                                        case "hashCode":
+                                                          return identityHashCode(proxy);
+                                                        case "toString":
+                                                          return "TestDataTypeBuilder";
+                                                        default:
+                                                          return proxy;
+                                                      }
+                                                    });
+  }
+
+  private static MediaType toMediaType(Object mediaType) {
+    return mediaType instanceof MediaType ? (MediaType) mediaType : MediaType.parse((String) mediaType);
+  }
+
+  private static class TestDataType implements DataType {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Class<?> type;
+    private final MediaType mediaType;
+
+    private TestDataType(Class<?> type, MediaType mediaType) {
+      this.type = type;
+      this.mediaType = mediaType;
+    }
+
+    @Override
+    public Class<?> getType() {
+      return type;
+    }
+
+    @Override
+    public MediaType getMediaType() {
+      return mediaType;
+    }
+
+    @Override
+    public boolean isCompatibleWith(DataType dataType) {
+      return type.isAssignableFrom(dataType.getType()) && mediaType.matches(dataType.getMediaType());
+    }
+
+    @Override
+    public boolean isStreamType() {
+      return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      TestDataType other = (TestDataType) obj;
+      return type == other.type && mediaType.equals(other.mediaType);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, mediaType);
+    }
+  }
+
+  private static final class TestCollectionDataType extends TestDataType implements CollectionDataType {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DataType itemDataType;
+
+    private TestCollectionDataType(Class<?> type, MediaType mediaType, DataType itemDataType) {
+      super(type, mediaType);
+      this.itemDataType = itemDataType;
+    }
+
+    @Override
+    public DataType getItemDataType() {
+      return itemDataType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return super.equals(obj) && itemDataType.equals(((TestCollectionDataType) obj).itemDataType);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * super.hashCode() + itemDataType.hashCode();
+    }
+  }
+}
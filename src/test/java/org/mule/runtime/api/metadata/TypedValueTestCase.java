@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.metadata;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.api.metadata.MediaType.APPLICATION_JSON;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+
+import org.junit.Test;
+
+public class TypedValueTestCase {
+
+  @Test
+  public void constructorDoesNotInferDataType() {
+    int inferred = TestDataTypeBuilderFactory.getInferredCount();
+    TypedValue<Comet> typedValue = new TypedValue<>(new Comet(), null);
+    assertThat(TestDataTypeBuilderFactory.getInferredCount(), is(inferred));
+
+    assertThat(typedValue.getDataType().getType(), equalTo(Comet.class));
+    assertThat(TestDataTypeBuilderFactory.getInferredCount(), is(inferred + 1));
+  }
+
+  @Test
+  public void givenDataTypeIsKept() {
+    DataType dataType = DataType.builder().type(Planet.class).mediaType(APPLICATION_JSON).build();
+    assertThat(new TypedValue<>(new Planet("Venus"), dataType).getDataType(), is(sameInstance(dataType)));
+  }
+
+  @Test
+  public void inferredDataTypeIsStable() {
+    TypedValue<Moon> typedValue = new TypedValue<>(new Moon(), null);
+    DataType dataType = typedValue.getDataType();
+
+    assertThat(typedValue.getDataType(), is(sameInstance(dataType)));
+    assertThat(typedValue.getDataType(), is(sameInstance(dataType)));
+  }
+
+  @Test
+  public void serializeWithInferredDataType() throws Exception {
+    TypedValue<Planet> typedValue = new TypedValue<>(new Planet("Earth"), null);
+    TypedValue<Planet> deserialized = deserialize(serialize(typedValue));
+
+    assertThat(deserialized.getValue().name, is("Earth"));
+    assertThat(deserialized.getDataType(), equalTo(DataType.fromObject(new Planet("Mars"))));
+  }
+
+  @Test
+  public void deserializeStreamWrittenByEagerClass() throws Exception {
+    DataType dataType = DataType.builder().type(Planet.class).mediaType(APPLICATION_JSON).build();
+    TypedValue<Planet> deserialized =
+        deserializeLegacy(serialize(new org.mule.runtime.api.metadata.legacy.TypedValue<>(new Planet("Jupiter"), dataType)));
+
+    assertThat(deserialized.getValue().name, is("Jupiter"));
+    assertThat(deserialized.getDataType(), equalTo(dataType));
+  }
+
+  @Test
+  public void deserializeNullDataTypeInfersIt() throws Exception {
+    TypedValue<Planet> deserialized =
+        deserializeLegacy(serialize(new org.mule.runtime.api.metadata.legacy.TypedValue<>(new Planet("Saturn"), null)));
+
+    assertThat(deserialized.getValue().name, is("Saturn"));
+    assertThat(deserialized.getDataType(), equalTo(DataType.fromObject(new Planet("Uranus"))));
+  }
+
+  private static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static <T> TypedValue<T> deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (TypedValue<T>) in.readObject();
+    }
+  }
+
+  /**
+   * Reads a stream written by the previous version of {@link TypedValue}, which had the same name
+   */
+  private static <T> TypedValue<T> deserializeLegacy(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+
+      @Override
+      protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        return desc.getName().equals(org.mule.runtime.api.metadata.legacy.TypedValue.class.getName()) ? TypedValue.class
+            : super.resolveClass(desc);
+      }
+    }) {
+      return (TypedValue<T>) in.readObject();
+    }
+  }
+
+  private static class Planet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private Planet(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Moon {
+  }
+
+  /**
+   * Only used by {@link #constructorDoesNotInferDataType()}, so that its data type is never cached by another test
+   */
+  private static class Comet {
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.metadata.legacy;
+
+import org.mule.runtime.api.metadata.DataType;
+
+import java.io.Serializable;
+
+/**
+ * The serializable shape of {@link org.mule.runtime.api.metadata.TypedValue} before its {@link DataType} was inferred
+ * lazily: same simple name, fields and serial version, and no {@code writeObject} method. Streams written with it can
+ * be read as the current class.
+ */
+public final class TypedValue<T> implements Serializable {
+
+  private static final long serialVersionUID = -2533879516750283994L;
+
+  private final T value;
+  private final DataType dataType;
+
+  public TypedValue(T value, DataType dataType) {
+    this.value = value;
+    this.dataType = dataType;
+  }
+}
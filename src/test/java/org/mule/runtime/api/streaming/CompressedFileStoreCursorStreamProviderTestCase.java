@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.api.util.DataUnit.KB;
+import org.mule.runtime.api.util.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class CompressedFileStoreCursorStreamProviderTestCase extends FileStoreCursorStreamProviderTestCase {
+
+  @Override
+  protected FileStoreCursorStreamConfig config() {
+    return new FileStoreCursorStreamConfig(new DataSize(64, KB), new DataSize(16, KB), true);
+  }
+
+  @Test
+  public void seekAcrossCompressedBlocks() throws IOException {
+    byte[] content = new byte[200 * 1024];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i / 1024);
+    }
+
+    CursorStreamProvider compressible = CursorStreamProvider.fileStore(new ByteArrayInputStream(content), config());
+    try (CursorStream cursor = compressible.openCursor()) {
+      cursor.seek(content.length - 1);
+      assertThat(cursor.read(), is(content[content.length - 1] & 0xff));
+
+      cursor.seek(100 * 1024);
+      assertThat(cursor.read(), is(content[100 * 1024] & 0xff));
+
+      cursor.seek(170 * 1024 + 3);
+      assertThat(cursor.read(), is(content[170 * 1024 + 3] & 0xff));
+    } finally {
+      compressible.close();
+    }
+  }
+
+  @Test
+  public void interleavedCursorsOverDifferentBlocks() throws IOException {
+    byte[] content = new byte[200 * 1024];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i / 1024);
+    }
+
+    CursorStreamProvider compressible = CursorStreamProvider.fileStore(new ByteArrayInputStream(content), config());
+    try (CursorStream first = compressible.openCursor(); CursorStream second = compressible.openCursor()) {
+      first.seek(content.length - 1);
+      first.read();
+
+      first.seek(80 * 1024);
+      second.seek(150 * 1024);
+      for (int i = 0; i < 16 * 1024; i++) {
+        assertThat(first.read(), is(content[80 * 1024 + i] & 0xff));
+        assertThat(second.read(), is(content[150 * 1024 + i] & 0xff));
+      }
+    } finally {
+      compressible.close();
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.api.streaming.CursorIteratorSerializer.javaSerialization;
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CursorIteratorProviderTestCase {
+
+  private static final int SEGMENT_SIZE = 10;
+  private static final int MAX_IN_MEMORY_INSTANCES = 35;
+
+  @Test
+  public void smallerThanOneSegment() {
+    assertFullyRead(5, new CursorIteratorConfig(SEGMENT_SIZE, MAX_IN_MEMORY_INSTANCES));
+  }
+
+  @Test
+  public void asBigAsMaxInMemoryInstances() {
+    assertFullyRead(MAX_IN_MEMORY_INSTANCES, new CursorIteratorConfig(SEGMENT_SIZE, MAX_IN_MEMORY_INSTANCES));
+  }
+
+  @Test(expected = StreamingBufferSizeExceededException.class)
+  public void maxInMemoryInstancesExceededWithoutSerializer() {
+    assertFullyRead(MAX_IN_MEMORY_INSTANCES + 1, new CursorIteratorConfig(SEGMENT_SIZE, MAX_IN_MEMORY_INSTANCES));
+  }
+
+  @Test
+  public void spillToDisk() {
+    assertFullyRead(1000, new CursorIteratorConfig(SEGMENT_SIZE, MAX_IN_MEMORY_INSTANCES, javaSerialization()));
+  }
+
+  @Test
+  public void seekIntoSpilledSegment() {
+    CursorIteratorProvider<Integer> provider = CursorIteratorProvider.create(items(1000).iterator(),
+                                                                             new CursorIteratorConfig(SEGMENT_SIZE,
+                                                                                                      MAX_IN_MEMORY_INSTANCES,
+                                                                                                      javaSerialization()));
+    try (CursorIterator<Integer> first = provider.openCursor(); CursorIterator<Integer> second = provider.openCursor()) {
+      first.seek(517);
+      assertThat(first.next(), is(517));
+      assertThat(first.getPosition(), is(518L));
+
+      second.seek(3);
+      assertThat(second.next(), is(3));
+    } finally {
+      provider.close();
+    }
+  }
+
+  @Test
+  public void spillsBeforeExceedingMaxInMemoryInstances() {
+    CountingSerializer serializer = new CountingSerializer();
+    CursorIteratorConfig config = new CursorIteratorConfig(SEGMENT_SIZE, 2 * SEGMENT_SIZE, serializer);
+    CursorIteratorProvider<Integer> provider = CursorIteratorProvider.create(items(1000).iterator(), config);
+    try (CursorIterator<Integer> cursor = provider.openCursor()) {
+      cursor.seek(2 * SEGMENT_SIZE);
+      assertThat(cursor.next(), is(2 * SEGMENT_SIZE));
+      // the first two segments are full and the third one holds an item, so only one of them fits in memory
+      assertThat(serializer.serialized, is(1));
+    } finally {
+      provider.close();
+    }
+  }
+
+  @Test
+  public void spilledSegmentsAreNotDeserializedOnEachAccess() {
+    CountingSerializer serializer = new CountingSerializer();
+    CursorIteratorProvider<Integer> provider =
+        CursorIteratorProvider.create(items(1000).iterator(), new CursorIteratorConfig(SEGMENT_SIZE, MAX_IN_MEMORY_INSTANCES,
+                                                                                       serializer));
+    try (CursorIterator<Integer> cursor = provider.openCursor()) {
+      cursor.seek(999);
+      assertThat(cursor.next(), is(999));
+      for (int i = 0; i < 5; i++) {
+        cursor.seek(303);
+        assertThat(cursor.next(), is(303));
+        cursor.seek(517);
+        assertThat(cursor.next(), is(517));
+      }
+      assertThat(serializer.deserialized, is(2));
+    } finally {
+      provider.close();
+    }
+  }
+
+  @Test
+  public void cursorFunctionalAfterProviderClosed() {
+    CursorIteratorProvider<Integer> provider =
+        CursorIteratorProvider.create(items(20).iterator(), new CursorIteratorConfig(SEGMENT_SIZE, MAX_IN_MEMORY_INSTANCES));
+    try (CursorIterator<Integer> cursor = provider.openCursor()) {
+      provider.close();
+      assertThat(collect(cursor), equalTo(items(20)));
+      assertThat(cursor.isClosed(), is(true));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void openCursorOnClosedProvider() {
+    CursorIteratorProvider<Integer> provider =
+        CursorIteratorProvider.create(items(20).iterator(), CursorIteratorConfig.getDefault());
+    provider.close();
+    provider.openCursor();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxInMemoryInstancesLowerThanSegmentSize() {
+    new CursorIteratorConfig(SEGMENT_SIZE, SEGMENT_SIZE - 1);
+  }
+
+  private void assertFullyRead(int size, CursorIteratorConfig config) {
+    List<Integer> items = items(size);
+    CursorIteratorProvider<Integer> provider = CursorIteratorProvider.create(items.iterator(), config);
+    try (CursorIterator<Integer> cursor = provider.openCursor()) {
+      assertThat(collect(cursor), equalTo(items));
+      cursor.seek(0);
+      assertThat(collect(cursor), equalTo(items));
+      assertThat(cursor.getPosition(), is((long) size));
+    } finally {
+      provider.close();
+    }
+  }
+
+  private List<Integer> collect(CursorIterator<Integer> cursor) {
+    List<Integer> collected = new ArrayList<>();
+    cursor.forEachRemaining(collected::add);
+    return collected;
+  }
+
+  private List<Integer> items(int size) {
+    List<Integer> items = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      items.add(i);
+    }
+    return items;
+  }
+
+  private static class CountingSerializer implements CursorIteratorSerializer {
+
+    private int serialized = 0;
+    private int deserialized = 0;
+
+    @Override
+    public void serialize(List<?> items, OutputStream out) throws IOException {
+      serialized++;
+      javaSerialization().serialize(items, out);
+    }
+
+    @Override
+    public List<?> deserialize(InputStream in) throws IOException {
+      deserialized++;
+      return javaSerialization().deserialize(in);
+    }
+  }
+}
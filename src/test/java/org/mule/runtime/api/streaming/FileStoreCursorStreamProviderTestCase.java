@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.channels.Channels.newChannel;
+import static java.util.Arrays.copyOfRange;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.api.util.DataUnit.KB;
+import org.mule.runtime.api.util.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileStoreCursorStreamProviderTestCase {
+
+  private static final int DATA_SIZE = 300 * 1024;
+  private static final int CONCURRENT_READERS = 8;
+
+  protected byte[] data;
+  protected CursorStreamProvider provider;
+
+  @Before
+  public void before() {
+    data = new byte[DATA_SIZE];
+    new Random().nextBytes(data);
+    provider = createProvider(new ByteArrayInputStream(data));
+  }
+
+  protected CursorStreamProvider createProvider(InputStream stream) {
+    return CursorStreamProvider.fileStore(stream, config());
+  }
+
+  protected FileStoreCursorStreamConfig config() {
+    return new FileStoreCursorStreamConfig(new DataSize(64, KB), new DataSize(16, KB));
+  }
+
+  @After
+  public void after() {
+    provider.close();
+  }
+
+  @Test
+  public void readFullyFromMemoryAndFile() throws IOException {
+    try (CursorStream cursor = provider.openCursor()) {
+      assertThat(IOUtils.toByteArray(cursor), equalTo(data));
+      assertThat(cursor.getPosition(), is((long) DATA_SIZE));
+      assertThat(cursor.isClosed(), is(true));
+    }
+  }
+
+  @Test
+  public void cursorsShareBuffer() throws IOException {
+    try (CursorStream first = provider.openCursor(); CursorStream second = provider.openCursor()) {
+      assertThat(IOUtils.toByteArray(first), equalTo(data));
+
+      second.seek(DATA_SIZE - 1);
+      assertThat(second.read(), is(data[DATA_SIZE - 1] & 0xff));
+      assertThat(second.read(), is(-1));
+    }
+  }
+
+  @Test
+  public void seekReopensCursor() throws IOException {
+    try (CursorStream cursor = provider.openCursor()) {
+      IOUtils.toByteArray(cursor);
+      assertThat(cursor.isClosed(), is(true));
+
+      cursor.seek(100 * 1024);
+      assertThat(cursor.isClosed(), is(false));
+      assertThat(cursor.read(), is(data[100 * 1024] & 0xff));
+      assertThat(cursor.getPosition(), is(100 * 1024 + 1L));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void openCursorOnClosedProvider() {
+    provider.close();
+    provider.openCursor();
+  }
+
+  @Test
+  public void openCursorsRemainFunctionalAfterClose() throws IOException {
+    try (CursorStream cursor = provider.openCursor()) {
+      provider.close();
+      assertThat(provider.isClosed(), is(true));
+      assertThat(IOUtils.toByteArray(cursor), equalTo(data));
+    }
+  }
+
+  @Test
+  public void transferToChannel() throws IOException {
+    try (CursorStream cursor = provider.openCursor()) {
+      cursor.seek(1024);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      assertThat(cursor.transferTo(newChannel(out)), is((long) DATA_SIZE - 1024));
+      assertThat(out.toByteArray(), equalTo(copyOfRange(data, 1024, DATA_SIZE)));
+      assertThat(cursor.getPosition(), is((long) DATA_SIZE));
+    }
+  }
+
+  @Test
+  public void transferSpilledContentToChannel() throws IOException {
+    try (CursorStream cursor = provider.openCursor()) {
+      IOUtils.toByteArray(cursor);
+    }
+
+    int position = 100 * 1024 + 7;
+    try (CursorStream cursor = provider.openCursor()) {
+      cursor.seek(position);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      assertThat(cursor.transferTo(newChannel(out)), is((long) DATA_SIZE - position));
+      assertThat(out.toByteArray(), equalTo(copyOfRange(data, position, DATA_SIZE)));
+    }
+  }
+
+  @Test
+  public void readIntoDirectBuffer() throws IOException {
+    CursorStream cursor = provider.openCursor();
+    ByteBuffer destination = allocateDirect(DATA_SIZE + 1);
+    try (ReadableByteChannel channel = cursor.getChannel()) {
+      while (channel.read(destination) != -1) {
+      }
+    }
+
+    destination.flip();
+    byte[] read = new byte[destination.remaining()];
+    destination.get(read);
+
+    assertThat(read, equalTo(data));
+    assertThat(cursor.isClosed(), is(true));
+  }
+
+  @Test
+  public void concurrentCursors() throws Exception {
+    ExecutorService readers = newFixedThreadPool(CONCURRENT_READERS);
+    try {
+      List<Future<byte[]>> results = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_READERS; i++) {
+        results.add(readers.submit(() -> {
+          try (CursorStream cursor = provider.openCursor()) {
+            return IOUtils.toByteArray(cursor);
+          }
+        }));
+      }
+
+      for (Future<byte[]> result : results) {
+        assertThat(result.get(), equalTo(data));
+      }
+    } finally {
+      readers.shutdownNow();
+    }
+  }
+}
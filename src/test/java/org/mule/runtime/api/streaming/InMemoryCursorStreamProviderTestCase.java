@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.api.util.DataUnit.KB;
+import org.mule.runtime.api.streaming.exception.StreamingBufferSizeExceededException;
+import org.mule.runtime.api.util.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class InMemoryCursorStreamProviderTestCase {
+
+  private static final int MAX_BUFFER_SIZE = 10 * 1024;
+
+  @Test
+  public void streamSmallerThanInitialSize() throws IOException {
+    assertFullyRead(1000);
+  }
+
+  @Test
+  public void bufferExpands() throws IOException {
+    assertFullyRead(9000);
+  }
+
+  @Test
+  public void streamAsBigAsMaxSize() throws IOException {
+    assertFullyRead(MAX_BUFFER_SIZE);
+  }
+
+  @Test(expected = StreamingBufferSizeExceededException.class)
+  public void maxSizeExceeded() throws IOException {
+    assertFullyRead(MAX_BUFFER_SIZE + 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxSizeLowerThanInitialSize() {
+    new InMemoryCursorStreamConfig(new DataSize(2, KB), new DataSize(1, KB), new DataSize(1, KB));
+  }
+
+  @Test
+  public void chunksGivenBackToPoolOnClose() throws IOException {
+    BufferPoolStatistics statistics = BufferPoolStatistics.getDefault();
+    long chunksInUse = statistics.getChunksInUse();
+
+    CursorStreamProvider provider = CursorStreamProvider.inMemory(new ByteArrayInputStream(new byte[9000]), config());
+    CursorStream cursor = provider.openCursor();
+    IOUtils.toByteArray(cursor);
+    assertThat(statistics.getChunksInUse(), is(greaterThan(chunksInUse)));
+    assertThat(statistics.getChunksInUseHighWaterMark(), is(greaterThan(chunksInUse)));
+
+    provider.close();
+    assertThat(statistics.getChunksInUse(), is(greaterThan(chunksInUse)));
+
+    cursor.close();
+    assertThat(statistics.getChunksInUse(), is(chunksInUse));
+  }
+
+  private void assertFullyRead(int size) throws IOException {
+    byte[] data = new byte[size];
+    new Random().nextBytes(data);
+
+    CursorStreamProvider provider = CursorStreamProvider.inMemory(new ByteArrayInputStream(data), config());
+    try (CursorStream cursor = provider.openCursor()) {
+      assertThat(IOUtils.toByteArray(cursor), equalTo(data));
+      cursor.seek(0);
+      assertThat(IOUtils.toByteArray(cursor), equalTo(data));
+      assertThat(cursor.getPosition(), is((long) size));
+    } finally {
+      provider.close();
+    }
+  }
+
+  private InMemoryCursorStreamConfig config() {
+    return new InMemoryCursorStreamConfig(new DataSize(3, KB), new DataSize(3, KB), new DataSize(MAX_BUFFER_SIZE / 1024, KB));
+  }
+}
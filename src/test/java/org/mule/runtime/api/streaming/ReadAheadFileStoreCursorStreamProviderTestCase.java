@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static java.util.Arrays.copyOfRange;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+public class ReadAheadFileStoreCursorStreamProviderTestCase extends FileStoreCursorStreamProviderTestCase {
+
+  private ThreadPoolExecutor executor;
+
+  @Override
+  protected CursorStreamProvider createProvider(InputStream stream) {
+    executor = (ThreadPoolExecutor) newFixedThreadPool(2);
+    return CursorStreamProvider.fileStore(stream, config(), executor);
+  }
+
+  @Override
+  @After
+  public void after() {
+    // the provider must be closed while its prefetches can still run
+    super.after();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void prefetchesWhileReadingSequentially() throws Exception {
+    try (CursorStream cursor = provider.openCursor()) {
+      byte[] chunk = new byte[1024];
+      for (int i = 0; i < 100; i++) {
+        IOUtils.readFully(cursor, chunk);
+        assertThat(chunk, equalTo(copyOfRange(data, i * chunk.length, (i + 1) * chunk.length)));
+      }
+    }
+
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, SECONDS), is(true));
+    assertThat(executor.getCompletedTaskCount(), is(greaterThan(0L)));
+  }
+
+  @Test
+  public void seekWhileReadingSequentially() throws IOException {
+    try (CursorStream cursor = provider.openCursor()) {
+      byte[] chunk = new byte[4 * 1024];
+      for (int i = 0; i < 20; i++) {
+        IOUtils.readFully(cursor, chunk);
+      }
+
+      cursor.seek(200 * 1024);
+      assertThat(IOUtils.toByteArray(cursor), equalTo(copyOfRange(data, 200 * 1024, data.length)));
+
+      cursor.seek(10);
+      IOUtils.readFully(cursor, chunk);
+      assertThat(chunk, equalTo(copyOfRange(data, 10, 10 + chunk.length)));
+    }
+  }
+}
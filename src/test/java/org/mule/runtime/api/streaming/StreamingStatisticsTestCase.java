@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.streaming;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class StreamingStatisticsTestCase {
+
+  private static final int DATA_SIZE = 1024;
+
+  private final StreamingStatistics statistics = StreamingStatistics.getDefault();
+
+  /**
+   * The statistics are process wide, so other tests running in parallel may update them at the same time. Only the
+   * monotonic counters are checked, and only against lower bounds.
+   */
+  @Test
+  public void providerAndCursorLifecycle() throws IOException {
+    long closedProviders = statistics.getClosedProvidersCount();
+    long closedCursors = statistics.getClosedCursorsCount();
+
+    CursorStreamProvider provider =
+        CursorStreamProvider.inMemory(new ByteArrayInputStream(new byte[DATA_SIZE]), InMemoryCursorStreamConfig.getDefault());
+
+    CursorStream first = provider.openCursor();
+    CursorStream second = provider.openCursor();
+    assertThat(statistics.getMaxCursorsPerProvider(), is(greaterThanOrEqualTo(2)));
+
+    IOUtils.toByteArray(first);
+    assertThat(statistics.getBufferedBytes(), is(greaterThanOrEqualTo((long) DATA_SIZE)));
+
+    first.close();
+    provider.close();
+    assertThat(statistics.getClosedProvidersCount(), is(greaterThanOrEqualTo(closedProviders + 1)));
+    assertThat(statistics.getClosedCursorsCount(), is(greaterThanOrEqualTo(closedCursors + 1)));
+
+    second.close();
+    assertThat(statistics.getClosedCursorsCount(), is(greaterThanOrEqualTo(closedCursors + 2)));
+  }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.api.tx;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.mule.runtime.api.config.DatabasePoolingProfile;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Wrapper;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PoolingDataSourceDecoratorTestCase {
+
+  private static final String SQL = "SELECT * FROM PLANET WHERE ID = ?";
+
+  private final TestDataSource dataSource = new TestDataSource();
+  private final TestPoolingProfile poolingProfile = new TestPoolingProfile();
+  private final PoolingDataSourceDecorator decorator = PoolingDataSourceDecorator.create();
+  private PooledDataSource pooledDataSource;
+
+  @After
+  public void after() {
+    if (pooledDataSource != null) {
+      pooledDataSource.close();
+    }
+  }
+
+  @Test
+  public void appliesTo() {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    assertThat(decorator.appliesTo(dataSource.proxy), is(true));
+    assertThat(decorator.appliesTo(pooledDataSource), is(false));
+  }
+
+  @Test
+  public void closedConnectionIsReused() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    Connection connection = pooledDataSource.getConnection();
+    connection.close();
+    assertThat(connection.isClosed(), is(true));
+    assertThat(dataSource.closed.get(), is(0));
+
+    pooledDataSource.getConnection().close();
+    assertThat(dataSource.connected.get(), is(1));
+    assertThat(pooledDataSource.getStatistics().getCreatedCount(), is(1L));
+    assertThat(pooledDataSource.getStatistics().getBorrowTimes().getCount(), is(2L));
+  }
+
+  @Test
+  public void closedConnectionCannotBeUsed() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    Connection connection = pooledDataSource.getConnection();
+    connection.close();
+    try {
+      connection.prepareStatement(SQL);
+      fail("Closed connection should not be usable");
+    } catch (SQLException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void preparedStatementsAreCached() throws Exception {
+    poolingProfile.preparedStatementCacheSize = 10;
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+
+    for (int i = 0; i < 3; i++) {
+      try (Connection connection = pooledDataSource.getConnection()) {
+        PreparedStatement statement = connection.prepareStatement(SQL);
+        assertThat(statement.getConnection(), is(sameInstance(connection)));
+        statement.close();
+      }
+    }
+
+    assertThat(dataSource.prepared.get(), is(1));
+    assertThat(dataSource.statementsClosed.get(), is(0));
+  }
+
+  @Test
+  public void concurrentlyOpenStatementsAreNotShared() throws Exception {
+    poolingProfile.preparedStatementCacheSize = 10;
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+
+    try (Connection connection = pooledDataSource.getConnection()) {
+      PreparedStatement first = connection.prepareStatement(SQL);
+      PreparedStatement second = connection.prepareStatement(SQL);
+      assertThat(first, is(not(sameInstance(second))));
+    }
+
+    assertThat(dataSource.prepared.get(), is(2));
+    assertThat(dataSource.statementsClosed.get(), is(1));
+  }
+
+  @Test
+  public void statementCacheEvictsLeastRecentlyUsed() throws Exception {
+    poolingProfile.preparedStatementCacheSize = 1;
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+
+    try (Connection connection = pooledDataSource.getConnection()) {
+      connection.prepareStatement(SQL).close();
+      connection.prepareStatement("SELECT * FROM MOON").close();
+      connection.prepareStatement(SQL).close();
+    }
+
+    assertThat(dataSource.prepared.get(), is(3));
+    assertThat(dataSource.statementsClosed.get(), is(2));
+  }
+
+  @Test
+  public void statementsAreNotCachedByDefault() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    for (int i = 0; i < 2; i++) {
+      try (Connection connection = pooledDataSource.getConnection()) {
+        connection.prepareStatement(SQL).close();
+      }
+    }
+
+    assertThat(dataSource.prepared.get(), is(2));
+    assertThat(dataSource.statementsClosed.get(), is(2));
+  }
+
+  @Test
+  public void invalidConnectionIsDiscarded() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    pooledDataSource.getConnection().close();
+
+    dataSource.valid = false;
+    pooledDataSource.getConnection();
+    assertThat(dataSource.validated.get() > 0, is(true));
+    assertThat(dataSource.connected.get(), is(2));
+    assertThat(dataSource.closed.get(), is(1));
+  }
+
+  @Test
+  public void brokenConnectionIsDiscarded() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    Connection connection = pooledDataSource.getConnection();
+    dataSource.broken = true;
+    try {
+      connection.createStatement();
+      fail("Broken connection should have failed");
+    } catch (SQLException e) {
+      // expected
+    }
+    connection.close();
+
+    assertThat(dataSource.closed.get(), is(1));
+    assertThat(pooledDataSource.getStatistics().getDestroyedCount(), is(1L));
+  }
+
+  @Test
+  public void settingsAreRestored() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    Connection connection = pooledDataSource.getConnection();
+    connection.setAutoCommit(false);
+    connection.close();
+
+    assertThat(dataSource.rolledBack.get(), is(1));
+    assertThat(pooledDataSource.getConnection().getAutoCommit(), is(true));
+  }
+
+  @Test
+  public void unwrapReturnsPooledConnection() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    Connection connection = pooledDataSource.getConnection();
+
+    assertThat(connection.unwrap(Connection.class), is(sameInstance(connection)));
+    assertThat(connection.unwrap(Wrapper.class), is(sameInstance(connection)));
+    assertThat(connection.isWrapperFor(Connection.class), is(true));
+    assertThat(connection.isWrapperFor(VendorConnection.class), is(true));
+  }
+
+  @Test
+  public void unwrappedVendorConnectionIsReset() throws Exception {
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    Connection connection = pooledDataSource.getConnection();
+    VendorConnection vendorConnection = connection.unwrap(VendorConnection.class);
+    assertThat(vendorConnection, is(not(sameInstance(connection))));
+
+    vendorConnection.setAutoCommit(false);
+    connection.close();
+
+    assertThat(dataSource.rolledBack.get(), is(1));
+    assertThat(pooledDataSource.getConnection().getAutoCommit(), is(true));
+  }
+
+  @Test
+  public void leakDetection() throws Exception {
+    poolingProfile.leakDetectionThreshold = 20;
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+
+    pooledDataSource.getConnection();
+    pooledDataSource.getConnection().close();
+    assertThat(pooledDataSource.getSuspectedLeaksCount(), is(0L));
+
+    Thread.sleep(50);
+    pooledDataSource.getConnection().close();
+    assertThat(pooledDataSource.getSuspectedLeaksCount(), is(1L));
+  }
+
+  @Test
+  public void minPoolSizeConnectionsAreCreatedOnStart() {
+    poolingProfile.minPoolSize = 2;
+    pooledDataSource = decorator.decorate(dataSource.proxy, "test", poolingProfile);
+    assertThat(dataSource.connected.get(), is(2));
+  }
+
+  /**
+   * A driver specific extension of {@link Connection}
+   */
+  private interface VendorConnection extends Connection {
+  }
+
+  private static class TestPoolingProfile implements DatabasePoolingProfile {
+
+    private int minPoolSize = 0;
+    private int preparedStatementCacheSize = 0;
+    private int leakDetectionThreshold = 0;
+
+    @Override
+    public int getMaxPoolSize() {
+      return 2;
+    }
+
+    @Override
+    public int getMinPoolSize() {
+      return minPoolSize;
+    }
+
+    @Override
+    public int getAcquireIncrement() {
+      return 1;
+    }
+
+    @Override
+    public int getPreparedStatementCacheSize() {
+      return preparedStatementCacheSize;
+    }
+
+    @Override
+    public int getMaxWait() {
+      return 100;
+    }
+
+    @Override
+    public TimeUnit getMaxWaitUnit() {
+      return MILLISECONDS;
+    }
+
+    @Override
+    public int getLeakDetectionThreshold() {
+      return leakDetectionThreshold;
+    }
+  }
+
+  /**
+   * A {@link DataSource} of fake connections, which only support what the pool needs
+   */
+  private static class TestDataSource {
+
+    private final AtomicInteger connected = new AtomicInteger(0);
+    private final AtomicInteger closed = new AtomicInteger(0);
+    private final AtomicInteger validated = new AtomicInteger(0);
+    private final AtomicInteger prepared = new AtomicInteger(0);
+    private final AtomicInteger statementsClosed = new AtomicInteger(0);
+    private final AtomicInteger rolledBack = new AtomicInteger(0);
+    private volatile boolean valid = true;
+    private volatile boolean broken = false;
+
+    private final DataSource proxy = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                                         new Class[] {DataSource.class},
+                                                                         (proxy, method, args) -> {
+                                                                           if (method.getName().equals("getConnection")) {
+                                                                             connected.incrementAndGet();
+                                                                             return newConnection();
+                                                                           }
+                                                                           throw new UnsupportedOperationException();
+                                                                         });
+
+    private Connection newConnection() {
+      boolean[] autoCommit = {true};
+      return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {VendorConnection.class},
+                                                 (proxy, method, args) -> {
+                                                   if (method.getName().equals("close")) {
+                                                     closed.incrementAndGet();
+                                                     return null;
+                                                   } else if (broken) {
+                                                     throw new SQLException("Connection reset", "08S01");
+                                                   }
+                                                   switch (method.getName()) {
+                                                     case "toString":
+                                                       return "TestConnection";
+                                                     case "isValid":
+                                                       validated.incrementAndGet();
+                                                       return valid;
+                                                     case "getAutoCommit":
+                                                       return autoCommit[0];
+                                                     case "setAutoCommit":
+                                                       autoCommit[0] = (Boolean) args[0];
+                                                       return null;
+                                                     case "rollback":
+                                                       rolledBack.incrementAndGet();
+                                                       return null;
+                                                     case "isReadOnly":
+                                                       return false;
+                                                     case "getTransactionIsolation":
+                                                       return Connection.TRANSACTION_READ_COMMITTED;
+                                                     case "getCatalog":
+                                                       return null;
+                                                     case "isWrapperFor":
+                                                       return ((Class<?>) args[0]).isInstance(proxy);
+                                                     case "unwrap":
+                                                       return proxy;
+                                                     case "prepareStatement":
+                                                       prepared.incrementAndGet();
+                                                       return newStatement();
+                                                     case "createStatement":
+                                                       return newStatement();
+                                                     default:
+                                                       throw new UnsupportedOperationException(method.getName());
+                                                   }
+                                                 });
+    }
+
+    private PreparedStatement newStatement() {
+      return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                        new Class[] {PreparedStatement.class},
+                                                        (proxy, method, args) -> {
+                                                          if (method.getName().equals("close")) {
+                                                            statementsClosed.incrementAndGet();
+                                                          }
+                                                          return null;
+                                                        });
+    }
+  }
+}